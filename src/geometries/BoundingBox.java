@@ -2,8 +2,6 @@ package geometries;
 
 import primitives.*;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.LinkedList;
 import java.util.List;
 
 /**
@@ -112,6 +110,60 @@ public class BoundingBox {
         return tMinX <= tMaxZ && tMinZ <= tMaxX;
     }
 
+    /**
+     * Calculates the distance where a ray enters the bounding box.
+     *
+     * @param ray         the ray to test for intersection
+     * @param maxDistance the distance the ray must enter the box before
+     * @return the distance from the ray's head to the point where it enters the box (0 if the head is inside the
+     * box), or positive infinity if the ray doesn't cross the box before the max distance
+     */
+    public double intersectionDistance(Ray ray, double maxDistance) {
+        Point head = ray.getHead();
+        Vector dir = ray.getDirection();
+        double tNear = 0;
+        double tFar = maxDistance;
+
+        // For each axis narrow the range between the two planes of the box.
+        // A ray parallel to the planes gets infinite distances (or NaN, which is ignored by the comparisons)
+        double inv = 1 / dir.getX();
+        double t0 = (min.getX() - head.getX()) * inv;
+        double t1 = (max.getX() - head.getX()) * inv;
+        if (inv < 0) { double temp = t0; t0 = t1; t1 = temp; }
+        if (t0 > tNear) tNear = t0;
+        if (t1 < tFar) tFar = t1;
+
+        inv = 1 / dir.getY();
+        t0 = (min.getY() - head.getY()) * inv;
+        t1 = (max.getY() - head.getY()) * inv;
+        if (inv < 0) { double temp = t0; t0 = t1; t1 = temp; }
+        if (t0 > tNear) tNear = t0;
+        if (t1 < tFar) tFar = t1;
+
+        inv = 1 / dir.getZ();
+        t0 = (min.getZ() - head.getZ()) * inv;
+        t1 = (max.getZ() - head.getZ()) * inv;
+        if (inv < 0) { double temp = t0; t0 = t1; t1 = temp; }
+        if (t0 > tNear) tNear = t0;
+        if (t1 < tFar) tFar = t1;
+
+        return tNear <= tFar ? tNear : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Tests the rays of a packet's lanes against the bounding box, by the same slab test as
+     * {@link #intersectionDistance(Ray, double)}, within the distance of the closest intersection found for every
+     * ray so far.
+     *
+     * @param packet the packet
+     * @param lanes  the mask of the lanes to test
+     * @return the mask of the lanes whose rays enter the box
+     */
+    int intersect(RayPacket packet, int lanes) {
+        return PacketKernel.INSTANCE.intersectBox(packet, lanes, min.getX(), min.getY(), min.getZ(),
+                max.getX(), max.getY(), max.getZ(), null, 0);
+    }
+
     /**
      * Gets the center point of the bounding box.
      *
@@ -140,70 +192,125 @@ public class BoundingBox {
         );
     }
 
+    /**
+     * Calculates the surface area of the bounding box.
+     *
+     * @return the surface area of the bounding box
+     */
+    public double surfaceArea() {
+        double dx = max.getX() - min.getX();
+        double dy = max.getY() - min.getY();
+        double dz = max.getZ() - min.getZ();
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
     /**
      * Builds a bounding volume hierarchy (BVH) from a list of intersectable geometries.
+     * The geometries are split by the median of their box centers along the X axis.
      *
      * @param intersectableList the list of intersectable geometries
      * @return a list of intersectable geometries organized in a BVH
      */
     static public List<Intersectable> buildBVH(List<Intersectable> intersectableList) {
+        return buildBVH(intersectableList, BvhBuildStrategy.MEDIAN);
+    }
+
+    /**
+     * Builds a bounding volume hierarchy (BVH) from a list of intersectable geometries.
+     * Geometries without a bounding box (infinite geometries) are kept out of the hierarchy.
+     *
+     * @param intersectableList the list of intersectable geometries
+     * @param strategy          the strategy that decides how every node is split
+     * @return a list of the infinite geometries followed by the root of the BVH
+     */
+    static public List<Intersectable> buildBVH(List<Intersectable> intersectableList, BvhBuildStrategy strategy) {
         if (intersectableList.size() <= 1) {
             return intersectableList;
         }
 
         // Extract infinite geometries into a separate list
-        List<Intersectable> infiniteGeometries = new LinkedList<>();
-        for (int i = 0; i < intersectableList.size(); i++) {
-            // Remove geometries with infinite bounding boxes
-            var g = intersectableList.get(i);
-            if (g.getBoundingBox() == null) {
-                // Add the geometry to the infinite geometries list
-                infiniteGeometries.add(g);
-                intersectableList.remove(i);
-                i--;
-            }
+        List<Intersectable> result = new ArrayList<>();
+        List<Intersectable> finiteGeometries = new ArrayList<>();
+        for (Intersectable g : intersectableList) {
+            if (g.getBoundingBox() == null) result.add(g);
+            else finiteGeometries.add(g);
         }
-
-        // Sort geometries by the X coordinate of their bounding box centers
-        intersectableList.sort(Comparator.comparingDouble(g -> g.getBoundingBox().getCenter().getX()));
-
-        // Split the list into two halves and recursively build the BVH
-        int mid = intersectableList.size() / 2;
-        // Recursively build the BVH for the left and right halves
-        List<Intersectable> leftGeometries = buildBVH(intersectableList.subList(0, mid));
-        // Recursively build the BVH for the right half
-        List<Intersectable> rightGeometries = buildBVH(intersectableList.subList(mid, intersectableList.size()));
-
-        // Create bounding boxes for the left and right halves
-        BoundingBox leftBox = getBoundingBox(leftGeometries);
-        BoundingBox rightBox = getBoundingBox(rightGeometries);
-
-        // Combine the left and right geometries into a single Geometries object
-        Geometries combined = new Geometries(leftGeometries);
-        combined.add(rightGeometries);
-        if(leftBox != null && rightBox != null) {
-            combined.box = leftBox.union(rightBox);
+        if (finiteGeometries.isEmpty()) {
+            return result;
         }
 
-
-        // Combine the infinite geometries and the BVH into a single list
-        List<Intersectable> result = new ArrayList<>(infiniteGeometries);
-        result.add(combined);
+        // Build the hierarchy over the indices of the finite geometries
+        double[] bounds = getBounds(finiteGeometries);
+        int[] indices = new int[finiteGeometries.size()];
+        for (int i = 0; i < indices.length; ++i) indices[i] = i;
+        result.add(buildNode(finiteGeometries, bounds, indices, 0, indices.length, strategy));
         return result;
     }
 
-    // Calculates the bounding box for a list of intersect geometries.
-    static private BoundingBox getBoundingBox(List<Intersectable> intersectableList) {
-        if (intersectableList.isEmpty()) {
-            return null;
+    // Recursively builds the BVH node of the geometries in the range [from, to) of the indices
+    static private Intersectable buildNode(List<Intersectable> geometries, double[] bounds, int[] indices,
+                                           int from, int to, BvhBuildStrategy strategy) {
+        int mid = strategy.partition(bounds, indices, from, to);
+        if (mid == -1 && to - from == 1) {
+            return geometries.get(indices[from]);
         }
 
-        // Initialize the bounding box with the first geometry's bounding box
-        BoundingBox boundingBox = intersectableList.get(0).getBoundingBox();
+        Geometries node = new Geometries();
+        if (mid == -1) {
+            // A leaf - all the geometries are the children of the node
+            for (int i = from; i < to; ++i) node.add(geometries.get(indices[i]));
+        } else {
+            // Recursively build the two children
+            node.add(buildNode(geometries, bounds, indices, from, mid, strategy),
+                    buildNode(geometries, bounds, indices, mid, to, strategy));
+        }
+        node.box = getBoundingBox(bounds, indices, from, to);
+        return node;
+    }
+
+    /**
+     * Collects the bounding boxes of geometries into one flat array, six numbers per geometry:
+     * minX, minY, minZ, maxX, maxY, maxZ.
+     *
+     * @param intersectableList the geometries, all of them must have a bounding box
+     * @return the bounds array
+     */
+    static double[] getBounds(List<Intersectable> intersectableList) {
+        double[] bounds = new double[intersectableList.size() * 6];
+        int i = 0;
         for (Intersectable g : intersectableList) {
-            boundingBox = boundingBox.union(g.getBoundingBox());
+            BoundingBox b = g.getBoundingBox();
+            bounds[i++] = b.min.getX();
+            bounds[i++] = b.min.getY();
+            bounds[i++] = b.min.getZ();
+            bounds[i++] = b.max.getX();
+            bounds[i++] = b.max.getY();
+            bounds[i++] = b.max.getZ();
         }
+        return bounds;
+    }
 
-        return boundingBox;
+    /**
+     * Calculates the bounding box of a range of geometries in a flat bounds array.
+     *
+     * @param bounds  the bounds array, six numbers per geometry
+     * @param indices the geometry indices
+     * @param from    first index of the range (included)
+     * @param to      last index of the range (excluded)
+     * @return the bounding box containing all the geometries in the range
+     */
+    static BoundingBox getBoundingBox(double[] bounds, int[] indices, int from, int to) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; ++i) {
+            int g = indices[i] * 6;
+            minX = Math.min(minX, bounds[g]);
+            minY = Math.min(minY, bounds[g + 1]);
+            minZ = Math.min(minZ, bounds[g + 2]);
+            maxX = Math.max(maxX, bounds[g + 3]);
+            maxY = Math.max(maxY, bounds[g + 4]);
+            maxZ = Math.max(maxZ, bounds[g + 5]);
+        }
+        return new BoundingBox(new Point(minX, minY, minZ), new Point(maxX, maxY, maxZ));
     }
-}
\ No newline at end of file
+}
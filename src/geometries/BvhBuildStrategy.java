@@ -0,0 +1,35 @@
+package geometries;
+
+/**
+ * A strategy that decides how the geometries of a bounding volume hierarchy (BVH) node are split
+ * between its two children.
+ * <p>
+ * The BVH builders keep the bounding boxes of all the geometries in one flat array, six numbers per
+ * geometry - {@code minX, minY, minZ, maxX, maxY, maxZ} - and refer to the geometries by their index
+ * in that array. A strategy only reorders a range of those indices and tells where the range is cut.
+ */
+public interface BvhBuildStrategy {
+
+    /**
+     * Binned surface area heuristic - chooses both the split axis and the split position by cost
+     */
+    BvhBuildStrategy SAH = new SahBvhBuildStrategy();
+
+    /**
+     * The original split - sorts by the X coordinate of the box centers and cuts in the middle
+     */
+    BvhBuildStrategy MEDIAN = new MedianBvhBuildStrategy();
+
+    /**
+     * Reorders the geometry indices in the range [from, to) so that the geometries of the first child come
+     * first, and returns where the range is cut.
+     *
+     * @param bounds  the bounding boxes of all the geometries, six numbers per geometry
+     * @param indices the geometry indices, only the range [from, to) may be reordered
+     * @param from    first index of the range (included)
+     * @param to      last index of the range (excluded)
+     * @return the cut position {@code mid} (from &lt; mid &lt; to), the first child gets [from, mid) and the
+     * second gets [mid, to); or -1 if the range should not be split and become a leaf
+     */
+    int partition(double[] bounds, int[] indices, int from, int to);
+}
@@ -0,0 +1,352 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Vector;
+
+import java.util.Arrays;
+
+/**
+ * Compact, array-backed layout of a bounding volume hierarchy (a "linear BVH").
+ * <p>
+ * The nodes are stored in depth-first order, so the first child of an inner node is always the next node.
+ * For each node the arrays hold:
+ * <ul>
+ * <li>{@link #bounds} - six numbers: minX, minY, minZ, maxX, maxY, maxZ</li>
+ * <li>{@link #counts} - the number of primitives in a leaf, 0 for an inner node</li>
+ * <li>{@link #offsets} - the index of the second child for an inner node, or the position of the leaf's
+ * first primitive in {@link #primitives}</li>
+ * </ul>
+ * The primitives are referred to by their indices in the bounds array the hierarchy was built from.
+ */
+final class BvhNodes {
+    /** Bounds of the nodes, six numbers per node */
+    final double[] bounds;
+    /** Second child index (inner node) or first primitive position (leaf) of every node */
+    final int[] offsets;
+    /** Number of primitives of every node, 0 for an inner node */
+    final int[] counts;
+    /** Primitive indices ordered so that the primitives of each leaf are consecutive */
+    final int[] primitives;
+    /** The number of nodes */
+    final int size;
+    /** The maximal depth of the hierarchy - the stack size needed to traverse it */
+    final int depth;
+
+    /**
+     * Intersects a ray with a single primitive of a hierarchy's leaf
+     */
+    @FunctionalInterface
+    interface PrimitiveIntersector {
+        /**
+         * Offers the intersections of the hit record's ray with a primitive to the record
+         *
+         * @param primitive the primitive index
+         * @param hit       the hit record
+         * @return false if the record's visitor stopped the search, true otherwise
+         */
+        boolean intersect(int primitive, HitRecord hit);
+    }
+
+    /**
+     * Intersects some of the rays of a packet with a single primitive of a hierarchy's leaf
+     */
+    @FunctionalInterface
+    interface PacketIntersector {
+        /**
+         * Offers the intersections of the rays of a packet's lanes with a primitive to their hit records
+         *
+         * @param primitive the primitive index
+         * @param packet    the packet
+         * @param lanes     the mask of the lanes to intersect
+         */
+        void intersect(int primitive, RayPacket packet, int lanes);
+    }
+
+    // Temporary counters used while building
+    private int nodeCount = 0;
+    private int maxDepth = 0;
+
+    /**
+     * Builds the hierarchy over primitives with the given bounds
+     *
+     * @param primitiveBounds the bounds of the primitives, six numbers per primitive
+     * @param strategy        the strategy that decides how every node is split
+     */
+    BvhNodes(double[] primitiveBounds, BvhBuildStrategy strategy) {
+        int primitiveCount = primitiveBounds.length / 6;
+        primitives = new int[primitiveCount];
+        for (int i = 0; i < primitiveCount; ++i) primitives[i] = i;
+
+        // A binary tree with n leaves has at most 2n - 1 nodes
+        int maxNodes = Math.max(1, 2 * primitiveCount - 1);
+        double[] nodeBounds = new double[maxNodes * 6];
+        int[] nodeOffsets = new int[maxNodes];
+        int[] nodeCounts = new int[maxNodes];
+        if (primitiveCount > 0)
+            build(primitiveBounds, strategy, nodeBounds, nodeOffsets, nodeCounts, 0, primitiveCount, 1);
+
+        size = nodeCount;
+        depth = maxDepth;
+        bounds = Arrays.copyOf(nodeBounds, size * 6);
+        offsets = Arrays.copyOf(nodeOffsets, size);
+        counts = Arrays.copyOf(nodeCounts, size);
+    }
+
+    // Recursively builds the node of the primitives in the range [from, to) and returns its index
+    private int build(double[] primitiveBounds, BvhBuildStrategy strategy, double[] nodeBounds, int[] nodeOffsets,
+                      int[] nodeCounts, int from, int to, int level) {
+        int node = nodeCount++;
+        if (level > maxDepth) maxDepth = level;
+
+        // The node's bounds contain all of its primitives
+        int n = node * 6;
+        for (int axis = 0; axis < 3; ++axis) {
+            nodeBounds[n + axis] = Double.POSITIVE_INFINITY;
+            nodeBounds[n + axis + 3] = Double.NEGATIVE_INFINITY;
+        }
+        for (int i = from; i < to; ++i) {
+            int p = primitives[i] * 6;
+            for (int axis = 0; axis < 3; ++axis) {
+                nodeBounds[n + axis] = Math.min(nodeBounds[n + axis], primitiveBounds[p + axis]);
+                nodeBounds[n + axis + 3] = Math.max(nodeBounds[n + axis + 3], primitiveBounds[p + axis + 3]);
+            }
+        }
+
+        int mid = strategy.partition(primitiveBounds, primitives, from, to);
+        if (mid == -1) {
+            // A leaf - refers to its range of the primitives
+            nodeOffsets[node] = from;
+            nodeCounts[node] = to - from;
+        } else {
+            // The first child directly follows its parent
+            build(primitiveBounds, strategy, nodeBounds, nodeOffsets, nodeCounts, from, mid, level + 1);
+            nodeOffsets[node] = build(primitiveBounds, strategy, nodeBounds, nodeOffsets, nodeCounts, mid, to,
+                    level + 1);
+        }
+        return node;
+    }
+
+    /**
+     * Creates a stack large enough for traversing the hierarchy
+     *
+     * @return the stack
+     */
+    int[] newStack() {
+        return new int[depth + 2];
+    }
+
+    /**
+     * Traverses the hierarchy with the hit record's ray, front to back, and offers the intersections with the
+     * primitives of the leaves it reaches. The nodes entered after the closest intersection found so far are
+     * skipped.
+     *
+     * @param hit         the hit record
+     * @param intersector intersects the ray with a primitive
+     * @return false if the record's visitor stopped the search, true otherwise
+     */
+    boolean intersect(HitRecord hit, PrimitiveIntersector intersector) {
+        if (size == 0) return true;
+
+        Point head = hit.ray.getHead();
+        Vector direction = hit.ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double invDx = 1 / direction.getX(), invDy = 1 / direction.getY(), invDz = 1 / direction.getZ();
+
+        // The stack of the record keeps the nodes to visit along with the distances where the ray enters them
+        int base = hit.takeStack(depth + 2);
+        int[] stack = hit.nodeStack;
+        double[] entries = hit.entryStack;
+        int top = base;
+        double entry = intersect(0, ox, oy, oz, invDx, invDy, invDz, hit.maxDistance);
+        if (entry != Double.POSITIVE_INFINITY) {
+            stack[top] = 0;
+            entries[top++] = entry;
+        }
+        while (top > base) {
+            int node = stack[--top];
+            // The closest intersection found so far is before this node's box
+            if (entries[top] > hit.maxDistance) continue;
+
+            int count = counts[node];
+            if (count == 0) {
+                // Inner node - push the farther child first so that the nearer one is visited first
+                int near = node + 1;
+                int far = offsets[node];
+                double nearEntry = intersect(near, ox, oy, oz, invDx, invDy, invDz, hit.maxDistance);
+                double farEntry = intersect(far, ox, oy, oz, invDx, invDy, invDz, hit.maxDistance);
+                if (farEntry < nearEntry) {
+                    int temp = near;
+                    near = far;
+                    far = temp;
+                    double tempEntry = nearEntry;
+                    nearEntry = farEntry;
+                    farEntry = tempEntry;
+                }
+                if (farEntry != Double.POSITIVE_INFINITY) {
+                    stack[top] = far;
+                    entries[top++] = farEntry;
+                }
+                if (nearEntry != Double.POSITIVE_INFINITY) {
+                    stack[top] = near;
+                    entries[top++] = nearEntry;
+                }
+            } else {
+                // Leaf - offer its primitives' intersections, stop as soon as the record's visitor asks to
+                int first = offsets[node];
+                for (int i = first; i < first + count; ++i)
+                    if (!intersector.intersect(primitives[i], hit)) {
+                        hit.releaseStack(base);
+                        return false;
+                    }
+            }
+        }
+        hit.releaseStack(base);
+        return true;
+    }
+
+    /**
+     * Traverses the hierarchy once with all the rays of a packet's lanes, and offers the intersections with the
+     * primitives of the leaves that any of them reaches to the lanes that reach them. A node is visited with the
+     * lanes that enter its box before the closest intersection found for them so far, the child entered first by
+     * any lane is visited first.
+     *
+     * @param packet      the packet
+     * @param lanes       the mask of the lanes to intersect
+     * @param intersector intersects the rays of the lanes with a primitive
+     */
+    void intersect(RayPacket packet, int lanes, PacketIntersector intersector) {
+        if (size == 0) return;
+
+        // The stack keeps the nodes to visit along with their lanes and the distances where the lanes enter them
+        int width = packet.hits.length;
+        int base = packet.takeStack(depth + 2);
+        int[] stack = packet.nodeStack;
+        int[] masks = packet.maskStack;
+        double[] entries = packet.entryStack;
+        int top = base;
+        lanes = intersect(0, packet, lanes, entries, base * width);
+        if (lanes != 0) {
+            stack[top] = 0;
+            masks[top++] = lanes;
+        }
+        while (top > base) {
+            int node = stack[--top];
+            // Drop the lanes whose closest intersection found so far is before this node's box
+            int active = 0;
+            for (int m = masks[top]; m != 0; m &= m - 1) {
+                int lane = Integer.numberOfTrailingZeros(m);
+                if (entries[top * width + lane] <= packet.hits[lane].maxDistance) active |= 1 << lane;
+            }
+            if (active == 0) continue;
+
+            int count = counts[node];
+            if (count == 0) {
+                // Inner node - the children are tested into the two stack slots they may take, the farther
+                // child is pushed first so that the nearer one is visited first
+                int near = node + 1;
+                int far = offsets[node];
+                int nearLanes = intersect(near, packet, active, entries, (top + 1) * width);
+                int farLanes = intersect(far, packet, active, entries, top * width);
+                if (nearLanes != 0 && farLanes != 0
+                        && nearest(entries, top * width, farLanes) < nearest(entries, (top + 1) * width, nearLanes)) {
+                    // Swap the children along with their slots
+                    for (int lane = 0; lane < width; ++lane) {
+                        double temp = entries[top * width + lane];
+                        entries[top * width + lane] = entries[(top + 1) * width + lane];
+                        entries[(top + 1) * width + lane] = temp;
+                    }
+                    int temp = near;
+                    near = far;
+                    far = temp;
+                    temp = nearLanes;
+                    nearLanes = farLanes;
+                    farLanes = temp;
+                }
+                if (farLanes != 0) {
+                    stack[top] = far;
+                    masks[top++] = farLanes;
+                } else if (nearLanes != 0) {
+                    // The nearer child takes the farther one's slot
+                    System.arraycopy(entries, (top + 1) * width, entries, top * width, width);
+                }
+                if (nearLanes != 0) {
+                    stack[top] = near;
+                    masks[top++] = nearLanes;
+                }
+            } else {
+                // Leaf - offer its primitives' intersections to the active lanes
+                int first = offsets[node];
+                for (int i = first; i < first + count; ++i)
+                    intersector.intersect(primitives[i], packet, active);
+            }
+        }
+        packet.releaseStack(base);
+    }
+
+    // The smallest entry distance of the lanes of a stack slot
+    private static double nearest(double[] entries, int slot, int lanes) {
+        double nearest = Double.POSITIVE_INFINITY;
+        for (; lanes != 0; lanes &= lanes - 1)
+            nearest = Math.min(nearest, entries[slot + Integer.numberOfTrailingZeros(lanes)]);
+        return nearest;
+    }
+
+    /**
+     * Tests the rays of a packet's lanes against the bounds of a node, by the same slab test as
+     * {@link #intersect(int, double, double, double, double, double, double, double)}
+     *
+     * @param node    the node index
+     * @param packet  the packet
+     * @param lanes   the mask of the lanes to test
+     * @param entries receives the distances where the lanes enter the node's box
+     * @param slot    the position of the node's first lane in the entries
+     * @return the mask of the lanes that enter the box within the distance of their closest intersection so far
+     */
+    private int intersect(int node, RayPacket packet, int lanes, double[] entries, int slot) {
+        int b = node * 6;
+        return PacketKernel.INSTANCE.intersectBox(packet, lanes, bounds[b], bounds[b + 1], bounds[b + 2],
+                bounds[b + 3], bounds[b + 4], bounds[b + 5], entries, slot);
+    }
+
+    /**
+     * Tests a ray against the bounds of a node (the slab test)
+     *
+     * @param node        the node index
+     * @param ox          ray head X
+     * @param oy          ray head Y
+     * @param oz          ray head Z
+     * @param invDx       1 / ray direction X
+     * @param invDy       1 / ray direction Y
+     * @param invDz       1 / ray direction Z
+     * @param maxDistance the maximal distance along the ray
+     * @return the distance where the ray enters the node's box (0 if it starts inside), or positive infinity if
+     * the ray misses the box within the distance
+     */
+    double intersect(int node, double ox, double oy, double oz, double invDx, double invDy, double invDz,
+                     double maxDistance) {
+        int b = node * 6;
+        double tNear = 0;
+        double tFar = maxDistance;
+
+        // NaN (a ray parallel to a slab starting on its border) fails both comparisons and is ignored
+        double t0 = (bounds[b] - ox) * invDx;
+        double t1 = (bounds[b + 3] - ox) * invDx;
+        if (invDx < 0) { double temp = t0; t0 = t1; t1 = temp; }
+        if (t0 > tNear) tNear = t0;
+        if (t1 < tFar) tFar = t1;
+
+        t0 = (bounds[b + 1] - oy) * invDy;
+        t1 = (bounds[b + 4] - oy) * invDy;
+        if (invDy < 0) { double temp = t0; t0 = t1; t1 = temp; }
+        if (t0 > tNear) tNear = t0;
+        if (t1 < tFar) tFar = t1;
+
+        t0 = (bounds[b + 2] - oz) * invDz;
+        t1 = (bounds[b + 5] - oz) * invDz;
+        if (invDz < 0) { double temp = t0; t0 = t1; t1 = temp; }
+        if (t0 > tNear) tNear = t0;
+        if (t1 < tFar) tFar = t1;
+
+        return tNear <= tFar ? tNear : Double.POSITIVE_INFINITY;
+    }
+}
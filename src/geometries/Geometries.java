@@ -57,14 +57,14 @@ public class Geometries extends Intersectable {
     }
 */
     @Override
-    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
         if (this.lstGeo.isEmpty()) { // Check if the list is empty
             return null; // If empty, return null
         }
 
         List<GeoPoint> intersections = null; // Create a new list to store intersection points
         for (Intersectable geometry : lstGeo) { // Loop through all objects in the list
-            List<GeoPoint> geometryIntersections = geometry.findGeoIntersections(ray)
+            List<GeoPoint> geometryIntersections = geometry.findGeoIntersections(ray, maxDistance)
                     ; // Find intersection points with
             // The current object
             if (geometryIntersections != null) { // Check if intersection points were found
@@ -77,17 +77,99 @@ public class Geometries extends Intersectable {
         return intersections; // Return the list of found intersection points
     }
 
+    @Override
+    protected boolean intersectHelper(HitRecord hit) {
+        Ray ray = hit.ray;
+        // A node of the hierarchy built by makeBVH() - visit the nearer child first,
+        // the farther one is skipped if the closest intersection found is before its box
+        if (lstGeo.size() == 2) {
+            Intersectable first = lstGeo.get(0);
+            Intersectable second = lstGeo.get(1);
+            double firstDistance = entryDistance(first, ray, hit.maxDistance);
+            double secondDistance = entryDistance(second, ray, hit.maxDistance);
+            if (secondDistance < firstDistance) {
+                Intersectable temp = first;
+                first = second;
+                second = temp;
+                double tempDistance = firstDistance;
+                firstDistance = secondDistance;
+                secondDistance = tempDistance;
+            }
+
+            if (isEntered(firstDistance, hit) && !first.intersectHelper(hit)) return false;
+            return !isEntered(secondDistance, hit) || second.intersectHelper(hit);
+        }
+
+        for (Intersectable geometry : lstGeo) {
+            // Skip the geometries whose box is entered after the closest intersection found so far
+            if (!isEntered(entryDistance(geometry, ray, hit.maxDistance), hit)) continue;
+            // Stop as soon as the record's visitor asks to
+            if (!geometry.intersectHelper(hit)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    protected void intersectHelper(RayPacket packet, int lanes) {
+        // Every geometry drops the lanes that miss its bounding box
+        for (Intersectable geometry : lstGeo)
+            geometry.intersect(packet, lanes);
+    }
+
+    // The distance where the ray enters the geometry's bounding box, 0 for a geometry without a box
+    private static double entryDistance(Intersectable geometry, Ray ray, double maxDistance) {
+        BoundingBox box = geometry.getBoundingBox();
+        return box == null ? 0 : box.intersectionDistance(ray, maxDistance);
+    }
+
+    // Whether a box entered at the distance may still hold an intersection within the record's search distance
+    // (a missed box has an infinite entry distance, which must be skipped even before anything is found)
+    private static boolean isEntered(double entryDistance, HitRecord hit) {
+        return entryDistance != Double.POSITIVE_INFINITY && entryDistance <= hit.maxDistance;
+    }
+
     /**
      * Creates a bounding volume hierarchy (BVH) for the geometries in the collection.
      * This method optimizes the intersection tests by organizing the geometries into a hierarchical structure.
+     * The nodes are split by the surface area heuristic.
      */
     public void makeBVH() {
+        makeBVH(BvhBuildStrategy.SAH);
+    }
+
+    /**
+     * Creates a bounding volume hierarchy (BVH) for the geometries in the collection.
+     * This method optimizes the intersection tests by organizing the geometries into a hierarchical structure.
+     *
+     * @param strategy the strategy that decides how every node of the hierarchy is split
+     */
+    public void makeBVH(BvhBuildStrategy strategy) {
         // Create a new list to store the optimized geometries
-        List<Intersectable> intersectables = BoundingBox.buildBVH(lstGeo);
+        List<Intersectable> intersectables = BoundingBox.buildBVH(lstGeo, strategy);
         // Clear the current list and add the optimized geometries
         lstGeo.clear();
         // Add the optimized geometries to the list
         lstGeo.addAll(intersectables);
     }
 
+    /**
+     * Replaces the geometries in the collection by a single flattened, array-backed bounding volume
+     * hierarchy ({@link LinearBVH}) over all of them. The nodes are split by the surface area heuristic.
+     */
+    public void makeLinearBVH() {
+        makeLinearBVH(BvhBuildStrategy.SAH);
+    }
+
+    /**
+     * Replaces the geometries in the collection by a single flattened, array-backed bounding volume
+     * hierarchy ({@link LinearBVH}) over all of them.
+     *
+     * @param strategy the strategy that decides how every node of the hierarchy is split
+     */
+    public void makeLinearBVH(BvhBuildStrategy strategy) {
+        LinearBVH bvh = new LinearBVH(lstGeo, strategy);
+        lstGeo.clear();
+        lstGeo.add(bvh);
+    }
+
 }
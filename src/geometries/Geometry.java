@@ -41,6 +41,18 @@ public abstract class Geometry extends Intersectable {
     }
 
 
+    /**
+     * Method that returns the emission color of the geometry at a recorded intersection. Geometries whose
+     * primitives have emissions of their own (a sphere set) override it in order to return the emission of the
+     * intersected primitive.
+     *
+     * @param hit the hit record of an intersection with this geometry
+     * @return the emission color
+     */
+    public Color getEmission(HitRecord hit) {
+        return emission;
+    }
+
     /**
      * Method that returns the normal vector to the surface body at a given point.
      * This method must be implemented by subclasses.
@@ -50,6 +62,31 @@ public abstract class Geometry extends Intersectable {
      */
     public abstract Vector getNormal(Point point);
 
+    /**
+     * Method that returns the normal vector to the surface body at a recorded intersection.
+     * Geometries that record more than the distance of the intersection may override it in order to use
+     * that data instead of the point.
+     *
+     * @param hit the hit record of an intersection with this geometry
+     * @return a vector
+     */
+    public Vector getNormal(HitRecord hit) {
+        return getNormal(hit.getPoint());
+    }
+
+    /**
+     * Intersects the ray of a hit record with a single primitive of the geometry, e.g. the one recorded by an
+     * earlier intersection. Geometries made of primitives (a mesh) override it in order to skip the search for the
+     * primitive; the others intersect the whole geometry.
+     *
+     * @param hit       the hit record, reset for the ray
+     * @param primitive the index of the primitive within the geometry, -1 for the whole geometry
+     * @return false if the record's visitor stopped the search, true otherwise
+     */
+    public boolean intersect(HitRecord hit, int primitive) {
+        return intersect(hit);
+    }
+
     /**
      * Method that returns the material of the geometry.
      *
@@ -59,6 +96,18 @@ public abstract class Geometry extends Intersectable {
         return this.material;
     }
 
+    /**
+     * Method that returns the material of the geometry at a recorded intersection. Geometries whose primitives
+     * have materials of their own (a sphere set) override it in order to return the material of the intersected
+     * primitive.
+     *
+     * @param hit the hit record of an intersection with this geometry
+     * @return the material
+     */
+    public Material getMaterial(HitRecord hit) {
+        return material;
+    }
+
     /**
      * Method to update the material of the geometry.
      *
@@ -0,0 +1,238 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+import static primitives.Util.alignZero;
+
+/**
+ * A mutable, reusable record of a ray's intersection with the geometries.
+ * <p>
+ * A record is reset for every ray and then handed to {@link Intersectable#intersect(HitRecord)}. The
+ * geometries offer each of their intersections to the record by its distance along the ray, without
+ * allocating any point or list. The record works in one of two modes:
+ * <ul>
+ * <li>closest hit - keeps the closest intersection offered, and narrows the search distance to it</li>
+ * <li>any hit - hands every intersection within the search distance to a visitor, until the visitor asks to
+ * stop</li>
+ * </ul>
+ * The intersection point and the normal are calculated only when they are asked for.
+ * A record is meant to be owned by a single thread and reused for all of its rays.
+ */
+public class HitRecord {
+    /** The ray being intersected */
+    public Ray ray;
+    /** The search distance - intersections farther than it are ignored */
+    public double maxDistance;
+    /** The distance along the ray of the recorded intersection */
+    public double t;
+    /** The geometry of the recorded intersection, null if nothing was recorded */
+    public Geometry geometry;
+    /** The index of the recorded intersection's primitive within its geometry (a mesh face), -1 if none */
+    public int primitive;
+    /** The barycentric coordinates of the recorded intersection on a triangle, NaN if not known */
+    public double u, v;
+
+    /** Receives the intersections in the any hit mode, null in the closest hit mode */
+    private Predicate<HitRecord> visitor;
+    /** The intersection point, calculated lazily */
+    private Point point;
+    /** The normal at the intersection point, calculated lazily */
+    private Vector normal;
+
+    /**
+     * The traversal stack of the hierarchies the ray is intersected with - the nodes to visit. A hierarchy nested
+     * in a leaf of another one (a mesh) takes the part of the stack above its parent's part.
+     */
+    int[] nodeStack = new int[0];
+    /** The distances where the ray enters the nodes of the traversal stack */
+    double[] entryStack = new double[0];
+    /** The number of stack entries taken by the traversals in progress */
+    private int stackSize = 0;
+
+    /**
+     * Scratch buffers of a geometry that intersects the ray with all of its primitives in a first pass over arrays
+     * (see {@link SphereSet}), before offering the intersections in a second pass
+     */
+    double[] scratch1 = new double[0], scratch2 = new double[0], scratch3 = new double[0];
+
+    /**
+     * Resets the record for finding the closest intersection of a ray.
+     *
+     * @param ray         the ray
+     * @param maxDistance the distance an intersection must be closer than
+     * @return the record itself
+     */
+    public HitRecord reset(Ray ray, double maxDistance) {
+        return reset(ray, maxDistance, null);
+    }
+
+    /**
+     * Resets the record for visiting the intersections of a ray within a distance.
+     *
+     * @param ray         the ray
+     * @param maxDistance the maximum distance of the intersections
+     * @param visitor     receives the intersections, returns false in order to stop the search;
+     *                    null for finding the closest intersection
+     * @return the record itself
+     */
+    public HitRecord reset(Ray ray, double maxDistance, Predicate<HitRecord> visitor) {
+        this.ray = ray;
+        this.maxDistance = maxDistance;
+        this.visitor = visitor;
+        this.t = Double.POSITIVE_INFINITY;
+        this.geometry = null;
+        this.primitive = -1;
+        this.u = Double.NaN;
+        this.v = Double.NaN;
+        this.point = null;
+        this.normal = null;
+        this.stackSize = 0;
+        return this;
+    }
+
+    /**
+     * Takes a part of the traversal stack for a hierarchy, growing the stack if needed. The stack arrays may be
+     * replaced by larger ones, so they should be read after the part is taken.
+     *
+     * @param length the number of entries the traversal needs
+     * @return the position of the first entry of the part
+     */
+    int takeStack(int length) {
+        int base = stackSize;
+        stackSize += length;
+        if (nodeStack.length < stackSize) {
+            int capacity = Math.max(stackSize, 2 * nodeStack.length);
+            nodeStack = Arrays.copyOf(nodeStack, capacity);
+            entryStack = Arrays.copyOf(entryStack, capacity);
+        }
+        return base;
+    }
+
+    /**
+     * Releases the part of the traversal stack taken by a hierarchy, along with the parts above it
+     *
+     * @param base the position of the first entry of the part
+     */
+    void releaseStack(int base) {
+        stackSize = base;
+    }
+
+    /**
+     * Grows the scratch buffers to hold a number of values each, if needed. The buffers may be replaced by larger
+     * ones, so they should be read after they are grown.
+     *
+     * @param length the number of values
+     */
+    void growScratch(int length) {
+        if (scratch1.length >= length) return;
+        scratch1 = new double[length];
+        scratch2 = new double[length];
+        scratch3 = new double[length];
+    }
+
+    /**
+     * Offers an intersection of the ray to the record. Called by the geometries for each of their
+     * intersections.
+     *
+     * @param geometry the intersected geometry
+     * @param t        the distance of the intersection along the ray
+     * @return false if the search should stop (the visitor asked to), true otherwise
+     */
+    public boolean offer(Geometry geometry, double t) {
+        return offer(geometry, t, Double.NaN, Double.NaN);
+    }
+
+    /**
+     * Offers an intersection of the ray with a triangle to the record, along with its barycentric coordinates.
+     *
+     * @param geometry the intersected geometry
+     * @param t        the distance of the intersection along the ray
+     * @param u        the barycentric coordinate of the intersection relative to the triangle's second vertex
+     * @param v        the barycentric coordinate of the intersection relative to the triangle's third vertex
+     * @return false if the search should stop (the visitor asked to), true otherwise
+     */
+    public boolean offer(Geometry geometry, double t, double u, double v) {
+        return offer(geometry, -1, t, u, v);
+    }
+
+    /**
+     * Offers an intersection of the ray with a triangle that is a primitive of a geometry (a mesh face) to the
+     * record, along with its barycentric coordinates.
+     *
+     * @param geometry  the intersected geometry
+     * @param primitive the index of the intersected primitive within the geometry
+     * @param t         the distance of the intersection along the ray
+     * @param u         the barycentric coordinate of the intersection relative to the triangle's second vertex
+     * @param v         the barycentric coordinate of the intersection relative to the triangle's third vertex
+     * @return false if the search should stop (the visitor asked to), true otherwise
+     */
+    public boolean offer(Geometry geometry, int primitive, double t, double u, double v) {
+        if (visitor == null) {
+            // Closest hit - keep the intersection only if it is closer than all the previous ones
+            if (t >= maxDistance) return true;
+            maxDistance = t;
+            record(geometry, primitive, t, u, v);
+            return true;
+        }
+
+        // Any hit - visit all the intersections within the distance
+        if (alignZero(t - maxDistance) > 0) return true;
+        record(geometry, primitive, t, u, v);
+        return visitor.test(this);
+    }
+
+    // Stores an intersection and drops the lazily calculated data of the previous one
+    private void record(Geometry geometry, int primitive, double t, double u, double v) {
+        this.t = t;
+        this.geometry = geometry;
+        this.primitive = primitive;
+        this.u = u;
+        this.v = v;
+        this.point = null;
+        this.normal = null;
+    }
+
+    /**
+     * Checks whether an intersection was recorded.
+     *
+     * @return true if an intersection was recorded
+     */
+    public boolean isFound() {
+        return geometry != null;
+    }
+
+    /**
+     * Returns the intersection point, calculating it on the first call.
+     *
+     * @return the intersection point
+     */
+    public Point getPoint() {
+        if (point == null) point = ray.getPoint(t);
+        return point;
+    }
+
+    /**
+     * Returns the normal to the geometry at the intersection point, calculating it on the first call.
+     *
+     * @return the normal
+     */
+    public Vector getNormal() {
+        if (normal == null) normal = geometry.getNormal(this);
+        return normal;
+    }
+
+    /**
+     * Creates a GeoPoint of the recorded intersection.
+     *
+     * @return the GeoPoint, or null if no intersection was recorded
+     */
+    public GeoPoint toGeoPoint() {
+        return geometry == null ? null : new GeoPoint(geometry, getPoint(), t);
+    }
+}
@@ -2,6 +2,7 @@ package geometries;
 
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Predicate;
 
 import primitives.Point;
 import primitives.Ray;
@@ -29,6 +30,11 @@ public abstract class Intersectable {
     public static class GeoPoint {
         public Geometry geometry;
         public Point point;
+        /**
+         * The distance of the point along the ray that found it (the ray parameter t),
+         * NaN if the point was not found by a ray
+         */
+        public double t = Double.NaN;
 
         /**
          * Constructs a GeoPoint with the specified geometry and point.
@@ -41,6 +47,18 @@ public abstract class Intersectable {
             this.point = point;
         }
 
+        /**
+         * Constructs a GeoPoint of an intersection with the specified geometry, point and ray parameter.
+         *
+         * @param geometry the geometry associated with this point
+         * @param point the point in three-dimensional space
+         * @param t the distance of the point along the intersecting ray
+         */
+        public GeoPoint(Geometry geometry, Point point, double t) {
+            this(geometry, point);
+            this.t = t;
+        }
+
         @Override
         public boolean equals(Object object) {
             if (this == object) return true;    // Check if the objects are the same object in memory.
@@ -81,22 +99,148 @@ public abstract class Intersectable {
      * @return a list of GeoPoints where the ray intersects the object within the specified distance, or null if there are no intersections
      */
     public final List<GeoPoint> findGeoIntersections(Ray ray, double maxDistance) {
-        // Checks if the object's bounding box exists and if the ray intersects with it
-        if (box != null && !box.hasIntersection(ray)) {
+        // Checks if the object's bounding box exists and if the ray enters it within the distance
+        if (box != null && box.intersectionDistance(ray, maxDistance) == Double.POSITIVE_INFINITY) {
             return null; // No intersections if the bounding box check fails
         }
         // Calls the helper method with the specified maximum distance to find intersections
-        return findGeoIntersectionsHelper(ray);
+        return findGeoIntersectionsHelper(ray, maxDistance);
     }
 
     /**
      * Helper method to find the intersections between a given ray and the object within a specified distance.
      * This method must be implemented by subclasses.
      *
-     * @param ray the ray to intersect with the object
+     * @param ray         the ray to intersect with the object
+     * @param maxDistance the maximum distance for intersections
      * @return a list of GeoPoints where the ray intersects the object within the specified distance, or null if there are no intersections
      */
-    protected abstract List<GeoPoint> findGeoIntersectionsHelper(Ray ray);
+    protected abstract List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance);
+
+    /**
+     * Intersects the ray of a hit record with the object. Every intersection closer than the record's search
+     * distance is offered to the record: in the closest hit mode the record keeps the closest one, in the any
+     * hit mode it hands them to its visitor. No points or lists are allocated on the way.
+     *
+     * @param hit the hit record, reset for the ray
+     * @return false if the record's visitor stopped the search, true otherwise
+     */
+    public final boolean intersect(HitRecord hit) {
+        // Checks if the object's bounding box exists and if the ray enters it within the search distance
+        if (box != null && box.intersectionDistance(hit.ray, hit.maxDistance) == Double.POSITIVE_INFINITY) {
+            return true; // Nothing to offer
+        }
+        return intersectHelper(hit);
+    }
+
+    /**
+     * Helper method to offer the intersections of the hit record's ray to the record.
+     * The default implementation offers the list of the intersections found by
+     * {@link #findGeoIntersectionsHelper(Ray, double)}. The frequently intersected geometries override it with
+     * an allocation free calculation, and composite objects override it in order to visit their parts front to
+     * back and skip the parts beyond the record's search distance.
+     *
+     * @param hit the hit record
+     * @return false if the record's visitor stopped the search, true otherwise
+     */
+    protected boolean intersectHelper(HitRecord hit) {
+        List<GeoPoint> intersections = findGeoIntersectionsHelper(hit.ray, hit.maxDistance);
+        if (intersections == null) return true;
+
+        Point head = hit.ray.getHead();
+        for (GeoPoint geoPoint : intersections) {
+            double t = Double.isNaN(geoPoint.t) ? head.distance(geoPoint.point) : geoPoint.t;
+            if (!hit.offer(geoPoint.geometry, t)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Intersects all the rays of a packet with the object, in the closest hit mode: the closest intersection of
+     * every ray is recorded by the hit record of its lane (see {@link RayPacket}).
+     *
+     * @param packet the packet, reset for its rays
+     */
+    public final void intersect(RayPacket packet) {
+        intersect(packet, packet.lanes());
+    }
+
+    /**
+     * Intersects some of the rays of a packet with the object - the lanes whose rays miss the object's bounding
+     * box are dropped before the object itself is intersected.
+     *
+     * @param packet the packet
+     * @param lanes  the mask of the lanes to intersect
+     */
+    final void intersect(RayPacket packet, int lanes) {
+        if (box != null) lanes = box.intersect(packet, lanes);
+        if (lanes != 0) intersectHelper(packet, lanes);
+    }
+
+    /**
+     * Helper method to offer the intersections of the rays of a packet's lanes to their hit records.
+     * The default implementation intersects the lanes one by one, by {@link #intersectHelper(HitRecord)}. The
+     * frequently intersected geometries override it with a loop over the lanes, and composite objects override
+     * it in order to traverse their parts once for the whole packet.
+     *
+     * @param packet the packet
+     * @param lanes  the mask of the lanes to intersect
+     */
+    protected void intersectHelper(RayPacket packet, int lanes) {
+        for (; lanes != 0; lanes &= lanes - 1)
+            intersectHelper(packet.hits[Integer.numberOfTrailingZeros(lanes)]);
+    }
+
+    /**
+     * Walks over the intersections between a given ray and the object within a specified distance and hands
+     * each of them to a visitor, as long as the visitor asks to go on. The intersections are visited in no
+     * particular order. This is the any-hit (occlusion) query - e.g. a shadow ray may stop at the first
+     * opaque geometry it meets instead of finding all the geometries between the point and the light.
+     *
+     * @param ray         the ray to intersect with the object
+     * @param maxDistance the maximum distance for intersections
+     * @param visitor     receives the intersections, returns false in order to stop the walk
+     * @return false if the walk was stopped by the visitor, true if all the intersections were visited
+     */
+    public final boolean visitGeoIntersections(Ray ray, double maxDistance, Predicate<GeoPoint> visitor) {
+        return intersect(new HitRecord().reset(ray, maxDistance, hit -> visitor.test(hit.toGeoPoint())));
+    }
+
+    /**
+     * Checks whether a given ray intersects the object within a specified distance. The search stops at the
+     * first intersection found.
+     *
+     * @param ray         the ray to intersect with the object
+     * @param maxDistance the maximum distance for intersections
+     * @return true if there is any intersection within the distance
+     */
+    public final boolean hasGeoIntersections(Ray ray, double maxDistance) {
+        return !intersect(new HitRecord().reset(ray, maxDistance, hit -> false));
+    }
+
+    /**
+     * Finds the closest intersection between a given ray and the object.
+     *
+     * @param ray the ray to intersect with the object
+     * @return the GeoPoint closest to the ray's head, or null if there are no intersections
+     */
+    public final GeoPoint findClosestGeoIntersection(Ray ray) {
+        return findClosestGeoIntersection(ray, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Finds the closest intersection between a given ray and the object, closer than a specified distance.
+     *
+     * @param ray         the ray to intersect with the object
+     * @param maxDistance the distance from the ray's head an intersection must be closer than
+     * @return the GeoPoint closest to the ray's head, or null if there are no intersections closer than the
+     * distance
+     */
+    public final GeoPoint findClosestGeoIntersection(Ray ray, double maxDistance) {
+        HitRecord hit = new HitRecord().reset(ray, maxDistance);
+        intersect(hit);
+        return hit.toGeoPoint();
+    }
 
     /**
      * Finds the intersection points between a given ray and the object implementing this interface.
@@ -0,0 +1,134 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * A flattened bounding volume hierarchy over a set of geometries.
+ * <p>
+ * Unlike the hierarchy built by {@link Geometries#makeBVH()}, which is made of nested {@link Geometries}
+ * objects, the nodes are kept in primitive arrays (see {@link BvhNodes}) and are traversed iteratively with
+ * an explicit stack - no recursion, no iterators and no pointer chasing between node objects.
+ * Geometries without a bounding box (infinite geometries) are kept aside and tested for every ray.
+ */
+public class LinearBVH extends Intersectable {
+
+    /** The geometries referred to by the hierarchy's leaves */
+    private final Intersectable[] geometries;
+    /** Geometries without a bounding box, tested for every ray */
+    private final Intersectable[] unbounded;
+    /** The hierarchy nodes */
+    private final BvhNodes nodes;
+    /** Intersects the ray with a geometry of a leaf */
+    private final BvhNodes.PrimitiveIntersector leafIntersector = this::intersectLeaf;
+    /** Intersects the rays of a packet with a geometry of a leaf */
+    private final BvhNodes.PacketIntersector leafPacketIntersector = this::intersectLeaf;
+
+    /**
+     * Builds the hierarchy over the geometries, splitting the nodes by the surface area heuristic.
+     *
+     * @param geometries the geometries
+     */
+    public LinearBVH(List<Intersectable> geometries) {
+        this(geometries, BvhBuildStrategy.SAH);
+    }
+
+    /**
+     * Builds the hierarchy over the geometries.
+     *
+     * @param geometries the geometries
+     * @param strategy   the strategy that decides how every node is split
+     */
+    public LinearBVH(List<Intersectable> geometries, BvhBuildStrategy strategy) {
+        List<Intersectable> bounded = new ArrayList<>();
+        List<Intersectable> infinite = new ArrayList<>();
+        for (Intersectable g : geometries) {
+            if (g.getBoundingBox() == null) infinite.add(g);
+            else bounded.add(g);
+        }
+        this.geometries = bounded.toArray(new Intersectable[0]);
+        this.unbounded = infinite.toArray(new Intersectable[0]);
+        this.nodes = new BvhNodes(BoundingBox.getBounds(bounded), strategy);
+
+        // The whole hierarchy has a bounding box only if all the geometries have one
+        if (infinite.isEmpty() && nodes.size > 0)
+            box = new BoundingBox(new Point(nodes.bounds[0], nodes.bounds[1], nodes.bounds[2]),
+                    new Point(nodes.bounds[3], nodes.bounds[4], nodes.bounds[5]));
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        List<GeoPoint> intersections = null;
+        for (Intersectable geometry : unbounded)
+            intersections = addAll(intersections, geometry.findGeoIntersections(ray, maxDistance));
+
+        if (nodes.size == 0) return intersections;
+
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double invDx = 1 / direction.getX(), invDy = 1 / direction.getY(), invDz = 1 / direction.getZ();
+
+        int[] stack = nodes.newStack();
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (nodes.intersect(node, ox, oy, oz, invDx, invDy, invDz, maxDistance) == Double.POSITIVE_INFINITY)
+                continue;
+
+            int count = nodes.counts[node];
+            if (count == 0) {
+                // Inner node - visit both children
+                stack[top++] = nodes.offsets[node];
+                stack[top++] = node + 1;
+            } else {
+                // Leaf - test its geometries
+                int first = nodes.offsets[node];
+                for (int i = first; i < first + count; ++i)
+                    intersections = addAll(intersections, geometries[nodes.primitives[i]].findGeoIntersections(ray,
+                            maxDistance));
+            }
+        }
+        return intersections;
+    }
+
+    @Override
+    protected boolean intersectHelper(HitRecord hit) {
+        for (Intersectable geometry : unbounded)
+            if (!geometry.intersect(hit)) return false;
+
+        return nodes.intersect(hit, leafIntersector);
+    }
+
+    @Override
+    protected void intersectHelper(RayPacket packet, int lanes) {
+        for (Intersectable geometry : unbounded)
+            geometry.intersect(packet, lanes);
+
+        nodes.intersect(packet, lanes, leafPacketIntersector);
+    }
+
+    // Intersects the rays of a packet's lanes with a single geometry of a leaf
+    private void intersectLeaf(int geometry, RayPacket packet, int lanes) {
+        geometries[geometry].intersect(packet, lanes);
+    }
+
+    // Intersects the ray with a single geometry of a leaf
+    private boolean intersectLeaf(int geometry, HitRecord hit) {
+        return geometries[geometry].intersect(hit);
+    }
+
+    // Adds found intersections to the result list, creating the list on the first intersections found
+    private static List<GeoPoint> addAll(List<GeoPoint> intersections, List<GeoPoint> found) {
+        if (found == null) return intersections;
+        if (intersections == null) intersections = new LinkedList<>();
+        intersections.addAll(found);
+        return intersections;
+    }
+}
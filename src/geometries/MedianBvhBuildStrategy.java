@@ -0,0 +1,30 @@
+package geometries;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * BVH build strategy that sorts the geometries by the X coordinate of their bounding box centers and cuts
+ * the list in half. Every leaf holds a single geometry.
+ * <p>
+ * This is the split the hierarchy was originally built with, it is kept in order to compare render times.
+ */
+public class MedianBvhBuildStrategy implements BvhBuildStrategy {
+
+    @Override
+    public int partition(double[] bounds, int[] indices, int from, int to) {
+        // A single geometry is a leaf
+        if (to - from <= 1) return -1;
+
+        // Sort the range by the X coordinate of the box centers (the sum of min X and max X keeps the order)
+        Integer[] range = new Integer[to - from];
+        for (int i = from; i < to; ++i)
+            range[i - from] = indices[i];
+        Arrays.sort(range, Comparator.comparingDouble(g -> bounds[g * 6] + bounds[g * 6 + 3]));
+        for (int i = from; i < to; ++i)
+            indices[i] = range[i - from];
+
+        // Cut the range into two halves
+        return from + (to - from) / 2;
+    }
+}
@@ -0,0 +1,84 @@
+package geometries;
+
+/**
+ * The box and triangle tests of the lanes of a {@link RayPacket}.
+ * <p>
+ * There are two kernels: {@link ScalarPacketKernel} tests the lanes one by one, and {@code VectorPacketKernel}
+ * tests several lanes at once by the SIMD instructions of the Vector API (the incubator module
+ * {@code jdk.incubator.vector}). The vector kernel is compiled separately, in the {@code vector} module, so the
+ * rest of the code needs no incubator module to build. It is used if its class is on the class path and the
+ * module is present at run time - i.e. the application is run with {@code --add-modules jdk.incubator.vector} -
+ * and the platform's vectors hold at least two doubles; otherwise the scalar kernel is used. Both kernels find
+ * exactly the same intersections.
+ */
+interface PacketKernel {
+    /** The name of the module of the Vector API */
+    String VECTOR_MODULE = "jdk.incubator.vector";
+    /** The name of the class of the vector kernel */
+    String VECTOR_KERNEL = "geometries.VectorPacketKernel";
+
+    /** The kernel used by the packets */
+    PacketKernel INSTANCE = select();
+
+    /**
+     * Selects the vector kernel if the Vector API is available, and the scalar kernel otherwise
+     *
+     * @return the kernel
+     */
+    private static PacketKernel select() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                // Loaded by name, so the classes of the Vector API are not linked at all without the module
+                return (PacketKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError ignored) {
+                // The vector module isn't on the class path, or the platform doesn't support the vector kernel -
+                // the scalar one is used
+            }
+        }
+        return new ScalarPacketKernel();
+    }
+
+    /**
+     * Tests the rays of a packet's lanes against an axis-aligned box (the slab test), within the distance of the
+     * closest intersection found for every ray so far
+     *
+     * @param packet  the packet
+     * @param lanes   the mask of the lanes to test
+     * @param minX    the minimal X of the box
+     * @param minY    the minimal Y of the box
+     * @param minZ    the minimal Z of the box
+     * @param maxX    the maximal X of the box
+     * @param maxY    the maximal Y of the box
+     * @param maxZ    the maximal Z of the box
+     * @param entries receives the distances where the lanes enter the box (0 if a ray starts inside), null if
+     *                they are not needed
+     * @param slot    the position of the first lane in the entries
+     * @return the mask of the lanes whose rays enter the box
+     */
+    int intersectBox(RayPacket packet, int lanes, double minX, double minY, double minZ,
+                     double maxX, double maxY, double maxZ, double[] entries, int slot);
+
+    /**
+     * Intersects the rays of a packet's lanes with a triangle given by its first vertex and two edges, by the
+     * Moller-Trumbore algorithm, and offers the intersections to the hit records of the lanes. Intersections on
+     * the edges or the vertices of the triangle are not counted.
+     *
+     * @param packet    the packet
+     * @param lanes     the mask of the lanes to intersect
+     * @param geometry  the geometry the triangle belongs to
+     * @param primitive the index of the triangle within the geometry, -1 if the geometry is the triangle
+     * @param p0x       first vertex X
+     * @param p0y       first vertex Y
+     * @param p0z       first vertex Z
+     * @param e1x       X of the edge from the first vertex to the second
+     * @param e1y       Y of the edge from the first vertex to the second
+     * @param e1z       Z of the edge from the first vertex to the second
+     * @param e2x       X of the edge from the first vertex to the third
+     * @param e2y       Y of the edge from the first vertex to the third
+     * @param e2z       Z of the edge from the first vertex to the third
+     */
+    void intersectTriangle(RayPacket packet, int lanes, Geometry geometry, int primitive,
+                           double p0x, double p0y, double p0z,
+                           double e1x, double e1y, double e1z,
+                           double e2x, double e2y, double e2z);
+}
@@ -58,7 +58,7 @@ public class Plane extends Geometry {
     }
 
     @Override
-    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
         // Calculate the denominator of the division for finding the parameter t
         double denominator = this.normal.dotProduct(ray.getDirection());
         // If the denominator is close to zero, the ray is parallel to the plane
@@ -81,12 +81,47 @@ public class Plane extends Geometry {
         if (t < 0)
             return null;
 
+        // If t is beyond the max distance, the intersection point is too far
+        if (alignZero(t - maxDistance) > 0)
+            return null;
+
         // Calculate the intersection point
         Point intersectionPoint = ray.getPoint(t);
 
         // Return a list with a single GeoPoint containing this plane and the
         // intersection point
-        return List.of(new Intersectable.GeoPoint(this, intersectionPoint));
+        return List.of(new Intersectable.GeoPoint(this, intersectionPoint, t));
+    }
+
+    @Override
+    protected boolean intersectHelper(HitRecord hit) {
+        double t = intersectionDistance(hit.ray);
+        return t < 0 || hit.offer(this, t);
+    }
+
+    /**
+     * Calculates the distance along a ray to its intersection with the plane, without allocating any object.
+     *
+     * @param ray the ray
+     * @return the distance to the intersection point, or a negative number if the ray doesn't intersect
+     * the plane (it is parallel to the plane, starts on the plane's reference point or points away from it)
+     */
+    double intersectionDistance(Ray ray) {
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double nx = normal.getX(), ny = normal.getY(), nz = normal.getZ();
+
+        // If the denominator is close to zero, the ray is parallel to the plane
+        double denominator = nx * direction.getX() + ny * direction.getY() + nz * direction.getZ();
+        if (isZero(denominator)) return -1;
+
+        // The ray starts at the plane's reference point
+        double qx = q.getX() - head.getX();
+        double qy = q.getY() - head.getY();
+        double qz = q.getZ() - head.getZ();
+        if (isZero(qx) && isZero(qy) && isZero(qz)) return -1;
+
+        return alignZero((nx * qx + ny * qy + nz * qz) / denominator);
     }
 
 }
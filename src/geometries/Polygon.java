@@ -3,6 +3,7 @@ package geometries;
 import java.util.LinkedList;
 import java.util.List;
 
+import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
 
 import primitives.Point;
@@ -127,44 +128,69 @@ public class Polygon extends Geometry {
    public Vector getNormal(Point point) { return plane.getNormal(); }
 
    @Override
-   protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+   protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
       // First, we check if the ray intersects the plane of the polygon
-      List<Point> intersections = plane.findIntersections(ray);
-
-      if (intersections != null) {
-         Point p0 = ray.getHead();
-         Vector v = ray.getDirection();
-         // We need all the dot products between ray direction , and the normals are just positive or just negative
-         boolean allPositive = true;
-         boolean allNegative = true;
-
-         for (int i = 0; i < vertices.size(); i++) {
-            // v1 , v2 ... vn
-            Vector vector = vertices.get(i).subtract(p0);
-            // v2 , v3 ... v1
-            Vector nextVector = vertices.get((i + 1) % size).subtract(p0);
-            // The normal ni from formula v1 x v2 ... vn x v1
-            Vector currentNormal = vector.crossProduct(nextVector).normalize();
-            double dotProduct = v.dotProduct(currentNormal);
-
-            // If one or more are 0.0 - no intersection
-            if (isZero(dotProduct)) {
-               return null;
-            }
-
-            else if (dotProduct > 0) {
-               allNegative = false;
-            }
-
-            else if (dotProduct < 0) {
-               allPositive = false;
-            }
+      List<GeoPoint> intersections = plane.findGeoIntersections(ray, maxDistance);
+      if (intersections == null || !isInside(ray)) return null;
+      GeoPoint planePoint = intersections.get(0);
+      return List.of(new GeoPoint(this, planePoint.point, planePoint.t));
+   }
+
+   @Override
+   protected boolean intersectHelper(HitRecord hit) {
+      // First, we check if the ray intersects the plane of the polygon within the search distance
+      double t = plane.intersectionDistance(hit.ray);
+      if (t < 0 || alignZero(t - hit.maxDistance) > 0) return true;
+      return !isInside(hit.ray) || hit.offer(this, t);
+   }
+
+   /**
+    * Checks whether a ray that intersects the polygon's plane crosses it inside the polygon
+    * @param  ray the ray
+    * @return     true if the ray crosses the plane inside the polygon
+    */
+   private boolean isInside(Ray ray) {
+      Point p0 = ray.getHead();
+      Vector v = ray.getDirection();
+      double px = p0.getX(), py = p0.getY(), pz = p0.getZ();
+      double vx = v.getX(), vy = v.getY(), vz = v.getZ();
+      // We need all the dot products between ray direction , and the normals are just positive or just negative
+      boolean allPositive = true;
+      boolean allNegative = true;
+
+      // The vectors and the normals are kept in doubles - no objects are allocated for the edges
+      Point first = vertices.get(0);
+      double ax = first.getX() - px, ay = first.getY() - py, az = first.getZ() - pz;
+      for (int i = 0; i < vertices.size(); i++) {
+         // v1 , v2 ... vn is (ax, ay, az), and v2 , v3 ... v1 is (bx, by, bz)
+         Point next = vertices.get((i + 1) % size);
+         double bx = next.getX() - px, by = next.getY() - py, bz = next.getZ() - pz;
+         // The normal ni from formula v1 x v2 ... vn x v1
+         double nx = ay * bz - az * by;
+         double ny = az * bx - ax * bz;
+         double nz = ax * by - ay * bx;
+         // The ray starts on the line of an edge
+         if (isZero(nx) && isZero(ny) && isZero(nz)) return false;
+         double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+         double dotProduct = vx * (nx / length) + vy * (ny / length) + vz * (nz / length);
+         ax = bx;
+         ay = by;
+         az = bz;
+
+         // If one or more are 0.0 - no intersection
+         if (isZero(dotProduct)) {
+            return false;
          }
-         // If all the dot products are positive or all are negative, there is an intersection
-         if (allPositive || allNegative) {
-            return List.of(new GeoPoint(this, intersections.get(0)));
+
+         else if (dotProduct > 0) {
+            allNegative = false;
+         }
+
+         else if (dotProduct < 0) {
+            allPositive = false;
          }
       }
-      return null;
+      // If all the dot products are positive or all are negative, there is an intersection
+      return allPositive || allNegative;
    }
 }
@@ -0,0 +1,168 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Arrays;
+
+/**
+ * A packet of coherent rays - e.g. the rays of neighboring pixels - that are intersected with the geometries
+ * together.
+ * <p>
+ * The rays are kept as a structure of arrays: every coordinate of the heads and of the directions of all the rays
+ * (the lanes of the packet) is kept in an array of its own, so the box and the primitive tests run as tight loops
+ * over the lanes. A hierarchy is traversed once for the whole packet: a node is visited if any of the lanes enters
+ * it, and only those lanes are tested in it. The active lanes are passed around as a bit mask, so a packet holds
+ * at most {@link #MAX_SIZE} rays.
+ * <p>
+ * Every lane has a hit record of its own, in the closest hit mode, which receives the closest intersection of its
+ * ray. Geometries that don't intersect packets by themselves intersect the lanes one by one.
+ * <p>
+ * The box and the triangle tests of the lanes are calculated by a {@link PacketKernel}: by SIMD vectors of several
+ * lanes if the vector module is on the class path and the application is run with
+ * {@code --add-modules jdk.incubator.vector}, and lane by lane otherwise.
+ */
+public final class RayPacket {
+    /** The maximum number of rays in a packet - the number of bits of a lane mask */
+    public static final int MAX_SIZE = 32;
+
+    /** The coordinates of the heads of the rays */
+    final double[] ox, oy, oz;
+    /** The coordinates of the directions of the rays */
+    final double[] dx, dy, dz;
+    /** The inverses of the coordinates of the directions of the rays, for the box tests */
+    final double[] invDx, invDy, invDz;
+    /** The hit records of the rays */
+    final HitRecord[] hits;
+    /** The distances of the closest intersections of the rays, gathered from their hit records by the kernels */
+    final double[] maxDistances;
+    /** The distances and the barycentric coordinates of the intersections found by the kernels */
+    final double[] ts, us, vs;
+    /** The number of rays in the packet */
+    private int size = 0;
+
+    /**
+     * The traversal stack of the hierarchies the packet is intersected with - the nodes to visit. A hierarchy
+     * nested in a leaf of another one (a mesh) takes the part of the stack above its parent's part.
+     */
+    int[] nodeStack = new int[0];
+    /** The masks of the lanes that visit the nodes of the traversal stack */
+    int[] maskStack = new int[0];
+    /** The distances where the lanes enter the nodes of the traversal stack, a slot of all the lanes per node */
+    double[] entryStack = new double[0];
+    /** The number of stack entries taken by the traversals in progress */
+    private int stackSize = 0;
+
+    /**
+     * Constructs an empty packet
+     *
+     * @param capacity the maximum number of rays in the packet, up to {@link #MAX_SIZE}
+     */
+    public RayPacket(int capacity) {
+        if (capacity < 1 || capacity > MAX_SIZE)
+            throw new IllegalArgumentException("The capacity of a packet must be between 1 and " + MAX_SIZE);
+        ox = new double[capacity];
+        oy = new double[capacity];
+        oz = new double[capacity];
+        dx = new double[capacity];
+        dy = new double[capacity];
+        dz = new double[capacity];
+        invDx = new double[capacity];
+        invDy = new double[capacity];
+        invDz = new double[capacity];
+        hits = new HitRecord[capacity];
+        maxDistances = new double[capacity];
+        ts = new double[capacity];
+        us = new double[capacity];
+        vs = new double[capacity];
+        for (int lane = 0; lane < capacity; ++lane) hits[lane] = new HitRecord();
+    }
+
+    /**
+     * Loads rays into the packet, and resets their hit records for finding their closest intersections
+     *
+     * @param rays  the rays
+     * @param from  the index of the first ray to load
+     * @param count the number of rays, up to the capacity of the packet
+     * @return the packet itself
+     */
+    public RayPacket reset(Ray[] rays, int from, int count) {
+        if (count < 0 || count > hits.length)
+            throw new IllegalArgumentException("The number of rays exceeds the capacity of the packet");
+        size = count;
+        stackSize = 0;
+        for (int lane = 0; lane < count; ++lane) {
+            Ray ray = rays[from + lane];
+            Point head = ray.getHead();
+            Vector direction = ray.getDirection();
+            ox[lane] = head.getX();
+            oy[lane] = head.getY();
+            oz[lane] = head.getZ();
+            dx[lane] = direction.getX();
+            dy[lane] = direction.getY();
+            dz[lane] = direction.getZ();
+            invDx[lane] = 1 / dx[lane];
+            invDy[lane] = 1 / dy[lane];
+            invDz[lane] = 1 / dz[lane];
+            hits[lane].reset(ray, Double.POSITIVE_INFINITY);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the number of rays in the packet
+     *
+     * @return the number of rays
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the hit record of a ray of the packet
+     *
+     * @param lane the index of the ray in the packet
+     * @return the hit record, holding the closest intersection of the ray after the packet is intersected
+     */
+    public HitRecord getHit(int lane) {
+        return hits[lane];
+    }
+
+    /**
+     * Takes a part of the traversal stack for a hierarchy, growing the stack if needed. The stack arrays may be
+     * replaced by larger ones, so they should be read after the part is taken.
+     *
+     * @param length the number of entries the traversal needs
+     * @return the position of the first entry of the part
+     */
+    int takeStack(int length) {
+        int base = stackSize;
+        stackSize += length;
+        if (nodeStack.length < stackSize) {
+            int capacity = Math.max(stackSize, 2 * nodeStack.length);
+            nodeStack = Arrays.copyOf(nodeStack, capacity);
+            maskStack = Arrays.copyOf(maskStack, capacity);
+            entryStack = Arrays.copyOf(entryStack, capacity * hits.length);
+        }
+        return base;
+    }
+
+    /**
+     * Releases the part of the traversal stack taken by a hierarchy, along with the parts above it
+     *
+     * @param base the position of the first entry of the part
+     */
+    void releaseStack(int base) {
+        stackSize = base;
+    }
+
+    /**
+     * Returns the mask of all the lanes of the packet
+     *
+     * @return the mask, with a bit for every ray of the packet
+     */
+    int lanes() {
+        return size == MAX_SIZE ? -1 : (1 << size) - 1;
+    }
+}
@@ -0,0 +1,211 @@
+package geometries;
+
+import java.util.Arrays;
+
+/**
+ * BVH build strategy based on the binned surface area heuristic (SAH).
+ * <p>
+ * For every axis the box centers are distributed into a fixed number of equal bins, and every plane
+ * between two bins is a split candidate. The cost of a candidate is estimated by the probability of a ray
+ * hitting each child (the ratio between the surface area of the child box and the parent box) multiplied
+ * by the number of geometries in the child. The cheapest candidate among all three axes is chosen, and the
+ * node becomes a leaf when it is small and splitting does not pay off.
+ */
+public class SahBvhBuildStrategy implements BvhBuildStrategy {
+
+    /**
+     * The relative cost of testing a ray against a bounding box, compared to intersecting a geometry
+     */
+    private static final double TRAVERSAL_COST = 0.125;
+
+    /**
+     * The number of bins per axis
+     */
+    private final int bins;
+
+    /**
+     * The maximal number of geometries that may be left together in one leaf
+     */
+    private final int maxLeafSize;
+
+    /**
+     * Constructs the strategy with 16 bins per axis and up to 4 geometries per leaf
+     */
+    public SahBvhBuildStrategy() {
+        this(16, 4);
+    }
+
+    /**
+     * Constructs the strategy with the given parameters
+     *
+     * @param bins        the number of bins per axis
+     * @param maxLeafSize the maximal number of geometries in one leaf
+     */
+    public SahBvhBuildStrategy(int bins, int maxLeafSize) {
+        if (bins < 2) throw new IllegalArgumentException("At least two bins are required");
+        if (maxLeafSize < 1) throw new IllegalArgumentException("A leaf must be able to hold a geometry");
+        this.bins = bins;
+        this.maxLeafSize = maxLeafSize;
+    }
+
+    @Override
+    public int partition(double[] bounds, int[] indices, int from, int to) {
+        int count = to - from;
+        if (count <= 1) return -1;
+
+        // Calculate the bounds of the box centers (doubled - the sum of min and max) and the node's area
+        double[] centerBounds = emptyBounds();
+        double[] nodeBounds = emptyBounds();
+        for (int i = from; i < to; ++i) {
+            int g = indices[i] * 6;
+            for (int axis = 0; axis < 3; ++axis) {
+                double center = bounds[g + axis] + bounds[g + axis + 3];
+                centerBounds[axis] = Math.min(centerBounds[axis], center);
+                centerBounds[axis + 3] = Math.max(centerBounds[axis + 3], center);
+                nodeBounds[axis] = Math.min(nodeBounds[axis], bounds[g + axis]);
+                nodeBounds[axis + 3] = Math.max(nodeBounds[axis + 3], bounds[g + axis + 3]);
+            }
+        }
+        double nodeArea = surfaceArea(nodeBounds);
+
+        int bestAxis = -1;
+        int bestBin = -1;
+        double bestCost = Double.POSITIVE_INFINITY;
+
+        int[] binCounts = new int[bins];
+        double[] binBounds = new double[bins * 6];
+        // The accumulated area and count of the bins to the right of each split plane
+        double[] rightAreas = new double[bins];
+        int[] rightCounts = new int[bins];
+
+        for (int axis = 0; axis < 3; ++axis) {
+            double min = centerBounds[axis];
+            double extent = centerBounds[axis + 3] - min;
+            // All the centers are on the same plane - nothing to split along this axis
+            if (extent <= 0) continue;
+
+            // Distribute the geometries into the bins
+            Arrays.fill(binCounts, 0);
+            for (int b = 0; b < bins; ++b) resetBounds(binBounds, b * 6);
+            for (int i = from; i < to; ++i) {
+                int g = indices[i] * 6;
+                int b = bin(bounds[g + axis] + bounds[g + axis + 3], min, extent);
+                ++binCounts[b];
+                grow(binBounds, b * 6, bounds, g);
+            }
+
+            // Sweep from the right to accumulate the right side of every split plane
+            double[] accumulated = emptyBounds();
+            int accumulatedCount = 0;
+            for (int b = bins - 1; b > 0; --b) {
+                grow(accumulated, 0, binBounds, b * 6);
+                accumulatedCount += binCounts[b];
+                rightAreas[b] = surfaceArea(accumulated);
+                rightCounts[b] = accumulatedCount;
+            }
+
+            // Sweep from the left and evaluate the cost of the plane between bin b-1 and bin b
+            accumulated = emptyBounds();
+            accumulatedCount = 0;
+            for (int b = 1; b < bins; ++b) {
+                grow(accumulated, 0, binBounds, (b - 1) * 6);
+                accumulatedCount += binCounts[b - 1];
+                if (accumulatedCount == 0 || rightCounts[b] == 0) continue;
+                double cost = accumulatedCount * surfaceArea(accumulated) + rightCounts[b] * rightAreas[b];
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestBin = b;
+                }
+            }
+        }
+
+        // All the centers coincide - the heuristic can't separate the geometries
+        if (bestAxis == -1)
+            return count <= maxLeafSize ? -1 : from + count / 2;
+
+        // Compare the cheapest split with leaving all the geometries in a leaf
+        bestCost = TRAVERSAL_COST + (nodeArea > 0 ? bestCost / nodeArea : Math.min(bestCost, count));
+        if (count <= maxLeafSize && bestCost >= count) return -1;
+
+        // Move the geometries of the bins left to the chosen plane to the beginning of the range
+        double min = centerBounds[bestAxis];
+        double extent = centerBounds[bestAxis + 3] - min;
+        int mid = from;
+        for (int i = from; i < to; ++i) {
+            int g = indices[i] * 6;
+            if (bin(bounds[g + bestAxis] + bounds[g + bestAxis + 3], min, extent) < bestBin) {
+                int temp = indices[i];
+                indices[i] = indices[mid];
+                indices[mid++] = temp;
+            }
+        }
+        return mid;
+    }
+
+    /**
+     * Finds the bin of a box center
+     *
+     * @param center the (doubled) center coordinate
+     * @param min    the minimal (doubled) center coordinate of the node
+     * @param extent the range of the (doubled) center coordinates of the node
+     * @return the bin index
+     */
+    private int bin(double center, double min, double extent) {
+        return Math.min(bins - 1, (int) (bins * (center - min) / extent));
+    }
+
+    /**
+     * Creates an empty bounds array - every point will grow it
+     *
+     * @return the bounds array
+     */
+    private static double[] emptyBounds() {
+        double[] result = new double[6];
+        resetBounds(result, 0);
+        return result;
+    }
+
+    /**
+     * Resets bounds inside an array to be empty
+     *
+     * @param target the array
+     * @param offset the offset of the bounds in the array
+     */
+    private static void resetBounds(double[] target, int offset) {
+        for (int axis = 0; axis < 3; ++axis) {
+            target[offset + axis] = Double.POSITIVE_INFINITY;
+            target[offset + axis + 3] = Double.NEGATIVE_INFINITY;
+        }
+    }
+
+    /**
+     * Grows bounds so they will contain other bounds
+     *
+     * @param target       the array of the grown bounds
+     * @param targetOffset the offset of the grown bounds in the array
+     * @param source       the array of the contained bounds
+     * @param sourceOffset the offset of the contained bounds in the array
+     */
+    private static void grow(double[] target, int targetOffset, double[] source, int sourceOffset) {
+        for (int axis = 0; axis < 3; ++axis) {
+            target[targetOffset + axis] = Math.min(target[targetOffset + axis], source[sourceOffset + axis]);
+            target[targetOffset + axis + 3] =
+                    Math.max(target[targetOffset + axis + 3], source[sourceOffset + axis + 3]);
+        }
+    }
+
+    /**
+     * Calculates the surface area of bounds
+     *
+     * @param box the bounds (six numbers)
+     * @return the surface area, or 0 for empty bounds
+     */
+    private static double surfaceArea(double[] box) {
+        double dx = box[3] - box[0];
+        double dy = box[4] - box[1];
+        double dz = box[5] - box[2];
+        if (dx < 0 || dy < 0 || dz < 0) return 0;
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+}
@@ -0,0 +1,59 @@
+package geometries;
+
+/**
+ * The packet kernel that tests the lanes of a packet one by one. It is used where the Vector API is not available,
+ * and for the lanes that don't fill a whole vector (see {@link PacketKernel}).
+ */
+final class ScalarPacketKernel implements PacketKernel {
+    @Override
+    public int intersectBox(RayPacket packet, int lanes, double minX, double minY, double minZ,
+                            double maxX, double maxY, double maxZ, double[] entries, int slot) {
+        int entered = 0;
+        for (; lanes != 0; lanes &= lanes - 1) {
+            int lane = Integer.numberOfTrailingZeros(lanes);
+            double tNear = 0;
+            double tFar = packet.hits[lane].maxDistance;
+
+            // NaN (a ray parallel to a slab starting on its border) fails both comparisons and is ignored
+            double inv = packet.invDx[lane];
+            double t0 = (minX - packet.ox[lane]) * inv;
+            double t1 = (maxX - packet.ox[lane]) * inv;
+            if (inv < 0) { double temp = t0; t0 = t1; t1 = temp; }
+            if (t0 > tNear) tNear = t0;
+            if (t1 < tFar) tFar = t1;
+
+            inv = packet.invDy[lane];
+            t0 = (minY - packet.oy[lane]) * inv;
+            t1 = (maxY - packet.oy[lane]) * inv;
+            if (inv < 0) { double temp = t0; t0 = t1; t1 = temp; }
+            if (t0 > tNear) tNear = t0;
+            if (t1 < tFar) tFar = t1;
+
+            inv = packet.invDz[lane];
+            t0 = (minZ - packet.oz[lane]) * inv;
+            t1 = (maxZ - packet.oz[lane]) * inv;
+            if (inv < 0) { double temp = t0; t0 = t1; t1 = temp; }
+            if (t0 > tNear) tNear = t0;
+            if (t1 < tFar) tFar = t1;
+
+            if (tNear <= tFar && tNear != Double.POSITIVE_INFINITY) {
+                if (entries != null) entries[slot + lane] = tNear;
+                entered |= 1 << lane;
+            }
+        }
+        return entered;
+    }
+
+    @Override
+    public void intersectTriangle(RayPacket packet, int lanes, Geometry geometry, int primitive,
+                                  double p0x, double p0y, double p0z,
+                                  double e1x, double e1y, double e1z,
+                                  double e2x, double e2y, double e2z) {
+        for (; lanes != 0; lanes &= lanes - 1) {
+            int lane = Integer.numberOfTrailingZeros(lanes);
+            Triangle.intersect(packet.hits[lane], geometry, primitive, packet.ox[lane], packet.oy[lane],
+                    packet.oz[lane], packet.dx[lane], packet.dy[lane], packet.dz[lane],
+                    p0x, p0y, p0z, e1x, e1y, e1z, e2x, e2y, e2z);
+        }
+    }
+}
@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.Objects;
 
 import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
 
 /**
  * Represents a sphere in three-dimensional space.
@@ -40,17 +41,21 @@ public class Sphere extends RadialGeometry {
      *
      */
     public Vector getNormal(Point p) {
-       // By the formula normalize(p - center)
-       return p.subtract(center).normalize();
+       // By the formula normalize(p - center), calculated in doubles
+       double x = p.getX() - center.getX();
+       double y = p.getY() - center.getY();
+       double z = p.getZ() - center.getZ();
+       // A point of the sphere is never its center
+       return Vector.normalized(x, y, z);
     }
 
     @Override
-    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
         Point p0 = ray.getHead();
         Vector v = ray.getDirection();
 
         if (p0.equals(center))
-            return List.of(new GeoPoint(this, ray.getPoint(radius)));
+            return alignZero(radius - maxDistance) > 0 ? null : List.of(new GeoPoint(this, ray.getPoint(radius), radius));
 
         Vector u = center.subtract(p0); // Vector from the ray's starting point to the sphere's center
         double tm = v.dotProduct(u); // The projection of vector u on the direction vector of the ray
@@ -67,29 +72,81 @@ public class Sphere extends RadialGeometry {
         double t1 = alignZero(tm - th); // The distance from the ray's origin to the first intersection point
         double t2 = alignZero(tm + th); // The distance from the ray's origin to the second intersection point
 
+        // Intersection points beyond the max distance are ignored
+        if (alignZero(t1 - maxDistance) > 0) t1 = 0;
+        if (alignZero(t2 - maxDistance) > 0) t2 = 0;
+
         // If both intersection points are in front of the ray origin
         if (t1 > 0 && t2 > 0) {
             Point p1 = ray.getPoint(t1);
             Point p2 = ray.getPoint(t2);
 
-            return List.of(new GeoPoint(this, p1), new GeoPoint(this, p2));
+            return List.of(new GeoPoint(this, p1, t1), new GeoPoint(this, p2, t2));
         }
         // If only one intersection point is in front of the ray origin
         if (t1 > 0) {
             Point p1 = ray.getPoint(t1); // The first intersection point
 
-            return List.of(new GeoPoint(this, p1));
+            return List.of(new GeoPoint(this, p1, t1));
         }
         if (t2 > 0) {
             Point p2 = ray.getPoint(t2); // The second intersection point
 
-            return List.of(new GeoPoint(this, p2));
+            return List.of(new GeoPoint(this, p2, t2));
         }
 
         // If no intersection points are in front of the ray origin
         return null;
     }
 
+    @Override
+    protected boolean intersectHelper(HitRecord hit) {
+        Point p0 = hit.ray.getHead();
+        Vector v = hit.ray.getDirection();
+        return intersect(hit, p0.getX(), p0.getY(), p0.getZ(), v.getX(), v.getY(), v.getZ());
+    }
+
+    @Override
+    protected void intersectHelper(RayPacket packet, int lanes) {
+        for (; lanes != 0; lanes &= lanes - 1) {
+            int lane = Integer.numberOfTrailingZeros(lanes);
+            intersect(packet.hits[lane], packet.ox[lane], packet.oy[lane], packet.oz[lane],
+                    packet.dx[lane], packet.dy[lane], packet.dz[lane]);
+        }
+    }
+
+    /**
+     * Intersects a ray given by its coordinates with the sphere, and offers the intersections to a hit record
+     *
+     * @param hit the hit record of the ray
+     * @param ox  ray head X
+     * @param oy  ray head Y
+     * @param oz  ray head Z
+     * @param dx  ray direction X
+     * @param dy  ray direction Y
+     * @param dz  ray direction Z
+     * @return false if the record's visitor stopped the search, true otherwise
+     */
+    private boolean intersect(HitRecord hit, double ox, double oy, double oz, double dx, double dy, double dz) {
+        // The vector from the ray's starting point to the sphere's center, kept in doubles
+        double ux = center.getX() - ox;
+        double uy = center.getY() - oy;
+        double uz = center.getZ() - oz;
+        if (isZero(ux) && isZero(uy) && isZero(uz)) return hit.offer(this, radius);
+        double uu = ux * ux + uy * uy + uz * uz;
+
+        double tm = dx * ux + dy * uy + dz * uz; // The projection of u on the ray direction
+        double d = alignZero(Math.sqrt(uu - tm * tm)); // The distance from the sphere's center to the ray
+        if (d >= radius) return true;
+
+        double th = Math.sqrt(radius * radius - d * d);
+        double t1 = alignZero(tm - th);
+        double t2 = alignZero(tm + th);
+        // Only the intersections in front of the ray origin are offered
+        if (t1 > 0 && !hit.offer(this, t1)) return false;
+        return t2 <= 0 || hit.offer(this, t2);
+    }
+
     /**
      * Calculate the bounding box of the sphere
      * @param center the center of the sphere
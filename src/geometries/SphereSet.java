@@ -0,0 +1,247 @@
+package geometries;
+
+import primitives.Color;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * A set of spheres intersected as a single geometry.
+ * <p>
+ * Unlike a list of {@link Sphere} objects, the set keeps all of its spheres in parallel primitive arrays - the
+ * coordinates of the centers and the radii - so a ray is intersected with all of them by a tight loop over the
+ * arrays, with no object, point or bounding box per sphere. The loop has no branches and no calls, so the JIT
+ * compiler can vectorize it: it only writes its results to scratch buffers of the hit record, and a second pass
+ * over them offers the intersections of the spheres the ray crosses. The set has one bounding box of all of its
+ * spheres, and it is a single node of a {@link Geometries} or {@link LinearBVH} hierarchy. The loop visits every
+ * sphere of the set, so a set suits a cluster of up to a few dozen spheres (e.g. a snowman); many spheres spread
+ * over a scene are better split into several sets of a hierarchy.
+ * <p>
+ * The spheres share the emission and the material of the set, unless they are given material indices (see
+ * {@link #setMaterials(int[], Color[], Material[])}). An intersection records the index of its sphere as its
+ * primitive.
+ */
+public class SphereSet extends Geometry {
+    /** The coordinates of the centers of the spheres */
+    private final double[] xs, ys, zs;
+    /** The radii of the spheres */
+    private final double[] radii;
+    /** The squared radii of the spheres */
+    private final double[] radiiSquared;
+    /** The index of the emission and the material of every sphere, null if the spheres share the set's */
+    private int[] materialIndices = null;
+    /** The emissions indexed by the material indices */
+    private Color[] emissions;
+    /** The materials indexed by the material indices */
+    private Material[] materials;
+
+    /**
+     * Constructs a set of spheres from their centers and radii. The arrays are copied.
+     *
+     * @param centers the centers of the spheres - three coordinates (x, y, z) per sphere
+     * @param radii   the radii of the spheres, in the order of their centers
+     * @throws IllegalArgumentException if the set has no spheres, the number of centers doesn't match the number
+     *                                  of radii, or a radius is not positive
+     */
+    public SphereSet(double[] centers, double[] radii) {
+        if (radii.length == 0)
+            throw new IllegalArgumentException("A sphere set must have at least one sphere");
+        if (centers.length != radii.length * 3)
+            throw new IllegalArgumentException("The centers buffer must hold three coordinates per radius");
+
+        int count = radii.length;
+        xs = new double[count];
+        ys = new double[count];
+        zs = new double[count];
+        this.radii = radii.clone();
+        radiiSquared = new double[count];
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (int i = 0, c = 0; i < count; ++i, c += 3) {
+            double radius = radii[i];
+            if (alignZero(radius) <= 0) throw new IllegalArgumentException("A radius must be positive");
+            xs[i] = centers[c];
+            ys[i] = centers[c + 1];
+            zs[i] = centers[c + 2];
+            radiiSquared[i] = radius * radius;
+            minX = Math.min(minX, xs[i] - radius);
+            minY = Math.min(minY, ys[i] - radius);
+            minZ = Math.min(minZ, zs[i] - radius);
+            maxX = Math.max(maxX, xs[i] + radius);
+            maxY = Math.max(maxY, ys[i] + radius);
+            maxZ = Math.max(maxZ, zs[i] + radius);
+        }
+        this.box = new BoundingBox(new Point(minX, minY, minZ), new Point(maxX, maxY, maxZ));
+    }
+
+    /**
+     * Gives every sphere an emission and a material of its own, by an index into an array of emissions and an
+     * array of materials. Without material indices all the spheres share the emission and the material of the set.
+     *
+     * @param indices   the material index of every sphere, in the order of the spheres
+     * @param emissions the emissions, indexed by the material indices
+     * @param materials the materials, indexed by the material indices
+     * @return the sphere set itself
+     * @throws IllegalArgumentException if the number of indices doesn't match the number of spheres, the arrays
+     *                                  of emissions and materials are of different lengths, or an index is out of
+     *                                  them
+     */
+    public SphereSet setMaterials(int[] indices, Color[] emissions, Material[] materials) {
+        if (indices.length != radii.length)
+            throw new IllegalArgumentException("Every sphere must have a material index");
+        if (emissions.length != materials.length)
+            throw new IllegalArgumentException("Every material must have an emission");
+        for (int index : indices)
+            if (index < 0 || index >= materials.length)
+                throw new IllegalArgumentException("A material index refers to a material that doesn't exist");
+        this.materialIndices = indices.clone();
+        this.emissions = emissions.clone();
+        this.materials = materials.clone();
+        return this;
+    }
+
+    /**
+     * Returns the number of spheres in the set.
+     *
+     * @return the number of spheres
+     */
+    public int getSphereCount() {
+        return radii.length;
+    }
+
+    @Override
+    public Color getEmission(HitRecord hit) {
+        return materialIndices == null || hit.primitive < 0 ? emission : emissions[materialIndices[hit.primitive]];
+    }
+
+    @Override
+    public Material getMaterial(HitRecord hit) {
+        return materialIndices == null || hit.primitive < 0
+                ? getMaterial() : materials[materialIndices[hit.primitive]];
+    }
+
+    /**
+     * Returns the normal of the sphere the point lays on. The sphere is searched for among all the spheres, prefer
+     * {@link #getNormal(HitRecord)} for the intersections of rays.
+     *
+     * @param point the point on the surface of a sphere
+     * @return the normal of the sphere
+     * @throws IllegalArgumentException if the point is not on any of the spheres
+     */
+    @Override
+    public Vector getNormal(Point point) {
+        for (int i = 0; i < radii.length; ++i) {
+            double x = point.getX() - xs[i], y = point.getY() - ys[i], z = point.getZ() - zs[i];
+            if (isZero(Math.sqrt(x * x + y * y + z * z) - radii[i])) return Vector.normalized(x, y, z);
+        }
+        throw new IllegalArgumentException("The point is not on the sphere set");
+    }
+
+    /**
+     * Returns the normal of the intersected sphere, recorded by the hit record.
+     *
+     * @param hit the hit record of an intersection with this set
+     * @return the normal of the sphere
+     */
+    @Override
+    public Vector getNormal(HitRecord hit) {
+        if (hit.primitive < 0) return getNormal(hit.getPoint());
+        // By the formula normalize(p - center), calculated in doubles
+        Point p = hit.getPoint();
+        int i = hit.primitive;
+        // A point of a sphere is never its center
+        return Vector.normalized(p.getX() - xs[i], p.getY() - ys[i], p.getZ() - zs[i]);
+    }
+
+    // The list API allocates a record and a list per call - the ray tracer intersects hit records, not lists
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        List<GeoPoint> intersections = new LinkedList<>();
+        intersectHelper(new HitRecord().reset(ray, maxDistance, hit -> intersections.add(hit.toGeoPoint())));
+        return intersections.isEmpty() ? null : intersections;
+    }
+
+    @Override
+    protected boolean intersectHelper(HitRecord hit) {
+        Point p0 = hit.ray.getHead();
+        Vector v = hit.ray.getDirection();
+        return intersect(hit, p0.getX(), p0.getY(), p0.getZ(), v.getX(), v.getY(), v.getZ());
+    }
+
+    @Override
+    public boolean intersect(HitRecord hit, int primitive) {
+        if (primitive < 0) return intersect(hit);
+        Point p0 = hit.ray.getHead();
+        Vector v = hit.ray.getDirection();
+        return intersectSphere(primitive, hit, p0.getX(), p0.getY(), p0.getZ(), v.getX(), v.getY(), v.getZ());
+    }
+
+    @Override
+    protected void intersectHelper(RayPacket packet, int lanes) {
+        for (; lanes != 0; lanes &= lanes - 1) {
+            int lane = Integer.numberOfTrailingZeros(lanes);
+            intersect(packet.hits[lane], packet.ox[lane], packet.oy[lane], packet.oz[lane],
+                    packet.dx[lane], packet.dy[lane], packet.dz[lane]);
+        }
+    }
+
+    /**
+     * Intersects a ray given by its coordinates with all the spheres, and offers the intersections to a hit record
+     *
+     * @param hit the hit record of the ray
+     * @param ox  ray head X
+     * @param oy  ray head Y
+     * @param oz  ray head Z
+     * @param dx  ray direction X
+     * @param dy  ray direction Y
+     * @param dz  ray direction Z
+     * @return false if the record's visitor stopped the search, true otherwise
+     */
+    private boolean intersect(HitRecord hit, double ox, double oy, double oz, double dx, double dy, double dz) {
+        int count = radii.length;
+        hit.growScratch(count);
+        double[] tms = hit.scratch1, dds = hit.scratch2, ths = hit.scratch3;
+
+        // The first pass, over all the spheres: the projection of the center on the ray, the squared distance of
+        // the center from the ray, and the half of the chord (NaN if the ray misses the sphere)
+        for (int i = 0; i < count; ++i) {
+            double ux = xs[i] - ox, uy = ys[i] - oy, uz = zs[i] - oz;
+            double tm = dx * ux + dy * uy + dz * uz;
+            double dd = ux * ux + uy * uy + uz * uz - tm * tm;
+            tms[i] = tm;
+            dds[i] = dd;
+            ths[i] = Math.sqrt(radiiSquared[i] - dd);
+        }
+
+        // The second pass: the spheres the ray crosses offer their intersections
+        for (int i = 0; i < count; ++i)
+            if (dds[i] < radiiSquared[i] && !offer(hit, i, tms[i], ths[i])) return false;
+        return true;
+    }
+
+    // Intersects a ray given by its coordinates with a single sphere
+    private boolean intersectSphere(int i, HitRecord hit, double ox, double oy, double oz,
+                                    double dx, double dy, double dz) {
+        // The vector from the ray's head to the center, its projection on the ray, and the squared distance of
+        // the center from the ray
+        double ux = xs[i] - ox, uy = ys[i] - oy, uz = zs[i] - oz;
+        double tm = dx * ux + dy * uy + dz * uz;
+        double dd = ux * ux + uy * uy + uz * uz - tm * tm;
+        return dd >= radiiSquared[i] || offer(hit, i, tm, Math.sqrt(radiiSquared[i] - dd));
+    }
+
+    // Offers the intersections of a ray crossing a sphere, at tm - th and tm + th, that are in front of its head
+    private boolean offer(HitRecord hit, int sphere, double tm, double th) {
+        double t1 = alignZero(tm - th);
+        double t2 = alignZero(tm + th);
+        if (t1 > 0 && !hit.offer(this, sphere, t1, Double.NaN, Double.NaN)) return false;
+        return t2 <= 0 || hit.offer(this, sphere, t2, Double.NaN, Double.NaN);
+    }
+}
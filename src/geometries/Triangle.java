@@ -5,13 +5,26 @@ import primitives.Vector;
 
 import java.util.List;
 
-import static primitives.Util.isZero;
+import static primitives.Util.alignZero;
 
 /**
  * A class representing a triangle in three-dimensional space.
  * Extends the Polygon class.
  */
 public class Triangle extends Polygon {
+    /**
+     * The squared sine below which a ray is considered parallel to a triangle - the determinant of the
+     * intersection relative to the product of the lengths of the edges, squared
+     */
+    static final double PARALLEL_EPSILON = 1e-20;
+
+    /** The coordinates of the first vertex of the triangle */
+    private final double p0x, p0y, p0z;
+    /** The edge from the first vertex to the second one */
+    private final double e1x, e1y, e1z;
+    /** The edge from the first vertex to the third one */
+    private final double e2x, e2y, e2z;
+
     /**
      * Constructs a triangle from three points.
      *
@@ -21,41 +34,135 @@ public class Triangle extends Polygon {
      */
     public Triangle(Point p1, Point p2, Point p3) {
         super(p1, p2, p3);
+        // The edges are calculated once, for the intersection calculation
+        p0x = p1.getX();
+        p0y = p1.getY();
+        p0z = p1.getZ();
+        e1x = p2.getX() - p0x;
+        e1y = p2.getY() - p0y;
+        e1z = p2.getZ() - p0z;
+        e2x = p3.getX() - p0x;
+        e2y = p3.getY() - p0y;
+        e2z = p3.getZ() - p0z;
     }
 
 
     /**
      * The method calculates the intersections of a given ray with the triangle.
      * @param ray the ray to intersect with the triangle
+     * @param maxDistance the maximum distance for intersections
      * @return a list of intersection points, or null if there are no intersections
      */
     @Override
-    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
-        List<Point> intersections = plane.findIntersections(ray);
-
-        // If the ray intersects the plane of the triangle
-        if (intersections != null) {
-
-            Vector v1 = vertices.get(0).subtract(ray.getHead());
-            Vector v2 = vertices.get(1).subtract(ray.getHead());
-            Vector v3 = vertices.get(2).subtract(ray.getHead());
-
-            Vector n1 = v1.crossProduct(v2).normalize();
-            Vector n2 = v2.crossProduct(v3).normalize();
-            Vector n3 = v3.crossProduct(v1).normalize();
-
-            double vn1 = ray.getDirection().dotProduct(n1);
-            double vn2 = ray.getDirection().dotProduct(n2);
-            double vn3 = ray.getDirection().dotProduct(n3);
-
-            // If one or more are 0.0 - no intersection
-            if (isZero(vn1) || isZero(vn2) || isZero(vn3)) {
-                return null;
-            }
-            if (vn1 > 0 && vn2 > 0 && vn3 > 0 || vn1 < 0 && vn2 < 0 && vn3 < 0) {
-                return List.of(new GeoPoint(this, intersections.get(0)));
-            }
-        }
-        return null;
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        HitRecord hit = new HitRecord().reset(ray, maxDistance, h -> true);
+        intersectHelper(hit);
+        return hit.isFound() ? List.of(hit.toGeoPoint()) : null;
+    }
+
+    /**
+     * Intersects the ray with the triangle by the Moller-Trumbore algorithm, using the edges calculated by the
+     * constructor and without allocating anything.
+     * @param hit the hit record
+     * @return false if the record's visitor stopped the search, true otherwise
+     */
+    @Override
+    protected boolean intersectHelper(HitRecord hit) {
+        return intersect(hit, this, -1, p0x, p0y, p0z, e1x, e1y, e1z, e2x, e2y, e2z);
+    }
+
+    @Override
+    protected void intersectHelper(RayPacket packet, int lanes) {
+        intersect(packet, lanes, this, -1, p0x, p0y, p0z, e1x, e1y, e1z, e2x, e2y, e2z);
+    }
+
+    /**
+     * Intersects the rays of a packet's lanes with a triangle given by its first vertex and two edges, like
+     * {@link #intersect(HitRecord, Geometry, int, double, double, double, double, double, double, double, double,
+     * double)} does for a single ray.
+     * @param packet the packet
+     * @param lanes the mask of the lanes to intersect
+     * @param geometry the geometry the triangle belongs to
+     * @param primitive the index of the triangle within the geometry, -1 if the geometry is the triangle
+     * @param p0x first vertex X
+     * @param p0y first vertex Y
+     * @param p0z first vertex Z
+     * @param e1x X of the edge from the first vertex to the second
+     * @param e1y Y of the edge from the first vertex to the second
+     * @param e1z Z of the edge from the first vertex to the second
+     * @param e2x X of the edge from the first vertex to the third
+     * @param e2y Y of the edge from the first vertex to the third
+     * @param e2z Z of the edge from the first vertex to the third
+     */
+    static void intersect(RayPacket packet, int lanes, Geometry geometry, int primitive,
+                          double p0x, double p0y, double p0z,
+                          double e1x, double e1y, double e1z,
+                          double e2x, double e2y, double e2z) {
+        PacketKernel.INSTANCE.intersectTriangle(packet, lanes, geometry, primitive,
+                p0x, p0y, p0z, e1x, e1y, e1z, e2x, e2y, e2z);
+    }
+
+    /**
+     * Intersects the hit record's ray with a triangle given by its first vertex and two edges, by the
+     * Moller-Trumbore algorithm, and offers the intersection to the record with its barycentric coordinates.
+     * Intersections on the edges or the vertices of the triangle are not counted.
+     * @param hit the hit record
+     * @param geometry the geometry the triangle belongs to
+     * @param primitive the index of the triangle within the geometry, -1 if the geometry is the triangle
+     * @param p0x first vertex X
+     * @param p0y first vertex Y
+     * @param p0z first vertex Z
+     * @param e1x X of the edge from the first vertex to the second
+     * @param e1y Y of the edge from the first vertex to the second
+     * @param e1z Z of the edge from the first vertex to the second
+     * @param e2x X of the edge from the first vertex to the third
+     * @param e2y Y of the edge from the first vertex to the third
+     * @param e2z Z of the edge from the first vertex to the third
+     * @return false if the record's visitor stopped the search, true otherwise
+     */
+    static boolean intersect(HitRecord hit, Geometry geometry, int primitive,
+                             double p0x, double p0y, double p0z,
+                             double e1x, double e1y, double e1z,
+                             double e2x, double e2y, double e2z) {
+        Point head = hit.ray.getHead();
+        Vector dir = hit.ray.getDirection();
+        return intersect(hit, geometry, primitive, head.getX(), head.getY(), head.getZ(),
+                dir.getX(), dir.getY(), dir.getZ(), p0x, p0y, p0z, e1x, e1y, e1z, e2x, e2y, e2z);
+    }
+
+    // The Moller-Trumbore kernel, for a ray given by its head (ox, oy, oz) and direction (dx, dy, dz)
+    static boolean intersect(HitRecord hit, Geometry geometry, int primitive,
+                             double ox, double oy, double oz, double dx, double dy, double dz,
+                             double p0x, double p0y, double p0z,
+                             double e1x, double e1y, double e1z,
+                             double e2x, double e2y, double e2z) {
+
+        // p = dir x e2, the determinant is e1 * p - zero if the ray is parallel to the triangle. The determinant
+        // grows with the product of the edges' lengths, so it is compared relative to it, and a small triangle
+        // of a fine mesh is not mistaken for a parallel one
+        double px = dy * e2z - dz * e2y;
+        double py = dz * e2x - dx * e2z;
+        double pz = dx * e2y - dy * e2x;
+        double det = e1x * px + e1y * py + e1z * pz;
+        double edges = (e1x * e1x + e1y * e1y + e1z * e1z) * (e2x * e2x + e2y * e2y + e2z * e2z);
+        if (det * det <= PARALLEL_EPSILON * edges) return true;
+        double invDet = 1 / det;
+
+        // s = head - p0, u = (s * p) / det
+        double sx = ox - p0x, sy = oy - p0y, sz = oz - p0z;
+        double u = alignZero((sx * px + sy * py + sz * pz) * invDet);
+        if (u <= 0 || u >= 1) return true;
+
+        // q = s x e1, v = (dir * q) / det
+        double qx = sy * e1z - sz * e1y;
+        double qy = sz * e1x - sx * e1z;
+        double qz = sx * e1y - sy * e1x;
+        double v = alignZero((dx * qx + dy * qy + dz * qz) * invDet);
+        if (v <= 0 || alignZero(u + v - 1) >= 0) return true;
+
+        // t = (e2 * q) / det - the intersection must be in front of the ray's head and within the search distance
+        double t = alignZero((e2x * qx + e2y * qy + e2z * qz) * invDet);
+        if (t <= 0 || alignZero(t - hit.maxDistance) > 0) return true;
+        return hit.offer(geometry, primitive, t, u, v);
     }
 }
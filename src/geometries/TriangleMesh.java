@@ -0,0 +1,216 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * A mesh of triangles that share one vertex buffer.
+ * <p>
+ * Unlike a list of {@link Triangle} objects, the mesh keeps all of its data in a few primitive arrays:
+ * <ul>
+ * <li>vertices - three numbers per vertex: x, y, z</li>
+ * <li>faces - three vertex indices per triangle, ordered so that the normal of the face is
+ * (v1 - v0) x (v2 - v0), like the normal of a {@link Triangle}</li>
+ * </ul>
+ * The faces are organized in an internal bounding volume hierarchy (see {@link BvhNodes}), and all of them
+ * share the mesh's emission and material.
+ */
+public class TriangleMesh extends Geometry {
+    /** The vertex buffer, three coordinates per vertex */
+    private final double[] vertices;
+    /** The index buffer, three vertex indices per face */
+    private final int[] faces;
+    /** The hierarchy of the faces */
+    private final BvhNodes nodes;
+    /** Intersects the ray with a face of a leaf */
+    private final BvhNodes.PrimitiveIntersector faceIntersector = this::intersectFace;
+    /** Intersects the rays of a packet with a face of a leaf */
+    private final BvhNodes.PacketIntersector facePacketIntersector = this::intersectFace;
+
+    /**
+     * Constructs a mesh from its vertex and index buffers, splitting the nodes of its hierarchy by the surface
+     * area heuristic. The buffers are kept by the mesh as they are, not copied.
+     *
+     * @param vertices the vertex buffer - three coordinates (x, y, z) per vertex
+     * @param faces    the index buffer - three vertex indices per face
+     * @throws IllegalArgumentException if the buffers' lengths are not multiples of three, the mesh has no faces
+     *                                  or a face refers to a vertex that doesn't exist
+     */
+    public TriangleMesh(double[] vertices, int[] faces) {
+        this(vertices, faces, BvhBuildStrategy.SAH);
+    }
+
+    /**
+     * Constructs a mesh from its vertex and index buffers. The buffers are kept by the mesh as they are, not
+     * copied.
+     *
+     * @param vertices the vertex buffer - three coordinates (x, y, z) per vertex
+     * @param faces    the index buffer - three vertex indices per face
+     * @param strategy the strategy that decides how every node of the faces' hierarchy is split
+     * @throws IllegalArgumentException if the buffers' lengths are not multiples of three, the mesh has no faces
+     *                                  or a face refers to a vertex that doesn't exist
+     */
+    public TriangleMesh(double[] vertices, int[] faces, BvhBuildStrategy strategy) {
+        if (vertices.length % 3 != 0)
+            throw new IllegalArgumentException("The vertex buffer must hold three coordinates per vertex");
+        if (faces.length % 3 != 0)
+            throw new IllegalArgumentException("The index buffer must hold three vertices per face");
+        if (faces.length == 0)
+            throw new IllegalArgumentException("A mesh must have at least one face");
+        int vertexCount = vertices.length / 3;
+        for (int index : faces)
+            if (index < 0 || index >= vertexCount)
+                throw new IllegalArgumentException("A face refers to a vertex that doesn't exist");
+
+        this.vertices = vertices;
+        this.faces = faces;
+        this.nodes = new BvhNodes(getBounds(vertices, faces), strategy);
+        // The bounding box of the mesh is the box of the hierarchy's root
+        this.box = new BoundingBox(new Point(nodes.bounds[0], nodes.bounds[1], nodes.bounds[2]),
+                new Point(nodes.bounds[3], nodes.bounds[4], nodes.bounds[5]));
+    }
+
+    /**
+     * Calculates the bounds of the faces, six numbers per face: minX, minY, minZ, maxX, maxY, maxZ.
+     *
+     * @param vertices the vertex buffer
+     * @param faces    the index buffer
+     * @return the bounds array
+     */
+    private static double[] getBounds(double[] vertices, int[] faces) {
+        double[] bounds = new double[faces.length * 2];
+        for (int f = 0, b = 0; f < faces.length; f += 3, b += 6) {
+            for (int axis = 0; axis < 3; ++axis) {
+                double c0 = vertices[faces[f] * 3 + axis];
+                double c1 = vertices[faces[f + 1] * 3 + axis];
+                double c2 = vertices[faces[f + 2] * 3 + axis];
+                bounds[b + axis] = Math.min(c0, Math.min(c1, c2));
+                bounds[b + axis + 3] = Math.max(c0, Math.max(c1, c2));
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * Returns the number of faces in the mesh.
+     *
+     * @return the number of faces
+     */
+    public int getFaceCount() {
+        return faces.length / 3;
+    }
+
+    /**
+     * Returns the normal of the face the point lays on. The face is searched for among all the faces, prefer
+     * {@link #getNormal(HitRecord)} for the intersections of rays.
+     *
+     * @param point the point on the mesh's surface
+     * @return the normal of the face
+     * @throws IllegalArgumentException if the point is not on the mesh
+     */
+    @Override
+    public Vector getNormal(Point point) {
+        for (int face = 0; face < getFaceCount(); ++face)
+            if (contains(face, point)) return getFaceNormal(face);
+        throw new IllegalArgumentException("The point is not on the mesh");
+    }
+
+    /**
+     * Returns the normal of the intersected face, recorded by the hit record.
+     *
+     * @param hit the hit record of an intersection with this mesh
+     * @return the normal of the face
+     */
+    @Override
+    public Vector getNormal(HitRecord hit) {
+        return hit.primitive < 0 ? getNormal(hit.getPoint()) : getFaceNormal(hit.primitive);
+    }
+
+    // The normal of a face: normalize((v1 - v0) x (v2 - v0))
+    private Vector getFaceNormal(int face) {
+        int f = face * 3;
+        int v0 = faces[f] * 3, v1 = faces[f + 1] * 3, v2 = faces[f + 2] * 3;
+        double e1x = vertices[v1] - vertices[v0], e1y = vertices[v1 + 1] - vertices[v0 + 1],
+                e1z = vertices[v1 + 2] - vertices[v0 + 2];
+        double e2x = vertices[v2] - vertices[v0], e2y = vertices[v2 + 1] - vertices[v0 + 1],
+                e2z = vertices[v2 + 2] - vertices[v0 + 2];
+        return new Vector(e1y * e2z - e1z * e2y, e1z * e2x - e1x * e2z, e1x * e2y - e1y * e2x).normalize();
+    }
+
+    // Whether the point lays on a face (including its edges), by its barycentric coordinates
+    private boolean contains(int face, Point point) {
+        int f = face * 3;
+        int v0 = faces[f] * 3, v1 = faces[f + 1] * 3, v2 = faces[f + 2] * 3;
+        double e1x = vertices[v1] - vertices[v0], e1y = vertices[v1 + 1] - vertices[v0 + 1],
+                e1z = vertices[v1 + 2] - vertices[v0 + 2];
+        double e2x = vertices[v2] - vertices[v0], e2y = vertices[v2 + 1] - vertices[v0 + 1],
+                e2z = vertices[v2 + 2] - vertices[v0 + 2];
+        double px = point.getX() - vertices[v0], py = point.getY() - vertices[v0 + 1],
+                pz = point.getZ() - vertices[v0 + 2];
+
+        // The point must be on the plane of the face
+        double nx = e1y * e2z - e1z * e2y, ny = e1z * e2x - e1x * e2z, nz = e1x * e2y - e1y * e2x;
+        double nn = nx * nx + ny * ny + nz * nz;
+        if (isZero(nn) || !isZero((px * nx + py * ny + pz * nz) / Math.sqrt(nn))) return false;
+
+        // Solve p = u * e1 + v * e2
+        double d11 = e1x * e1x + e1y * e1y + e1z * e1z;
+        double d12 = e1x * e2x + e1y * e2y + e1z * e2z;
+        double d22 = e2x * e2x + e2y * e2y + e2z * e2z;
+        double dp1 = px * e1x + py * e1y + pz * e1z;
+        double dp2 = px * e2x + py * e2y + pz * e2z;
+        double denominator = d11 * d22 - d12 * d12;
+        double u = alignZero((d22 * dp1 - d12 * dp2) / denominator);
+        double v = alignZero((d11 * dp2 - d12 * dp1) / denominator);
+        return u >= 0 && v >= 0 && alignZero(u + v - 1) <= 0;
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        List<GeoPoint> intersections = new LinkedList<>();
+        intersectHelper(new HitRecord().reset(ray, maxDistance, hit -> intersections.add(hit.toGeoPoint())));
+        return intersections.isEmpty() ? null : intersections;
+    }
+
+    @Override
+    protected boolean intersectHelper(HitRecord hit) {
+        return nodes.intersect(hit, faceIntersector);
+    }
+
+    @Override
+    public boolean intersect(HitRecord hit, int primitive) {
+        return primitive < 0 ? intersect(hit) : intersectFace(primitive, hit);
+    }
+
+    @Override
+    protected void intersectHelper(RayPacket packet, int lanes) {
+        nodes.intersect(packet, lanes, facePacketIntersector);
+    }
+
+    // Intersects the rays of a packet's lanes with a single face, by the same kernel as a triangle's
+    private void intersectFace(int face, RayPacket packet, int lanes) {
+        int f = face * 3;
+        int v0 = faces[f] * 3, v1 = faces[f + 1] * 3, v2 = faces[f + 2] * 3;
+        double p0x = vertices[v0], p0y = vertices[v0 + 1], p0z = vertices[v0 + 2];
+        Triangle.intersect(packet, lanes, this, face, p0x, p0y, p0z,
+                vertices[v1] - p0x, vertices[v1 + 1] - p0y, vertices[v1 + 2] - p0z,
+                vertices[v2] - p0x, vertices[v2 + 1] - p0y, vertices[v2 + 2] - p0z);
+    }
+
+    // Intersects the ray with a single face, by the same kernel as a triangle's
+    private boolean intersectFace(int face, HitRecord hit) {
+        int f = face * 3;
+        int v0 = faces[f] * 3, v1 = faces[f + 1] * 3, v2 = faces[f + 2] * 3;
+        double p0x = vertices[v0], p0y = vertices[v0 + 1], p0z = vertices[v0 + 2];
+        return Triangle.intersect(hit, this, face, p0x, p0y, p0z,
+                vertices[v1] - p0x, vertices[v1 + 1] - p0y, vertices[v1 + 2] - p0z,
+                vertices[v2] - p0x, vertices[v2 + 1] - p0y, vertices[v2 + 2] - p0z);
+    }
+}
@@ -0,0 +1,92 @@
+package lighting;
+
+import primitives.Color;
+import primitives.Point;
+import primitives.Sampler;
+
+/**
+ * An abstract class representing a light source with an area, which casts soft shadows. It lights like a point
+ * light at its center, but a point in the scene may see only a part of it - so the shadows are sampled at points
+ * spread over its area.
+ * <p>
+ * The area is parametrized by the unit square: every point (x, y) of [0, 1] x [0, 1] is mapped to a point of the
+ * light, and the edges of the square are mapped to the boundary of the light.
+ */
+public abstract class AreaLight extends PointLight {
+    /**
+     * The sampler of the points of the light at which the shadows are sampled
+     */
+    private Sampler sampler = Sampler.stratified();
+    /**
+     * The number of samples along each axis of the light, 1 for hard shadows of its center
+     */
+    private int density = 4;
+
+    /**
+     * Constructs an area light with the specified intensity and center.
+     *
+     * @param intensity The color intensity of the light.
+     * @param position  The center of the light in 3D space.
+     */
+    protected AreaLight(Color intensity, Point position) {
+        super(intensity, position);
+    }
+
+    @Override
+    public AreaLight setKc(double kC) {
+        return (AreaLight) super.setKc(kC);
+    }
+
+    @Override
+    public AreaLight setKl(double kL) {
+        return (AreaLight) super.setKl(kL);
+    }
+
+    @Override
+    public AreaLight setKq(double kQ) {
+        return (AreaLight) super.setKq(kQ);
+    }
+
+    /**
+     * Sets the sampler of the shadows and the number of samples. The shadows of a point that sees only a part of the
+     * light are sampled by density x density shadow rays.
+     *
+     * @param sampler The sampler of the points of the light.
+     * @param density The number of samples along each axis of the light, 1 for hard shadows of its center.
+     * @return This AreaLight object, allowing method chaining.
+     */
+    public AreaLight setSampler(Sampler sampler, int density) {
+        if (sampler == null) throw new IllegalArgumentException("The sampler cannot be null");
+        if (density < 1) throw new IllegalArgumentException("The number of samples must be positive");
+        this.sampler = sampler;
+        this.density = density;
+        return this;
+    }
+
+    /**
+     * Returns the sampler of the points of the light.
+     *
+     * @return The sampler of the points of the light.
+     */
+    public Sampler getSampler() {
+        return sampler;
+    }
+
+    /**
+     * Returns the number of samples along each axis of the light.
+     *
+     * @return The number of samples along each axis of the light.
+     */
+    public int getDensity() {
+        return density;
+    }
+
+    /**
+     * Maps a point of the unit square to a point of the light.
+     *
+     * @param x The x coordinate of the point of the unit square, between 0 and 1.
+     * @param y The y coordinate of the point of the unit square, between 0 and 1.
+     * @return The point of the light, on its boundary if the point is on the edge of the square.
+     */
+    public abstract Point getSample(double x, double y);
+}
@@ -0,0 +1,65 @@
+package lighting;
+
+import primitives.Color;
+import primitives.Point;
+import primitives.Vector;
+
+/**
+ * A class representing a disk-shaped area light, e.g. a lamp shade or the sun seen from the scene.
+ */
+public class DiskLight extends AreaLight {
+    /**
+     * The radius of the disk.
+     */
+    private final double radius;
+    /**
+     * A unit vector in the plane of the disk.
+     */
+    private final Vector u;
+    /**
+     * A unit vector in the plane of the disk, orthogonal to {@link #u}.
+     */
+    private final Vector v;
+
+    /**
+     * Constructs a disk light with the specified intensity, center, normal and radius.
+     *
+     * @param intensity The color intensity of the light.
+     * @param position  The center of the disk in 3D space.
+     * @param normal    The normal vector of the plane of the disk.
+     * @param radius    The radius of the disk.
+     */
+    public DiskLight(Color intensity, Point position, Vector normal, double radius) {
+        super(intensity, position);
+        if (radius <= 0) throw new IllegalArgumentException("The radius must be positive");
+        this.radius = radius;
+        this.u = normal.makePerpendicularVector().normalize();
+        this.v = normal.crossProduct(u).normalize();
+    }
+
+    /**
+     * Maps the unit square to the disk by the concentric mapping of Shirley and Chiu: every square around the
+     * center of the unit square is mapped to a circle, so evenly spread points of the square stay evenly spread
+     * over the disk.
+     */
+    @Override
+    public Point getSample(double x, double y) {
+        double a = 2 * x - 1;
+        double b = 2 * y - 1;
+        if (a == 0 && b == 0) return position;
+
+        double r, phi;
+        if (Math.abs(a) > Math.abs(b)) {
+            r = a;
+            phi = Math.PI / 4 * (b / a);
+        } else {
+            r = b;
+            phi = Math.PI / 2 - Math.PI / 4 * (a / b);
+        }
+        double du = radius * r * Math.cos(phi);
+        double dv = radius * r * Math.sin(phi);
+        return new Point(position.getX() + u.getX() * du + v.getX() * dv,
+                position.getY() + u.getY() * du + v.getY() * dv,
+                position.getZ() + u.getZ() * du + v.getZ() * dv);
+    }
+}
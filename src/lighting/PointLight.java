@@ -86,8 +86,11 @@ public class PointLight  extends Light implements LightSource{
         if (p.equals(position))
             return null;
 
-        // Otherwise, return the normalized vector from the light source to the point
-        return p.subtract(position).normalize();
+        // Otherwise, return the normalized vector from the light source to the point, calculated in doubles
+        double x = p.getX() - position.getX();
+        double y = p.getY() - position.getY();
+        double z = p.getZ() - position.getZ();
+        return Vector.normalized(x, y, z);
     }
 
     @Override
@@ -0,0 +1,41 @@
+package lighting;
+
+import primitives.Color;
+import primitives.Point;
+import primitives.Vector;
+
+/**
+ * A class representing a rectangular area light, e.g. a window or a ceiling panel.
+ */
+public class RectangleLight extends AreaLight {
+    /**
+     * The first edge of the rectangle.
+     */
+    private final Vector width;
+    /**
+     * The second edge of the rectangle.
+     */
+    private final Vector height;
+
+    /**
+     * Constructs a rectangular light with the specified intensity, center and edges.
+     *
+     * @param intensity The color intensity of the light.
+     * @param position  The center of the rectangle in 3D space.
+     * @param width     The first edge of the rectangle, its length is the width of the rectangle.
+     * @param height    The second edge of the rectangle, orthogonal to the first, its length is the height of the
+     *                  rectangle.
+     */
+    public RectangleLight(Color intensity, Point position, Vector width, Vector height) {
+        super(intensity, position);
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public Point getSample(double x, double y) {
+        return new Point(position.getX() + width.getX() * (x - 0.5) + height.getX() * (y - 0.5),
+                position.getY() + width.getY() * (x - 0.5) + height.getY() * (y - 0.5),
+                position.getZ() + width.getZ() * (x - 0.5) + height.getZ() * (y - 0.5));
+    }
+}
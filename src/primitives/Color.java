@@ -63,6 +63,24 @@ public class Color {
       return new java.awt.Color(ir > 255 ? 255 : ir, ig > 255 ? 255 : ig, ib > 255 ? 255 : ib);
    }
 
+   /**
+    * Red component getter
+    * @return the red component of the color
+    */
+   public double getRed() { return rgb.d1; }
+
+   /**
+    * Green component getter
+    * @return the green component of the color
+    */
+   public double getGreen() { return rgb.d2; }
+
+   /**
+    * Blue component getter
+    * @return the blue component of the color
+    */
+   public double getBlue() { return rgb.d3; }
+
    /**
     * Operation of adding this and one or more other colors (by component)
     * @param  colors one or more other colors to add
@@ -111,6 +129,19 @@ public class Color {
       return new Color(rgb.reduce(k));
    }
 
+   /**
+    * Checks whether this color and another color are close enough to be considered the same, i.e. none of their
+    * components differ by more than a threshold
+    * @param  other     the other color
+    * @param  threshold the largest allowed difference of a component
+    * @return           true if the colors are similar
+    */
+   public boolean isSimilar(Color other, double threshold) {
+      return Math.abs(rgb.d1 - other.rgb.d1) <= threshold
+         && Math.abs(rgb.d2 - other.rgb.d2) <= threshold
+         && Math.abs(rgb.d3 - other.rgb.d3) <= threshold;
+   }
+
    @Override
    public String toString() { return "rgb:" + rgb; }
 }
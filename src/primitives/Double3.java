@@ -101,6 +101,30 @@ public class Double3 {
     */
    public Double3 product(Double3 rhs) { return new Double3(d1 * rhs.d1, d2 * rhs.d2 , d3 * rhs.d3); }
 
+   /**
+    * First number getter
+    * @return the first number
+    */
+   public double getD1() { return d1; }
+
+   /**
+    * Second number getter
+    * @return the second number
+    */
+   public double getD2() { return d2; }
+
+   /**
+    * Third number getter
+    * @return the third number
+    */
+   public double getD3() { return d3; }
+
+   /**
+    * Finds the largest of the three numbers
+    * @return the largest number
+    */
+   public double max() { return Math.max(d1, Math.max(d2, d3)); }
+
    /**
     * Checks whether all the numbers are lower than a test number
     * @param  k the test number
@@ -11,7 +11,7 @@ import geometries.Intersectable.GeoPoint;
  * A ray represents a half-straight line in three-dimensional space, starting from a point (the head) and extending in an infinite direction. */
 public class Ray {
     private final Point head; // The starting point of the ray
-    private final Vector direction; // The direction of the ray
+    private final UnitVector direction; // The direction of the ray
     /**
      * A constant delta value used for numerical approximations or small adjustments
      */
@@ -24,7 +24,7 @@ public class Ray {
     public Ray(Point head, Vector direction) {
         this.head = head;
         this.direction = direction.normalize(); // Normalizing the direction vector to ensure it represents
-        // a unit vector.
+        // a unit vector - a unit vector is taken as is.
     }
     /**
      * ray constructor with offset point
@@ -39,17 +39,18 @@ public class Ray {
         double nv = normal.dotProduct(this.direction);
 
         // if the normal is orthogonal to the direction vector of the ray (90 degrees) we will add a small offset
-        Vector dltVector = normal.scale(nv < 0 ? -DELTA : DELTA);
+        double delta = nv < 0 ? -DELTA : DELTA;
 
-        // add the offset to the point
-        head = point.add(dltVector);
+        // add the offset to the point, calculated in doubles
+        head = new Point(point.xyz.d1 + normal.xyz.d1 * delta, point.xyz.d2 + normal.xyz.d2 * delta,
+                point.xyz.d3 + normal.xyz.d3 * delta);
 
     }
     /**
      * Retrieves the direction of the ray.
-     * @return The direction of the ray.
+     * @return The direction of the ray, a unit vector.
      */
-    public Vector getDirection(){
+    public UnitVector getDirection(){
         return direction;
     }
 
@@ -93,7 +94,9 @@ public class Ray {
         if (isZero(t)){
             return head;
         }
-        return head.add(direction.scale(t));
+        // Calculated in doubles - the point is the only allocated object
+        return new Point(head.xyz.d1 + direction.xyz.d1 * t, head.xyz.d2 + direction.xyz.d2 * t,
+                head.xyz.d3 + direction.xyz.d3 * t);
     }
 
     /**
@@ -108,6 +111,7 @@ public class Ray {
 
     /**
      * find the closest GeoPoint to ray's head
+     * The points that carry a ray parameter (t) are compared by it, so it must be the parameter of this ray
      *
      * @return the closest GeoPoint
      */
@@ -119,7 +123,8 @@ if (points == null || points.isEmpty()) {
         double minDistance = Double.POSITIVE_INFINITY;
         Point head = getHead();
         for (GeoPoint geo : points) {
-            double distance = head.distance(geo.point);
+            // The ray parameter of an intersection is its distance, no need to calculate it
+            double distance = Double.isNaN(geo.t) ? head.distance(geo.point) : geo.t;
             if (distance < minDistance) {
                 minDistance = distance;
                 result = geo;
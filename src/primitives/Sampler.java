@@ -0,0 +1,231 @@
+package primitives;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sampler generates the points at which an area is sampled by a beam of rays - a pixel for anti-aliasing, a cone
+ * for glossy reflection or blurry refraction, or an area light for soft shadows.
+ * <p>
+ * A sampler fills a buffer with density x density points of the unit square [0, 1) x [0, 1), as (x, y) pairs, and
+ * the caller maps them onto its area. Evenly spread points converge to the average color of the area with fewer rays
+ * than a regular grid, and don't alias with the regular structures of the scene.
+ * <p>
+ * The random samplers draw from a random generator of their own for every thread, split from the seed of the
+ * sampler - the rendering threads never contend on a shared generator. The same sampler may be used by all the
+ * threads of a rendering, and by several renderings at once.
+ */
+public abstract class Sampler {
+    private final SplittableRandom seeds; // splits the random generators of the threads
+    private final ThreadLocal<SplittableRandom> randoms = ThreadLocal.withInitial(this::split);
+
+    /**
+     * Constructs a sampler
+     *
+     * @param seed the seed of the random generators of the threads
+     */
+    private Sampler(long seed) {
+        seeds = new SplittableRandom(seed);
+    }
+
+    // Splits a random generator for a new thread
+    private synchronized SplittableRandom split() {
+        return seeds.split();
+    }
+
+    /**
+     * Returns the random generator of the current thread
+     *
+     * @return the random generator
+     */
+    final SplittableRandom random() {
+        return randoms.get();
+    }
+
+    /**
+     * Fills a buffer with density x density points of the unit square
+     *
+     * @param density the number of points along an axis
+     * @param points  the buffer, at least 2 x density x density long, filled with the (x, y) pairs of the points
+     */
+    public abstract void sample(int density, double[] points);
+
+    /**
+     * Returns a sampler of the centers of the cells of a regular grid. It is the only sampler whose points are
+     * always the same.
+     *
+     * @return the sampler
+     */
+    public static Sampler stratified() {
+        return new Sampler(0) {
+            @Override
+            public void sample(int density, double[] points) {
+                int p = 0;
+                for (int i = 0; i < density; ++i)
+                    for (int j = 0; j < density; ++j) {
+                        points[p++] = (j + 0.5) / density;
+                        points[p++] = (i + 0.5) / density;
+                    }
+            }
+        };
+    }
+
+    /**
+     * Returns a sampler of a random point in every cell of a regular grid
+     *
+     * @param seed the seed of the random generators
+     * @return the sampler
+     */
+    public static Sampler jittered(long seed) {
+        return new Sampler(seed) {
+            @Override
+            public void sample(int density, double[] points) {
+                SplittableRandom random = random();
+                int p = 0;
+                for (int i = 0; i < density; ++i)
+                    for (int j = 0; j < density; ++j) {
+                        points[p++] = (j + random.nextDouble()) / density;
+                        points[p++] = (i + random.nextDouble()) / density;
+                    }
+            }
+        };
+    }
+
+    /**
+     * Returns a sampler of the Halton sequence of bases 2 and 3, shifted randomly (modulo 1) every time it is
+     * sampled
+     *
+     * @param seed the seed of the random generators
+     * @return the sampler
+     */
+    public static Sampler halton(long seed) {
+        return new Sampler(seed) {
+            @Override
+            public void sample(int density, double[] points) {
+                SplittableRandom random = random();
+                double shiftX = random.nextDouble();
+                double shiftY = random.nextDouble();
+                int count = density * density;
+                for (int i = 0, p = 0; i < count; ++i) {
+                    points[p++] = wrap(radicalInverse2(i) + shiftX);
+                    points[p++] = wrap(radicalInverse3(i) + shiftY);
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns a sampler of the first two dimensions of the Sobol sequence, scrambled randomly every time it is
+     * sampled. A power of 4 points (e.g. density 2, 4 or 8) has exactly one point in every cell of a regular grid.
+     *
+     * @param seed the seed of the random generators
+     * @return the sampler
+     */
+    public static Sampler sobol(long seed) {
+        return new Sampler(seed) {
+            @Override
+            public void sample(int density, double[] points) {
+                SplittableRandom random = random();
+                int scrambleX = random.nextInt();
+                int scrambleY = random.nextInt();
+                int count = density * density;
+                for (int i = 0, p = 0; i < count; ++i) {
+                    points[p++] = toUnit(Integer.reverse(i) ^ scrambleX);
+                    points[p++] = toUnit(sobol2(i) ^ scrambleY);
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns a sampler of blue noise - points that are spread evenly but irregularly, with no two points too close
+     * to each other. The points of every density are generated once (by Mitchell's best candidate algorithm on the
+     * torus) and shifted randomly (modulo 1) every time they are sampled.
+     *
+     * @param seed the seed of the random generators
+     * @return the sampler
+     */
+    public static Sampler blueNoise(long seed) {
+        return new Sampler(seed) {
+            @Override
+            public void sample(int density, double[] points) {
+                SplittableRandom random = random();
+                double shiftX = random.nextDouble();
+                double shiftY = random.nextDouble();
+                double[] pattern = BLUE_NOISE.computeIfAbsent(density, Sampler::blueNoise);
+                for (int p = 0; p < pattern.length; p += 2) {
+                    points[p] = wrap(pattern[p] + shiftX);
+                    points[p + 1] = wrap(pattern[p + 1] + shiftY);
+                }
+            }
+        };
+    }
+
+    /** The blue noise patterns of the densities that have been sampled */
+    private static final Map<Integer, double[]> BLUE_NOISE = new ConcurrentHashMap<>();
+
+    /** The number of candidates tried for every point of a blue noise pattern */
+    private static final int BLUE_NOISE_CANDIDATES = 16;
+
+    // Generates the blue noise pattern of a density by Mitchell's best candidate algorithm - every point is the
+    // candidate farthest from the points before it
+    private static double[] blueNoise(int density) {
+        SplittableRandom random = new SplittableRandom(density);
+        double[] pattern = new double[2 * density * density];
+        for (int p = 0; p < pattern.length; p += 2) {
+            double best = -1;
+            for (int c = 0; c < BLUE_NOISE_CANDIDATES; ++c) {
+                double x = random.nextDouble();
+                double y = random.nextDouble();
+                double nearest = Double.POSITIVE_INFINITY;
+                for (int q = 0; q < p; q += 2) {
+                    // The distance on the torus, so that the pattern can be shifted
+                    double dx = Math.abs(x - pattern[q]);
+                    double dy = Math.abs(y - pattern[q + 1]);
+                    dx = Math.min(dx, 1 - dx);
+                    dy = Math.min(dy, 1 - dy);
+                    nearest = Math.min(nearest, dx * dx + dy * dy);
+                }
+                if (nearest > best) {
+                    best = nearest;
+                    pattern[p] = x;
+                    pattern[p + 1] = y;
+                }
+            }
+        }
+        return pattern;
+    }
+
+    // The fraction of a number shifted into [0, 1)
+    private static double wrap(double value) {
+        return value >= 1 ? value - 1 : value;
+    }
+
+    // The bits of an integer as a binary fraction in [0, 1)
+    private static double toUnit(int bits) {
+        return (bits & 0xFFFFFFFFL) * 0x1p-32;
+    }
+
+    // The radical inverse of an index in base 2 - its binary digits mirrored around the point
+    private static double radicalInverse2(int index) {
+        return toUnit(Integer.reverse(index));
+    }
+
+    // The radical inverse of an index in base 3 - its ternary digits mirrored around the point
+    private static double radicalInverse3(int index) {
+        double inverse = 0;
+        double digit = 1.0 / 3;
+        for (; index > 0; index /= 3, digit /= 3)
+            inverse += index % 3 * digit;
+        return inverse;
+    }
+
+    // The second dimension of the Sobol sequence, as the bits of a binary fraction
+    private static int sobol2(int index) {
+        int bits = 0;
+        for (int v = 1 << 31; index != 0; index >>>= 1, v ^= v >>> 1)
+            if ((index & 1) != 0) bits ^= v;
+        return bits;
+    }
+}
@@ -0,0 +1,30 @@
+package primitives;
+
+/**
+ * Class UnitVector is a Vector that is known to be normalized - its length is 1. It is created only by
+ * normalizing, so normalizing it again does nothing, and a ray accepts it as its direction as is.
+ * <p>
+ * A unit vector is a Vector in all other respects: scaling it, adding to it etc. creates a plain Vector.
+ */
+public final class UnitVector extends Vector {
+
+    /**
+     * Constructor for the normalized values of a vector, which are known not to be zero
+     * @param x first number value of the unit vector
+     * @param y second number value of the unit vector
+     * @param z third number value of the unit vector
+     */
+    UnitVector(double x, double y, double z) {
+        super(x, y, z, true);
+    }
+
+    /**
+     * Normalizes this vector, which is already normalized.
+     *
+     * @return this vector
+     */
+    @Override
+    public UnitVector normalize() {
+        return this;
+    }
+}
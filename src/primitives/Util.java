@@ -1,5 +1,7 @@
 package primitives;
 
+import java.util.concurrent.ThreadLocalRandom;
+
 /** Util class is used for some internal utilities, e.g. controlling accuracy
  * @author Dan */
 public final class Util {
@@ -45,12 +47,14 @@ public final class Util {
       return (n1 < 0 && n2 < 0) || (n1 > 0 && n2 > 0);
    }
 
-   /** Provide a real random number in range between min and max
+   /** Provide a real random number in range between min and max.<br>
+    * The number is drawn from the random generator of the current thread, so rendering threads don't contend on a
+    * single global generator
     * @param  min value (included)
     * @param  max value (excluded)
     * @return     the random value */
    public static double random(double min, double max) {
-      return Math.random() * (max - min) + min;
+      return ThreadLocalRandom.current().nextDouble() * (max - min) + min;
    }
 
 }
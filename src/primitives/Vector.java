@@ -32,6 +32,46 @@ public class Vector extends Point {
             throw new IllegalArgumentException("The Vector is zero");
         }
     }
+
+    /**
+     * Constructor for a vector that is known not to be zero, skipping the check of the public constructors.
+     * The check is kept as an assertion, so it is still made when the assertions are enabled (e.g. in the tests).
+     * @param x first number value of Vector
+     * @param y second number value of Vector
+     * @param z third number value of Vector
+     * @param trusted marks the trusted constructor
+     */
+    Vector(double x, double y, double z, boolean trusted) {
+        super(x, y, z);
+        assert !xyz.equals(ZERO.xyz) : "The Vector is zero";
+    }
+
+    /**
+     * Creates a vector that is known not to be zero - e.g. a unit vector, or the difference of points that are
+     * known to be apart - without checking it (unless the assertions are enabled).
+     * @param x first number value of Vector, not all of the values may be zero
+     * @param y second number value of Vector
+     * @param z third number value of Vector
+     * @return the vector
+     */
+    public static Vector ofNonZero(double x, double y, double z) {
+        return new Vector(x, y, z, true);
+    }
+
+    /**
+     * Creates the normalized vector of values, without creating the vector before its normalization. Only the
+     * length is checked, which is calculated anyway - a zero vector has no direction.
+     * @param x first number value of the vector to normalize
+     * @param y second number value of the vector to normalize
+     * @param z third number value of the vector to normalize
+     * @return the unit vector in the direction of the values
+     * @throws IllegalArgumentException if the values are all zero
+     */
+    public static UnitVector normalized(double x, double y, double z) {
+        double length = Math.sqrt(x * x + y * y + z * z);
+        if (isZero(length)) throw new IllegalArgumentException("The Vector is zero");
+        return new UnitVector(x / length, y / length, z / length);
+    }
     /**
      * Adds the specified vector to this vector.
      *
@@ -95,13 +135,11 @@ public class Vector extends Point {
     /**
      * Normalizes this vector.
      *
-     * @return A new vector which is the normalized version of this vector.
+     * @return A new unit vector which is the normalized version of this vector.
      */
-    public Vector normalize() {
-        double normal_x = super.xyz.d1 / this.length();
-        double normal_y = super.xyz.d2 / this.length();
-        double normal_z = super.xyz.d3 / this.length();
-        return new Vector(normal_x, normal_y, normal_z);
+    public UnitVector normalize() {
+        // A non-zero vector divided by its length is a unit vector - the new vector needs no check of its own
+        return normalized(super.xyz.d1, super.xyz.d2, super.xyz.d3);
     }
 
     /**
@@ -130,12 +168,12 @@ public class Vector extends Point {
      * Computes a vector that is perpendicular to this vector.
      * @return A new vector that is perpendicular to this vector.
      */
-    public Vector makePerpendicularVector() {
+    public UnitVector makePerpendicularVector() {
         // If the vector is not parallel to the x-axis, return a vector perpendicular to the x-axis
         if (!isZero(xyz.d1) || !isZero(xyz.d2)) {
-            return new Vector(-xyz.d2, xyz.d1, 0).normalize();
+            return normalized(-xyz.d2, xyz.d1, 0);
         } else {
-            return new Vector(0, -xyz.d3, xyz.d2).normalize();
+            return normalized(0, -xyz.d3, xyz.d2);
         }
     }
 }
@@ -1,19 +1,21 @@
 package renderer;
 
+import geometries.RayPacket;
 import jdk.javadoc.doclet.Taglet;
 import primitives.Color;
 import primitives.Point;
 import primitives.Ray;
+import primitives.Sampler;
 import primitives.Vector;
 
 import javax.xml.stream.Location;
-import java.util.LinkedList;
+import java.time.Duration;
 import java.util.MissingResourceException;
+import java.util.function.BooleanSupplier;
 import java.util.stream.IntStream;
 
 import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
-import renderer.Pixel;
 
 /**
  * Represents a camera in three-dimensional space.
@@ -26,9 +28,17 @@ public class Camera implements Cloneable {
     private ImageWriter imageWriter; // The image writer used to write the rendered image
     private RayTracerBase rayTracer; // The ray tracer used to render the image
     private Point pCenter;
-    private int threadsCount = 0; // -2 auto, -1 range/stream, 0 no threads, 1+ number of threads
+    private RenderExecutor renderExecutor = RenderExecutor.callerRuns(); // The threads rendering the image
+    private Duration renderTimeout = null; // The time limit of rendering the image, null if there is no limit
     private final int SPARE_THREADS = 2; // Spare threads if trying to use all the cores
     private double printInterval = 0; // printing progress percentage interval
+    private int tileSize = 16; // the width and height of the tiles the image is rendered by, in pixels
+    private int antiAliasingDepth = -1; // the maximum number of subdivisions of a pixel, -1 for no anti-aliasing
+    private double antiAliasingThreshold = 0; // the largest color difference of samples that are not subdivided
+    private Sampler pixelSampler = null; // the sampler of the rays in a pixel, null for no sampling
+    private int pixelDensity = 0; // the number of rays along each axis of a pixel, when sampled
+    private int packetSize = 0; // the number of primary rays traced together as a packet, 0 for single rays
+    private volatile long raysCount = 0; // the number of rays cast by the last rendering
 
 
 //    /**
@@ -66,6 +76,16 @@ public class Camera implements Cloneable {
         return rayTracer;
     }
 
+    /**
+     * Returns the number of rays cast by the last rendering of the image. Without anti-aliasing it is the number of
+     * pixels, with adaptive anti-aliasing it depends on how many pixels were subdivided.
+     *
+     * @return the number of rays
+     */
+    public long getRaysCount() {
+        return raysCount;
+    }
+
 
     /**
      * Builder class for Camera, implementing the Builder Pattern.
@@ -210,24 +230,120 @@ public class Camera implements Cloneable {
         /**
          * Set multithreading <br>
          * - if the parameter is 0 - no multithreading <br>
-         * - if the parameter is -1 - the number of working threads is 2 less than the number of available cores <br>
+         * - if the parameter is -1 - the image is split recursively and rendered by a fork/join pool, with work
+         * stealing between its threads <br>
          * - if the parameter is -2 - the number of working threads is 2 less than the number of available cores or
          * 1 if there is only one core <br>
          * - if the parameter is a positive number N - N threads will be run <br>
+         * It is a shortcut for {@link #setRenderExecutor(RenderExecutor)}.
          * @param threads number of threads
          * @return the Camera object itself
          */
         public Builder setMultithreading(int threads) {
             if (threads < -2) throw new IllegalArgumentException("Multithreading must be -2 or higher");
-            if (threads >= -1) camera.threadsCount = threads;
+            if (threads == 0) camera.renderExecutor = RenderExecutor.callerRuns();
+            else if (threads == -1) camera.renderExecutor = RenderExecutor.forkJoin();
+            else if (threads > 0) camera.renderExecutor = RenderExecutor.platformThreads(threads);
             else { // == -2
 
                 int cores = Runtime.getRuntime().availableProcessors() - camera.SPARE_THREADS;
-                camera.threadsCount = cores <= 2 ? 1 : cores;
+                camera.renderExecutor = RenderExecutor.platformThreads(cores <= 2 ? 1 : cores);
             }
             // Return the camera object
             return this;
         }
+
+        /**
+         * Set the executor deciding which threads render the image - the thread calling
+         * {@link Camera#renderImage()}, a pool of platform threads, virtual threads, a fork/join pool or an existing
+         * executor service (see {@link RenderExecutor}).
+         * @param renderExecutor the render executor
+         * @return the Camera object itself
+         */
+        public Builder setRenderExecutor(RenderExecutor renderExecutor) {
+            if (renderExecutor == null) throw new IllegalArgumentException("Render executor cannot be null");
+            camera.renderExecutor = renderExecutor;
+            return this;
+        }
+
+        /**
+         * Set the time limit of rendering the image. When it passes, the rendering is stopped and
+         * {@link Camera#renderImage()} throws a {@link java.util.concurrent.CancellationException}.
+         * @param renderTimeout the time limit, null for no limit
+         * @return the Camera object itself
+         */
+        public Builder setRenderTimeout(Duration renderTimeout) {
+            if (renderTimeout != null && (renderTimeout.isNegative() || renderTimeout.isZero()))
+                throw new IllegalArgumentException("Render timeout must be positive");
+            camera.renderTimeout = renderTimeout;
+            return this;
+        }
+        /**
+         * Set the size of the tiles the image is divided to for multithreaded rendering. Every thread renders a
+         * whole tile at a time.
+         * @param tileSize the width and height of a tile in pixels
+         * @return the Camera object itself
+         */
+        public Builder setTileSize(int tileSize) {
+            if (tileSize <= 0) throw new IllegalArgumentException("Tile size must be positive");
+            camera.tileSize = tileSize;
+            return this;
+        }
+
+        /**
+         * Set adaptive anti-aliasing. Instead of a single ray through the center of a pixel, its four corners are
+         * sampled, and as long as the colors of the corners differ by more than the threshold, the pixel (or its
+         * part) is subdivided into four quarters whose corners are sampled in turn. The color of the pixel is the
+         * average of its parts, so only the edges of the geometries and shadows get many rays.
+         * @param maxDepth  the maximum number of subdivisions of a pixel, 0 for just averaging its corners, -1 for no
+         *                  anti-aliasing
+         * @param threshold the largest difference of a color component (0-255) between the corners of a part of a
+         *                  pixel that is not subdivided
+         * @return the Camera object itself
+         */
+        public Builder setAntiAliasing(int maxDepth, double threshold) {
+            if (maxDepth < -1) throw new IllegalArgumentException("Anti-aliasing depth must be -1 or higher");
+            if (threshold < 0) throw new IllegalArgumentException("Anti-aliasing threshold cannot be negative");
+            camera.antiAliasingDepth = maxDepth;
+            camera.antiAliasingThreshold = threshold;
+            camera.pixelSampler = null;
+            return this;
+        }
+
+        /**
+         * Set anti-aliasing by a fixed number of rays in every pixel, spread over the pixel by a sampler - e.g. a
+         * low-discrepancy sampler converges with a few rays per pixel (see {@link Sampler}). It replaces the adaptive
+         * anti-aliasing.
+         * @param sampler the sampler of the rays in a pixel
+         * @param density the number of rays along each axis of a pixel
+         * @return the Camera object itself
+         */
+        public Builder setAntiAliasing(Sampler sampler, int density) {
+            if (sampler == null) throw new IllegalArgumentException("Sampler cannot be null");
+            if (density <= 0) throw new IllegalArgumentException("Sampling density must be positive");
+            camera.pixelSampler = sampler;
+            camera.pixelDensity = density;
+            camera.antiAliasingDepth = -1;
+            return this;
+        }
+
+        /**
+         * Set packet tracing of the primary rays. The rays of neighbouring pixels of a row, or the rays of a sampled
+         * pixel, are traced together as a packet - the hierarchies of the scene are traversed once for all of them
+         * (see {@link geometries.RayPacket}). The colors are the same as by tracing the rays one by one. The adaptive
+         * anti-aliasing decides on every ray by the colors of the previous ones, so it can't be combined with packets
+         * - a camera with both is not built.
+         * @param size the number of rays in a packet, up to {@link geometries.RayPacket#MAX_SIZE}, 0 for tracing
+         *             single rays
+         * @return the Camera object itself
+         */
+        public Builder setRayPackets(int size) {
+            if (size < 0 || size > RayPacket.MAX_SIZE)
+                throw new IllegalArgumentException("Packet size must be between 0 and " + RayPacket.MAX_SIZE);
+            camera.packetSize = size;
+            return this;
+        }
+
         /**
          * Set debug printing on the screen
          * @param interval - printing progress percentage interval
@@ -243,6 +359,7 @@ public class Camera implements Cloneable {
          * Build the camera. In case of missing parameters, an exception will be thrown.
          *
          * @return the camera
+         * @throws IllegalStateException if ray packets are set along with adaptive anti-aliasing
          */
         public Camera build() {
             // check composed objects
@@ -253,6 +370,9 @@ public class Camera implements Cloneable {
             if (camera.rayTracer == null)
                 throw new MissingResourceException("rayTracer is missing", "Camera", "");
 
+            if (camera.packetSize > 0 && camera.antiAliasingDepth >= 0)
+                throw new IllegalStateException("Ray packets can't be used with adaptive anti-aliasing");
+
             camera.targetArea = targetAreaBuilder.build();
 
             try {
@@ -352,49 +472,241 @@ public class Camera implements Cloneable {
         Ray ray = targetArea.constructRay(Nx, Ny, column, row);
         Color color = rayTracer.traceRay(ray);
         imageWriter.writePixel(column, row, color);
+    }
+
+    /**
+     * Casts the rays of all the pixels of a tile, row by row.
+     *
+     * @param Nx       The number of pixels in the x direction
+     * @param Ny       The number of pixels in the y direction
+     * @param tile     The tile
+     * @param stopped  Tells whether the rendering was stopped - checked before every row
+     * @param progress The progress of the rendering
+     */
+    private void castRays(int Nx, int Ny, TileScheduler.Tile tile, BooleanSupplier stopped, RenderProgress progress) {
+        if (antiAliasingDepth >= 0) {
+            castAdaptiveRays(Nx, Ny, tile, stopped, progress);
+            return;
+        }
+        if (pixelSampler != null) {
+            castSampledRays(Nx, Ny, tile, stopped, progress);
+            return;
+        }
+        if (packetSize > 0) {
+            castRayPackets(Nx, Ny, tile, stopped, progress);
+            return;
+        }
+        for (int i = tile.fromRow(); i < tile.toRow(); ++i) {
+            if (stopped.getAsBoolean()) return;
+            for (int j = tile.fromCol(); j < tile.toCol(); ++j)
+                castRay(Nx, Ny, j, i);
+            progress.raysCast(tile.toCol() - tile.fromCol());
+        }
+        progress.pixelsDone(tile.size());
+    }
+
+    /**
+     * Casts the rays of all the pixels of a tile, row by row, tracing the rays of neighbouring pixels of a row
+     * together as packets.
+     *
+     * @param Nx       The number of pixels in the x direction
+     * @param Ny       The number of pixels in the y direction
+     * @param tile     The tile
+     * @param stopped  Tells whether the rendering was stopped - checked before every row
+     * @param progress The progress of the rendering
+     */
+    private void castRayPackets(int Nx, int Ny, TileScheduler.Tile tile, BooleanSupplier stopped,
+                                RenderProgress progress) {
+        Ray[] rays = new Ray[packetSize];
+        Color[] colors = new Color[packetSize];
+        for (int i = tile.fromRow(); i < tile.toRow(); ++i) {
+            if (stopped.getAsBoolean()) return;
+            for (int first = tile.fromCol(); first < tile.toCol(); first += packetSize) {
+                int count = Math.min(packetSize, tile.toCol() - first);
+                for (int k = 0; k < count; ++k)
+                    rays[k] = targetArea.constructRay(Nx, Ny, first + k, i);
+                rayTracer.traceRays(rays, count, colors);
+                for (int k = 0; k < count; ++k)
+                    imageWriter.writePixel(first + k, i, colors[k]);
+            }
+            progress.raysCast(tile.toCol() - tile.fromCol());
+        }
+        progress.pixelsDone(tile.size());
+    }
+
+    /**
+     * Casts the rays of all the pixels of a tile with adaptive anti-aliasing, row by row. The corners of a row of
+     * pixels are kept for the next row, so a corner shared by neighbouring pixels is traced only once.
+     *
+     * @param Nx       The number of pixels in the x direction
+     * @param Ny       The number of pixels in the y direction
+     * @param tile     The tile
+     * @param stopped  Tells whether the rendering was stopped - checked before every row
+     * @param progress The progress of the rendering
+     */
+    private void castAdaptiveRays(int Nx, int Ny, TileScheduler.Tile tile, BooleanSupplier stopped,
+                                  RenderProgress progress) {
+        AdaptiveSampler sampler = new AdaptiveSampler(Nx, Ny);
+        int cols = tile.toCol() - tile.fromCol();
+        Color[] upper = new Color[cols + 1]; // the upper corners of the pixels of the row
+        Color[] lower = new Color[cols + 1]; // the lower corners of the pixels of the row
+        for (int k = 0; k <= cols; ++k)
+            upper[k] = sampler.trace(tile.fromCol() + k - 0.5, tile.fromRow() - 0.5);
+
+        try {
+            for (int i = tile.fromRow(); i < tile.toRow(); ++i) {
+                if (stopped.getAsBoolean()) return;
+                for (int k = 0; k <= cols; ++k)
+                    lower[k] = sampler.trace(tile.fromCol() + k - 0.5, i + 0.5);
+                for (int k = 0; k < cols; ++k) {
+                    int j = tile.fromCol() + k;
+                    imageWriter.writePixel(j, i, sampler.sample(j - 0.5, i - 0.5, 1,
+                            upper[k], upper[k + 1], lower[k], lower[k + 1], antiAliasingDepth));
+                }
+                // The lower corners of this row are the upper corners of the next one
+                Color[] corners = upper;
+                upper = lower;
+                lower = corners;
+            }
+        } finally {
+            progress.raysCast(sampler.rays);
+        }
+        progress.pixelsDone(tile.size());
+    }
+
+    /**
+     * Casts the rays of all the pixels of a tile, row by row, spreading a fixed number of rays over every pixel by
+     * the pixel sampler.
+     *
+     * @param Nx       The number of pixels in the x direction
+     * @param Ny       The number of pixels in the y direction
+     * @param tile     The tile
+     * @param stopped  Tells whether the rendering was stopped - checked before every row
+     * @param progress The progress of the rendering
+     */
+    private void castSampledRays(int Nx, int Ny, TileScheduler.Tile tile, BooleanSupplier stopped,
+                                 RenderProgress progress) {
+        int count = pixelDensity * pixelDensity;
+        double[] points = new double[2 * count]; // the points of a pixel, reused for all the pixels of the tile
+        // The rays of a packet and their colors, when the rays of a pixel are traced as packets
+        Ray[] rays = new Ray[packetSize];
+        Color[] colors = new Color[packetSize];
+        for (int i = tile.fromRow(); i < tile.toRow(); ++i) {
+            if (stopped.getAsBoolean()) return;
+            for (int j = tile.fromCol(); j < tile.toCol(); ++j) {
+                pixelSampler.sample(pixelDensity, points);
+                Color color = Color.BLACK;
+                if (packetSize == 0)
+                    for (int p = 0; p < points.length; p += 2)
+                        color = color.add(rayTracer.traceRay(targetArea.constructSubPixelRay(Nx, Ny,
+                                j - 0.5 + points[p], i - 0.5 + points[p + 1])));
+                else
+                    for (int first = 0; first < count; first += packetSize) {
+                        int size = Math.min(packetSize, count - first);
+                        for (int k = 0, p = 2 * first; k < size; ++k, p += 2)
+                            rays[k] = targetArea.constructSubPixelRay(Nx, Ny,
+                                    j - 0.5 + points[p], i - 0.5 + points[p + 1]);
+                        rayTracer.traceRays(rays, size, colors);
+                        for (int k = 0; k < size; ++k) color = color.add(colors[k]);
+                    }
+                imageWriter.writePixel(j, i, color.reduce(count));
+            }
+            progress.raysCast((long) count * (tile.toCol() - tile.fromCol()));
+        }
+        progress.pixelsDone(tile.size());
+    }
+
+    /**
+     * Samples the view plane adaptively for anti-aliasing, counting the rays it traces
+     */
+    private final class AdaptiveSampler {
+        private final int nX; // The number of pixels in the x direction
+        private final int nY; // The number of pixels in the y direction
+        private long rays = 0; // The number of rays traced so far
+
+        /**
+         * Constructs a sampler for an image
+         *
+         * @param nX The number of pixels in the x direction
+         * @param nY The number of pixels in the y direction
+         */
+        AdaptiveSampler(int nX, int nY) {
+            this.nX = nX;
+            this.nY = nY;
+        }
+
+        /**
+         * Traces a ray through a point of the view plane
+         *
+         * @param x The x coordinate of the point, in pixels
+         * @param y The y coordinate of the point, in pixels
+         * @return the color of the ray
+         */
+        Color trace(double x, double y) {
+            ++rays;
+            return rayTracer.traceRay(targetArea.constructSubPixelRay(nX, nY, x, y));
+        }
+
+        /**
+         * Calculates the color of a square part of a pixel from the colors of its corners, subdividing it as long
+         * as the colors of the corners differ and the maximum depth isn't reached
+         *
+         * @param x           The x coordinate of the upper left corner, in pixels
+         * @param y           The y coordinate of the upper left corner, in pixels
+         * @param size        The width and height of the part, in pixels
+         * @param upperLeft   The color of the upper left corner
+         * @param upperRight  The color of the upper right corner
+         * @param lowerLeft   The color of the lower left corner
+         * @param lowerRight  The color of the lower right corner
+         * @param depth       The number of subdivisions left
+         * @return the color of the part
+         */
+        Color sample(double x, double y, double size,
+                     Color upperLeft, Color upperRight, Color lowerLeft, Color lowerRight, int depth) {
+            if (depth == 0 || isUniform(upperLeft, upperRight, lowerLeft, lowerRight))
+                return upperLeft.add(upperRight, lowerLeft, lowerRight).reduce(4);
+
+            // Sample the center and the middles of the sides, and calculate every quarter by its corners
+            double half = size / 2;
+            Color upper = trace(x + half, y);
+            Color left = trace(x, y + half);
+            Color center = trace(x + half, y + half);
+            Color right = trace(x + size, y + half);
+            Color lower = trace(x + half, y + size);
+            --depth;
+            return sample(x, y, half, upperLeft, upper, left, center, depth)
+                    .add(sample(x + half, y, half, upper, upperRight, center, right, depth),
+                            sample(x, y + half, half, left, center, lowerLeft, lower, depth),
+                            sample(x + half, y + half, half, center, right, lower, lowerRight, depth))
+                    .reduce(4);
+        }
 
-        Pixel.pixelDone();
+        // Checks whether the colors of the corners of a part are all similar to each other
+        private boolean isUniform(Color c1, Color c2, Color c3, Color c4) {
+            double threshold = antiAliasingThreshold;
+            return c1.isSimilar(c2, threshold) && c1.isSimilar(c3, threshold) && c1.isSimilar(c4, threshold)
+                    && c2.isSimilar(c3, threshold) && c2.isSimilar(c4, threshold) && c3.isSimilar(c4, threshold);
+        }
     }
     // --------------------------------- Mini project 2 ---------------------------------------------------
 
     /** This function renders image's pixel color map from the scene
      * included in the ray tracer object
      * @return the camera object itself
+     * @throws java.util.concurrent.CancellationException if the rendering timed out or the calling thread was
+     * interrupted
      */
     // After mini project 2
     public Camera renderImage() {
         // Get the number of pixels in the x and y direction
         final int nX = imageWriter.getNx();
         final int nY = imageWriter.getNy();
-        // Initialize the progress percentage
-        Pixel.initialize(nY, nX, printInterval);
-        // If no threads are used
-        if (threadsCount == 0)
-            for (int i = 0; i < nY; ++i)
-                for (int j = 0; j < nX; ++j)
-                    castRay(nX, nY, j, i);
-
-        else {
-            // If the number of threads is > 0 use in parallel stream
-            // List of threads
-            var threads = new LinkedList<Thread>();
-            while (threadsCount-- > 0)
-                // Add a new thread to the list
-                threads.add(new Thread(() -> {
-                    Pixel pixel;
-                    // While there are pixels to render
-                    while ((pixel = Pixel.nextPixel()) != null)
-                        // Cast a ray to the pixel
-                        castRay(nX, nY, pixel.col(), pixel.row());
-                }));
-            // Start all the threads
-            for (var thread : threads) thread.start();
-            try {
-                // Wait for all the threads to finish
-                for (var thread : threads) thread.join();
-            } catch (InterruptedException ignore) {
-            }
-        }
+        // Initialize the progress percentage of this rendering
+        RenderProgress progress = new RenderProgress(nY, nX, printInterval);
+        // Render the image tile by tile by the threads of the render executor
+        renderExecutor.render(new TileScheduler(nY, nX, tileSize),
+                (tile, stopped) -> castRays(nX, nY, tile, stopped, progress), renderTimeout);
+        raysCount = progress.getRaysCast();
         // Return the camera object
         return this;
     }
@@ -31,4 +31,16 @@ public abstract class RayTracerBase {
      * @return the color
      */
     public abstract Color traceRay(Ray ray);
+
+    /**
+     * function to calculate the colors of a batch of coherent rays, e.g. the rays of neighboring pixels. A tracer
+     * may trace them together, the default traces them one by one.
+     *
+     * @param rays   the rays
+     * @param count  the number of rays in the batch
+     * @param colors the buffer that receives the colors of the rays, in their order
+     */
+    public void traceRays(Ray[] rays, int count, Color[] colors) {
+        for (int i = 0; i < count; ++i) colors[i] = traceRay(rays[i]);
+    }
 }
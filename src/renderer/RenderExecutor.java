@@ -0,0 +1,338 @@
+package renderer;
+
+import java.io.Serial;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * RenderExecutor decides which threads render the tiles of an image (see {@link Camera.Builder#setRenderExecutor}).
+ * <p>
+ * Whatever the threads are, a rendering is structured: {@link Camera#renderImage()} returns (or throws) only after
+ * all of its tiles are done, and no thread keeps writing to the image afterwards. The rendering is stopped, at the
+ * granularity of a row of a tile, when:
+ * <ul>
+ * <li>a tile fails - the exception is thrown by {@link Camera#renderImage()}</li>
+ * <li>the rendering timeout passes - a {@link CancellationException} is thrown</li>
+ * <li>the thread calling {@link Camera#renderImage()} is interrupted - a {@link CancellationException} is thrown
+ * and the thread's interrupt status is kept</li>
+ * </ul>
+ * An executor holds no state of a rendering, so the same executor may be used by several cameras at once.
+ */
+public abstract class RenderExecutor {
+
+    /**
+     * Renders a single tile of the image
+     */
+    @FunctionalInterface
+    interface TileRenderer {
+        /**
+         * Renders a tile, checking between its rows whether the rendering was stopped
+         *
+         * @param tile    the tile
+         * @param stopped tells whether the rendering was stopped, so that the rest of the tile should be skipped
+         */
+        void render(TileScheduler.Tile tile, BooleanSupplier stopped);
+    }
+
+    /**
+     * The state of a single rendering: the tiles, the way to render a tile, and whether the rendering was stopped
+     */
+    static final class Job {
+        private final TileScheduler scheduler; // hands out the tiles of the image
+        private final TileRenderer renderer; // renders a single tile
+        private final long deadline; // System.nanoTime() of the timeout, meaningless if there is no timeout
+        private final boolean timed; // whether the rendering has a timeout
+        private volatile boolean stopped = false; // whether the rendering was stopped
+        private volatile boolean timedOut = false; // whether the rendering was stopped by the timeout
+        private final BooleanSupplier stoppedCheck = this::isStopped; // handed to the tile renderer
+
+        /**
+         * Constructs a rendering job
+         *
+         * @param scheduler hands out the tiles of the image
+         * @param renderer  renders a single tile
+         * @param timeout   the rendering timeout, null for no timeout
+         */
+        Job(TileScheduler scheduler, TileRenderer renderer, Duration timeout) {
+            this.scheduler = scheduler;
+            this.renderer = renderer;
+            this.timed = timeout != null;
+            this.deadline = timed ? System.nanoTime() + timeout.toNanos() : 0;
+        }
+
+        /**
+         * Checks whether the rendering was stopped, stopping it if the timeout has passed
+         *
+         * @return true if the rendering was stopped
+         */
+        boolean isStopped() {
+            if (!stopped && timed && System.nanoTime() - deadline > 0) {
+                timedOut = true;
+                stopped = true;
+            }
+            return stopped;
+        }
+
+        /**
+         * Renders a tile, unless the rendering was stopped. A tile that fails stops the rendering right away, so no
+         * other thread starts a new tile or a new row while the failure is on its way to the waiting thread.
+         *
+         * @param tile the tile
+         * @throws CancellationException if the rendering timed out
+         */
+        void render(TileScheduler.Tile tile) {
+            try {
+                if (!isStopped()) renderer.render(tile, stoppedCheck);
+            } catch (Throwable e) {
+                stopped = true;
+                throw e;
+            }
+            if (timedOut) throw new CancellationException("Rendering timed out");
+        }
+
+        /**
+         * Renders the tiles handed out by the scheduler, until there are no more tiles or the rendering is stopped
+         */
+        void work() {
+            TileScheduler.Tile tile;
+            while (!stopped && (tile = scheduler.nextTile()) != null)
+                render(tile);
+        }
+    }
+
+    /**
+     * Renders all the tiles of a job, and returns after they are all done
+     *
+     * @param job the rendering job
+     */
+    abstract void execute(Job job);
+
+    /**
+     * Renders an image tile by tile
+     *
+     * @param scheduler hands out the tiles of the image
+     * @param renderer  renders a single tile
+     * @param timeout   the rendering timeout, null for no timeout
+     * @throws CancellationException if the rendering timed out or the calling thread was interrupted
+     */
+    final void render(TileScheduler scheduler, TileRenderer renderer, Duration timeout) {
+        execute(new Job(scheduler, renderer, timeout));
+    }
+
+    /**
+     * Waits for the tasks of a job. If a task fails, the timeout passes or the waiting thread is interrupted, the
+     * job is stopped, the rest of the tasks are waited for (they finish the tiles they are rendering) and an
+     * exception is thrown.
+     *
+     * @param futures the tasks
+     * @param job     the rendering job
+     */
+    static void await(List<Future<?>> futures, Job job) {
+        try {
+            for (Future<?> future : futures) {
+                if (job.timed) future.get(job.deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                else future.get();
+            }
+        } catch (ExecutionException e) {
+            stop(futures, job);
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) throw runtimeException;
+            if (cause instanceof Error error) throw error;
+            throw new IllegalStateException("Rendering failed", cause);
+        } catch (TimeoutException e) {
+            stop(futures, job);
+            throw new CancellationException("Rendering timed out");
+        } catch (InterruptedException e) {
+            stop(futures, job);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Rendering was interrupted");
+        }
+    }
+
+    // Stops a job and waits for its tasks to finish, ignoring their failures and any interruption
+    private static void stop(List<Future<?>> futures, Job job) {
+        job.stopped = true;
+        boolean interrupted = false;
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException | CancellationException ignore) {
+                    break;
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Returns an executor rendering all the tiles by the thread calling {@link Camera#renderImage()}
+     *
+     * @return the executor
+     */
+    public static RenderExecutor callerRuns() {
+        return new RenderExecutor() {
+            @Override
+            void execute(Job job) {
+                TileScheduler.Tile tile;
+                while ((tile = job.scheduler.nextTile()) != null) {
+                    if (Thread.currentThread().isInterrupted())
+                        throw new CancellationException("Rendering was interrupted");
+                    job.render(tile);
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns an executor rendering the tiles by a number of platform threads, created for each rendering
+     *
+     * @param threads the number of threads
+     * @return the executor
+     */
+    public static RenderExecutor platformThreads(int threads) {
+        if (threads <= 0) throw new IllegalArgumentException("The number of threads must be positive");
+        return new RenderExecutor() {
+            @Override
+            void execute(Job job) {
+                ExecutorService service = Executors.newFixedThreadPool(threads);
+                try {
+                    List<Future<?>> futures = new ArrayList<>(threads);
+                    for (int i = 0; i < threads; ++i) futures.add(service.submit(job::work));
+                    await(futures, job);
+                } finally {
+                    service.shutdown();
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns an executor rendering every tile by its own virtual thread. The virtual threads of all the renderings
+     * share the JVM's carrier threads - one per core - so many small renderings may run at once without creating
+     * more threads than there are cores. Virtual threads require JDK 21, the JDK the project is built with.
+     *
+     * @return the executor
+     */
+    public static RenderExecutor virtualThreads() {
+        return new RenderExecutor() {
+            @Override
+            void execute(Job job) {
+                try (ExecutorService service = Executors.newVirtualThreadPerTaskExecutor()) {
+                    await(submitTiles(service, job), job);
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns an executor rendering the tiles as tasks of an existing executor service, for example a thread pool
+     * shared by many renderings. The executor service is not shut down by the rendering.
+     *
+     * @param service the executor service
+     * @return the executor
+     */
+    public static RenderExecutor of(ExecutorService service) {
+        if (service == null) throw new IllegalArgumentException("Executor service cannot be null");
+        return new RenderExecutor() {
+            @Override
+            void execute(Job job) {
+                await(submitTiles(service, job), job);
+            }
+        };
+    }
+
+    // Submits a task rendering each one of the tiles of a job
+    private static List<Future<?>> submitTiles(ExecutorService service, Job job) {
+        int count = job.scheduler.getTilesCount();
+        List<Future<?>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            TileScheduler.Tile tile = job.scheduler.getTile(i);
+            futures.add(service.submit(() -> job.render(tile)));
+        }
+        return futures;
+    }
+
+    /**
+     * Returns an executor splitting the image recursively, by a fork/join pool with a thread per core created for
+     * each rendering. A part of the image larger than a tile is split in two along its longer side, so that idle
+     * threads can steal the halves of the busy ones - the cost of the pixels varies a lot between a background area
+     * and a reflective geometry.
+     *
+     * @return the executor
+     */
+    public static RenderExecutor forkJoin() {
+        return new RenderExecutor() {
+            @Override
+            void execute(Job job) {
+                ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+                try {
+                    await(List.of(pool.submit(new SplitTask(job, job.scheduler.getImage()))), job);
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        };
+    }
+
+    /**
+     * A fork/join task rendering a rectangular part of the image
+     */
+    private static class SplitTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        // A task is never serialized, it lives only during its rendering
+        private final transient Job job; // the rendering job
+        private final transient TileScheduler.Tile part; // the part of the image to render
+
+        /**
+         * Constructs a task rendering a part of the image
+         *
+         * @param job  the rendering job
+         * @param part the part of the image to render
+         */
+        SplitTask(Job job, TileScheduler.Tile part) {
+            this.job = job;
+            this.part = part;
+        }
+
+        @Override
+        protected void compute() {
+            if (job.stopped) return;
+            int rows = part.toRow() - part.fromRow();
+            int cols = part.toCol() - part.fromCol();
+            int tileSize = job.scheduler.getTileSize();
+            if (rows <= tileSize && cols <= tileSize) {
+                job.render(part);
+                return;
+            }
+
+            // Split along the longer side
+            TileScheduler.Tile first, second;
+            if (rows >= cols) {
+                int mid = part.fromRow() + rows / 2;
+                first = new TileScheduler.Tile(part.fromRow(), part.fromCol(), mid, part.toCol());
+                second = new TileScheduler.Tile(mid, part.fromCol(), part.toRow(), part.toCol());
+            } else {
+                int mid = part.fromCol() + cols / 2;
+                first = new TileScheduler.Tile(part.fromRow(), part.fromCol(), part.toRow(), mid);
+                second = new TileScheduler.Tile(part.fromRow(), mid, part.toRow(), part.toCol());
+            }
+            invokeAll(new SplitTask(job, first), new SplitTask(job, second));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package renderer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RenderProgress class tracks the progress of a single rendering of an image.
+ * It is used to print the progress percentage. The pixels are handed out to the rendering threads in tiles, by
+ * {@link TileScheduler}.
+ * <p>
+ * Every rendering has its own progress object, so several images may be rendered at once in the same process. The
+ * rendered pixels are counted by a {@link LongAdder}, so the rendering threads don't contend on a lock.
+ */
+class RenderProgress {
+    private static final String PRINT_FORMAT = "%5.1f%%\r"; // the format for printing the progress percentage
+
+    private final long totalPixels; // total number of pixels in the image
+    private final int printInterval; // the interval for printing the progress percentage, in tenths of a percent
+    private final LongAdder pixels = new LongAdder(); // number of pixels that have been rendered
+    private final LongAdder rays = new LongAdder(); // number of rays that have been cast
+    private final AtomicInteger lastPrinted = new AtomicInteger(); // the last progress percentage that was printed
+
+    /**
+     * Constructs the progress of rendering an image, and prints the first progress percentage if asked to.
+     *
+     * @param maxRows  number of rows (height) of the image
+     * @param maxCols  number of columns (width) of the image
+     * @param interval the interval for printing the progress percentage, 0 for no printing
+     */
+    RenderProgress(int maxRows, int maxCols, double interval) {
+        totalPixels = (long) maxRows * maxCols;
+        printInterval = (int) (interval * 10);
+        // print the first progress percentage
+        if (printInterval != 0) System.out.printf(PRINT_FORMAT, 0d);
+    }
+
+    /**
+     * Updates the progress percentage and prints it.
+     * This function is called by each thread after rendering a tile of pixels.
+     *
+     * @param count the number of pixels that have been rendered
+     */
+    void pixelsDone(int count) {
+        pixels.add(count);
+        if (printInterval == 0) return;
+
+        // Calculate the progress percentage, in tenths of a percent
+        int percentage = (int) (1000L * pixels.sum() / totalPixels);
+        int last = lastPrinted.get();
+        // Only the thread that updates the last printed percentage prints it
+        if (percentage - last >= printInterval && lastPrinted.compareAndSet(last, percentage))
+            System.out.printf(PRINT_FORMAT, percentage / 10d);
+    }
+
+    /**
+     * Returns the number of pixels that have been rendered so far
+     *
+     * @return the number of rendered pixels
+     */
+    long getPixelsDone() {
+        return pixels.sum();
+    }
+
+    /**
+     * Counts rays that have been cast. With anti-aliasing the number of rays per pixel varies, so the rays are
+     * counted separately from the pixels.
+     *
+     * @param count the number of rays
+     */
+    void raysCast(long count) {
+        rays.add(count);
+    }
+
+    /**
+     * Returns the number of rays that have been cast so far
+     *
+     * @return the number of cast rays
+     */
+    long getRaysCast() {
+        return rays.sum();
+    }
+}
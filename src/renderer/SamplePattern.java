@@ -0,0 +1,67 @@
+package renderer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SamplePattern holds the offsets of the samples of a square target area's grid, relative to the center of the
+ * target area and in units of its size. The samples are evenly spaced between the centers of the first and the
+ * last cells of the grid.
+ * <p>
+ * A pattern depends only on the grid, so it is calculated once and shared by all the rays and the threads: a beam
+ * of rays is sampled by transforming the offsets into the frame of its axis, without building a target area for
+ * every bounce. The grid is square, so a single table of offsets serves both of its axes.
+ */
+final class SamplePattern {
+    private static final Map<Long, SamplePattern> PATTERNS = new ConcurrentHashMap<>(); // the calculated patterns
+
+    private final double[] offsets; // the offsets of the samples along an axis
+
+    /**
+     * Calculates the pattern of a grid
+     *
+     * @param density   the density of the grid - the number of its cells along an axis
+     * @param intervals the number of intervals between the samples along an axis, 0 for only the center
+     */
+    private SamplePattern(int density, int intervals) {
+        offsets = new double[intervals + 1];
+        double span = density - 1; // the distance between the first and the last centers, in cells
+        if (intervals == 0) return; // only the center
+        for (int i = 0; i <= intervals; ++i)
+            offsets[i] = (i * span / intervals - span / 2) / density;
+    }
+
+    /**
+     * Gets the pattern of a grid, calculating it only the first time it is asked for
+     *
+     * @param density   the density of the grid - the number of its cells along an axis
+     * @param intervals the number of intervals between the samples along an axis, e.g. density - 1 for sampling
+     *                  the centers of the cells, 0 for sampling only the center of the target area
+     * @return the pattern
+     */
+    static SamplePattern of(int density, int intervals) {
+        if (density <= 0) throw new IllegalArgumentException("The density must be positive");
+        if (intervals < 0) throw new IllegalArgumentException("The number of intervals cannot be negative");
+        return PATTERNS.computeIfAbsent(((long) density << 32) | intervals,
+                key -> new SamplePattern(density, intervals));
+    }
+
+    /**
+     * Returns the index of the last sample along an axis
+     *
+     * @return the number of intervals between the samples
+     */
+    int getLast() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Returns the offset of a sample along an axis
+     *
+     * @param index the index of the sample, between 0 and {@link #getLast()}
+     * @return the offset from the center of the target area, in units of its size
+     */
+    double getOffset(int index) {
+        return offsets[index];
+    }
+}
@@ -1,16 +1,24 @@
 package renderer;
 
+import primitives.Point;
 import primitives.Ray;
 import scene.Scene;
 import primitives.Color;
 import primitives.Double3;
 import primitives.Material;
-import geometries.Intersectable.GeoPoint;
+import primitives.Sampler;
+import geometries.Geometry;
+import geometries.HitRecord;
+import geometries.RayPacket;
+import lighting.AreaLight;
 import lighting.LightSource;
 import primitives.Vector;
 import static primitives.Util.alignZero;
 import static java.lang.Math.*;
-import java.util.List;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
 
 /**
  * A simple ray tracer implementation.
@@ -19,17 +27,17 @@ import java.util.List;
  */
 public class SimpleRayTracer extends RayTracerBase {
     /**
-     * Maximum recursion level for calculating colors considering transparency or reflection.
-     * This constant defines the depth limit to prevent excessive recursion. Adjust this value based on
-     * scene complexity and performance considerations.
+     * Default maximum recursion level for calculating colors considering transparency or reflection.
+     * This constant defines the depth limit to prevent excessive recursion. It can be adjusted for every tracer
+     * based on scene complexity and performance considerations (see {@link #setMaxLevel(int)}).
      */
     private static final int MAX_CALC_COLOR_LEVEL = 10;
 
     /**
-     * Minimum threshold value for the accumulated coefficient of transparency or reflection.
+     * Default minimum threshold value for the accumulated coefficient of transparency or reflection.
      * If the accumulated coefficient falls below this threshold, recursion for transparency or reflection
      * terminates to avoid negligible contributions to the final color.
-     * Adjust this value based on scene specifics and desired precision.
+     * It can be adjusted for every tracer based on scene specifics and desired precision (see {@link #setMinK}).
      */
     private static final double MIN_CALC_COLOR_K = 0.001;
 
@@ -40,6 +48,385 @@ public class SimpleRayTracer extends RayTracerBase {
      */
     private static final Double3 INITIAL_K = Double3.ONE;
 
+    /**
+     * The maximum number of subdivisions of a glossy reflection or blurry refraction cone. The full subdivision
+     * samples the cone by a 9x9 grid of rays.
+     */
+    private static final int MAX_CONE_DEPTH = 3;
+
+    /**
+     * The largest difference of a color component (0-255), as seen in the image, between the samples of a part of
+     * a cone that is not subdivided.
+     */
+    private static final double CONE_COLOR_THRESHOLD = 2;
+
+    /**
+     * The points of the unit square that are sampled first on an area light - its center, then its corners and the
+     * middles of its edges, as (x, y) pairs. They are mapped onto the center and the boundary of the light.
+     */
+    private static final double[] LIGHT_PROBES = { 0.5, 0.5, 0, 0, 0.5, 0, 1, 0, 1, 0.5, 1, 1, 0.5, 1, 0, 1, 0, 0.5 };
+
+    /**
+     * Stops the search for the intersections of a shadow ray with an occluder at the first one
+     */
+    private static final Predicate<HitRecord> OCCLUDED = hit -> false;
+
+    /**
+     * The distance of the target area of a cone from the intersection point - the size of a cone (kG or kB) is its
+     * width at this distance.
+     */
+    private static final double CONE_DISTANCE = 100;
+
+    /**
+     * The samples of a fully subdivided cone: a 9x9 grid, shared by all the cones.
+     */
+    private static final SamplePattern CONE_PATTERN = SamplePattern.of(9, 1 << MAX_CONE_DEPTH);
+
+    /**
+     * The maximum recursion level of this tracer
+     */
+    private int maxLevel = MAX_CALC_COLOR_LEVEL;
+
+    /**
+     * The minimum accumulated coefficient of this tracer, below which the recursion terminates
+     */
+    private double minK = MIN_CALC_COLOR_K;
+
+    /**
+     * The accumulated coefficient below which the recursion is terminated by Russian roulette, 0 for no Russian
+     * roulette
+     */
+    private double rouletteK = 0;
+
+    /**
+     * The hit records of every rendering thread, reused for all the rays the thread traces.
+     */
+    private ThreadLocal<HitRecords> hitRecords = ThreadLocal.withInitial(() -> new HitRecords(maxLevel));
+
+    /**
+     * The number of shadow rays cast by this tracer, counted without the rendering threads contending on a lock
+     */
+    private final LongAdder shadowRays = new LongAdder();
+
+    /**
+     * The number of shadow rays that were blocked by the cached occluder of their light
+     */
+    private final LongAdder occluderHits = new LongAdder();
+
+    /**
+     * The last opaque geometry that blocked the shadow rays of a light in a thread. Neighboring pixels are
+     * usually in the shadow of the same geometry, so it is tested first, before the whole scene.
+     */
+    private static class Occluder {
+        /** The occluding geometry, null if none was found yet */
+        Geometry geometry;
+        /** The index of the occluding primitive within the geometry, -1 for the whole geometry */
+        int primitive = -1;
+    }
+
+    /**
+     * The reusable hit records of a single thread: one for every recursion level, and one for the shadow rays. Along
+     * with them, the work stack of the rays of global effects waiting to be traced by the thread.
+     */
+    private static class HitRecords {
+        /** The hit records of the recursion levels, indexed by the level */
+        final HitRecord[] levels;
+        /** The hit record of the shadow rays */
+        final HitRecord shadow = new HitRecord();
+        /** The rays of global effects waiting to be traced */
+        final WorkStack stack = new WorkStack();
+        /** The buffers of the sampled points of the cones of the recursion levels, indexed by the level */
+        final double[][] samples;
+        /** The buffer of the sampled points of an area light */
+        double[] lightSamples;
+        /** The packet of the rays traced together, created the first time the thread traces a batch */
+        RayPacket packet;
+        /** The transparency accumulated along the current shadow ray */
+        Double3 ktr;
+        /** The last occluders of the lights, indexed by the light's position in the scene */
+        Occluder[] occluders = new Occluder[0];
+        /** Accumulates the transparency of the geometries crossed by the shadow ray */
+        final Predicate<HitRecord> shadowVisitor = hit -> {
+            ktr = ktr.product(hit.geometry.getMaterial(hit).kT);
+            // An opaque geometry blocks the light completely - no need to look for more geometries
+            return !ktr.equals(Double3.ZERO);
+        };
+
+        /**
+         * Constructs the hit records of a thread
+         *
+         * @param maxLevel the maximum recursion level
+         */
+        HitRecords(int maxLevel) {
+            levels = new HitRecord[maxLevel + 1];
+            samples = new double[maxLevel + 1][];
+            for (int i = 0; i < levels.length; ++i) levels[i] = new HitRecord();
+        }
+
+        /**
+         * Returns the buffer of the sampled points of a recursion level, large enough for a density
+         *
+         * @param level   the recursion level
+         * @param density the number of points along an axis
+         * @return the buffer
+         */
+        double[] samples(int level, int density) {
+            int length = 2 * density * density;
+            if (samples[level] == null || samples[level].length < length) samples[level] = new double[length];
+            return samples[level];
+        }
+
+        /**
+         * Returns the last occluder of a light, creating it the first time it is asked for
+         *
+         * @param light the position of the light in the scene
+         * @return the last occluder
+         */
+        Occluder occluder(int light) {
+            if (light >= occluders.length) occluders = Arrays.copyOf(occluders, light + 1);
+            if (occluders[light] == null) occluders[light] = new Occluder();
+            return occluders[light];
+        }
+
+        /**
+         * Returns the buffer of the sampled points of an area light, large enough for a density
+         *
+         * @param density the number of points along an axis
+         * @return the buffer
+         */
+        double[] lightSamples(int density) {
+            int length = 2 * density * density;
+            if (lightSamples == null || lightSamples.length < length) lightSamples = new double[length];
+            return lightSamples;
+        }
+
+        /**
+         * Returns the packet of the thread loaded with rays
+         *
+         * @param rays  the rays
+         * @param from  the index of the first ray to load
+         * @param count the number of rays, up to {@link RayPacket#MAX_SIZE}
+         * @return the packet
+         */
+        RayPacket packet(Ray[] rays, int from, int count) {
+            if (packet == null) packet = new RayPacket(RayPacket.MAX_SIZE);
+            return packet.reset(rays, from, count);
+        }
+    }
+
+    /**
+     * The rays of global effects waiting to be traced by a thread. Every ray has two weights in the color it is
+     * accumulated into: the weight of the color of its intersection, and the weight of the background if it misses.
+     * The weights are the products of the coefficients along the ray's path, divided by the number of rays of the
+     * cones along it. The color is the color of the primary ray, or of a sample of an adaptive cone.
+     * <p>
+     * An adaptive cone can't go on before the colors of its samples are known, so it pushes a {@link Join} below
+     * the rays of its samples, and the join goes on with the cone once they are traced. The entries are kept in
+     * parallel arrays, grown when needed and reused for all the rays the thread traces, so tracing the whole tree of
+     * reflections and refractions of a primary ray needs neither a deep Java stack nor a list and a color for every
+     * level.
+     */
+    private static final class WorkStack {
+        /** The initial number of entries */
+        private static final int INITIAL_CAPACITY = 64;
+
+        /** The rays, null for a join */
+        Ray[] rays = new Ray[INITIAL_CAPACITY];
+        /** The joins, null for a ray */
+        Join[] joins = new Join[INITIAL_CAPACITY];
+        /** The accumulated coefficients of the rays, including the coefficients of their effects */
+        Double3[] ks = new Double3[INITIAL_CAPACITY];
+        /** The recursion levels of the rays */
+        int[] levels = new int[INITIAL_CAPACITY];
+        /** The weights of the rays, 6 for every ray: red, green and blue of the background and of the intersection */
+        double[] weights = new double[6 * INITIAL_CAPACITY];
+        /** The arrays of the colors the rays are accumulated into */
+        double[][] targets = new double[INITIAL_CAPACITY][];
+        /** The positions of the red components of the colors in their arrays */
+        int[] offsets = new int[INITIAL_CAPACITY];
+        /** The color of the primary ray being traced */
+        final double[] primary = new double[3];
+        /** The number of entries in the stack */
+        int size = 0;
+        /** The samples of the adaptive cones being subdivided, reused by the following cones */
+        private ConeGrid[] grids = new ConeGrid[0];
+        /** The number of adaptive cones being subdivided */
+        private int gridCount = 0;
+
+        /**
+         * Pushes a ray to the stack, its weights and color are set later by {@link #setWeights}
+         *
+         * @param ray   the ray
+         * @param k     the accumulated coefficient of the ray, including the coefficient of its effect
+         * @param level the recursion level of the ray
+         */
+        void push(Ray ray, Double3 k, int level) {
+            if (size == rays.length) grow();
+            rays[size] = ray;
+            ks[size] = k;
+            levels[size] = level;
+            ++size;
+        }
+
+        /**
+         * Pushes a join to the stack, to be run when the entries pushed after it are done
+         *
+         * @param join the join
+         */
+        void push(Join join) {
+            if (size == rays.length) grow();
+            joins[size] = join;
+            ++size;
+        }
+
+        /**
+         * Takes the samples of an adaptive cone, cleared. The cones are done in the reverse order of their start, so
+         * the samples are released in the reverse order they are taken.
+         *
+         * @return the samples
+         */
+        ConeGrid takeGrid() {
+            if (gridCount == grids.length) grids = Arrays.copyOf(grids, gridCount + 1);
+            if (grids[gridCount] == null) grids[gridCount] = new ConeGrid();
+            ConeGrid grid = grids[gridCount++];
+            Arrays.fill(grid.colors, null);
+            Arrays.fill(grid.traced, false);
+            return grid;
+        }
+
+        /**
+         * Releases the samples of the adaptive cone taken last
+         */
+        void releaseGrid() {
+            --gridCount;
+        }
+
+        /**
+         * Doubles the capacity of the stack
+         */
+        private void grow() {
+            int capacity = 2 * size;
+            rays = Arrays.copyOf(rays, capacity);
+            joins = Arrays.copyOf(joins, capacity);
+            ks = Arrays.copyOf(ks, capacity);
+            levels = Arrays.copyOf(levels, capacity);
+            weights = Arrays.copyOf(weights, 6 * capacity);
+            targets = Arrays.copyOf(targets, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+        }
+
+        /**
+         * Sets the weights of the rays from an entry up to the top of the stack, and the color they are accumulated
+         * into
+         *
+         * @param from   the first entry
+         * @param target the array of the color
+         * @param offset the position of the color's red component in the array
+         * @param bgR    the weight of the red component of the background
+         * @param bgG    the weight of the green component of the background
+         * @param bgB    the weight of the blue component of the background
+         * @param hitR   the weight of the red component of the intersection
+         * @param hitG   the weight of the green component of the intersection
+         * @param hitB   the weight of the blue component of the intersection
+         */
+        void setWeights(int from, double[] target, int offset, double bgR, double bgG, double bgB,
+                        double hitR, double hitG, double hitB) {
+            for (int i = from; i < size; ++i) {
+                targets[i] = target;
+                offsets[i] = offset;
+            }
+            for (int w = 6 * from; w < 6 * size; w += 6) {
+                weights[w] = bgR;
+                weights[w + 1] = bgG;
+                weights[w + 2] = bgB;
+                weights[w + 3] = hitR;
+                weights[w + 4] = hitG;
+                weights[w + 5] = hitB;
+            }
+        }
+    }
+
+    /**
+     * The samples of an adaptive cone: the points of {@link #CONE_PATTERN}, by their indices i * GRID + j
+     */
+    private static final class ConeGrid {
+        /** The number of samples along each axis of the cone */
+        static final int GRID = CONE_PATTERN.getLast() + 1;
+
+        /** The colors of the samples, null if a ray crosses the surface */
+        final Color[] colors = new Color[GRID * GRID];
+        /** Whether the colors of the samples are known */
+        final boolean[] traced = new boolean[GRID * GRID];
+        /** The colors of the samples being traced, accumulated by the work stack, 3 for every sample */
+        final double[] sums = new double[3 * GRID * GRID];
+        /** The samples being traced in the current round */
+        final int[] waiting = new int[GRID * GRID];
+        /** The number of samples being traced in the current round */
+        int waitingCount;
+    }
+
+    /**
+     * A step of the calculation of a color that waits in the work stack for the rays pushed after it to be traced
+     */
+    private interface Join {
+        /**
+         * Goes on with the calculation, the rays pushed after the join are done
+         *
+         * @param stack the work stack of the thread
+         */
+        void resume(WorkStack stack);
+    }
+
+    /**
+     * The color of an intersection that has adaptive cones. Its local color is accumulated, with the average colors
+     * of the cones, into the color of its ray once the cones are done.
+     */
+    private static final class PendingColor implements Join {
+        private final Color local; // The color of the local effects
+        private final double wR, wG, wB; // The weights of the intersection's color
+        private final double[] target; // The array of the color the intersection's color is accumulated into
+        private final int offset; // The position of that color's red component in the array
+        Color refracted = Color.BLACK; // The color of the refraction cone, set when it is done
+        Color reflected = Color.BLACK; // The color of the reflection cone, set when it is done
+
+        /**
+         * Constructs the pending color of an intersection
+         *
+         * @param local  The color of the local effects
+         * @param wR     The weight of the red component of the intersection's color
+         * @param wG     The weight of the green component of the intersection's color
+         * @param wB     The weight of the blue component of the intersection's color
+         * @param target The array of the color the intersection's color is accumulated into
+         * @param offset The position of that color's red component in the array
+         */
+        PendingColor(Color local, double wR, double wG, double wB, double[] target, int offset) {
+            this.local = local;
+            this.wR = wR;
+            this.wG = wG;
+            this.wB = wB;
+            this.target = target;
+            this.offset = offset;
+        }
+
+        @Override
+        public void resume(WorkStack stack) {
+            Color color = local.add(refracted.add(reflected));
+            target[offset] += color.getRed() * wR;
+            target[offset + 1] += color.getGreen() * wG;
+            target[offset + 2] += color.getBlue() * wB;
+        }
+    }
+
+    /**
+     * The sampler of the rays of glossy reflection and blurry refraction cones, null for adaptive subdivision
+     */
+    private Sampler coneSampler = null;
+
+    /**
+     * The number of rays along each axis of a cone sampled by the cone sampler, for a full contribution
+     */
+    private int coneDensity = 0;
+
     /**
      * Constructs a new SimpleRayTracer with the specified scene.
      *
@@ -49,83 +436,224 @@ public class SimpleRayTracer extends RayTracerBase {
         super(scene);
     }
 
+    /**
+     * Sets the maximum recursion level for calculating colors considering transparency or reflection. It should be
+     * set before rendering.
+     *
+     * @param maxLevel The maximum recursion level, 1 for no transparency and reflection at all.
+     * @return The ray tracer itself.
+     */
+    public SimpleRayTracer setMaxLevel(int maxLevel) {
+        if (maxLevel < 1) throw new IllegalArgumentException("Maximum level must be positive");
+        this.maxLevel = maxLevel;
+        hitRecords = ThreadLocal.withInitial(() -> new HitRecords(maxLevel));
+        return this;
+    }
+
+    /**
+     * Sets the minimum threshold value for the accumulated coefficient of transparency or reflection, below which
+     * the recursion terminates (unless Russian roulette is used).
+     *
+     * @param minK The minimum accumulated coefficient.
+     * @return The ray tracer itself.
+     */
+    public SimpleRayTracer setMinK(double minK) {
+        if (minK < 0 || minK >= 1) throw new IllegalArgumentException("Minimum coefficient must be in [0, 1)");
+        this.minK = minK;
+        return this;
+    }
+
+    /**
+     * Sets Russian roulette termination of the recursion. When the accumulated coefficient of a reflection or
+     * refraction falls below the given threshold, its rays are traced only with a probability proportional to the
+     * coefficient, and if they are traced their color is divided by that probability. The rays that contribute
+     * almost nothing are mostly not traced, and yet the expected color stays the same - unlike the minimum
+     * coefficient, which darkens deep reflections. The minimum coefficient is not used with Russian roulette.
+     *
+     * @param threshold The accumulated coefficient below which the roulette is played, 0 for no Russian roulette.
+     * @return The ray tracer itself.
+     */
+    public SimpleRayTracer setRussianRoulette(double threshold) {
+        if (threshold < 0 || threshold > 1)
+            throw new IllegalArgumentException("Russian roulette threshold must be in [0, 1]");
+        this.rouletteK = threshold;
+        return this;
+    }
+
+    /**
+     * Sets a sampler for the glossy reflection and blurry refraction cones. Instead of subdividing a cone
+     * adaptively, a number of rays spread over the cone by the sampler are traced - fewer as the accumulated
+     * coefficient shrinks.
+     *
+     *
+     * @param sampler The sampler of the rays of a cone, null for adaptive subdivision.
+     * @param density The number of rays along each axis of a cone, for a full contribution.
+     * @return The ray tracer itself.
+     */
+    public SimpleRayTracer setConeSampler(Sampler sampler, int density) {
+        if (sampler != null && density <= 0) throw new IllegalArgumentException("Cone density must be positive");
+        this.coneSampler = sampler;
+        this.coneDensity = density;
+        return this;
+    }
+
     /**
      * Traces a ray in the scene and returns the color of the closest intersection point.
+     * The colors of the reflections and refractions of the intersection are accumulated iteratively, by the work
+     * stack of the thread.
      *
      * @param ray The ray to trace.
      * @return The color of the closest intersection point, or the background color if no intersections are found.
      */
     @Override
     public Color traceRay(Ray ray) {
-        GeoPoint closestPoint = findClosestIntersection(ray);
-        return closestPoint == null ? scene.background : calcColor(closestPoint, ray);
+        HitRecord hit = findClosestIntersection(ray, maxLevel);
+        return hit == null ? scene.background : calcPrimaryColor(hit, ray);
     }
 
     /**
-     * Calculates the color at a given geometric point considering ambient light, emission from the geometry,
-     * and local lighting effects.
-     * This method uses recursive ray tracing to handle transparency and reflection up to a specified recursion level.
+     * Traces a batch of rays in the scene as packets: the primary rays of a packet are intersected with the
+     * geometries together, and the colors of their intersections are calculated one by one, as by
+     * {@link #traceRay(Ray)}.
      *
-     * @param gp  The geometric point at which to calculate the color.
-     * @param ray The ray that intersected with the geometry at the geometric point.
-     * @return The calculated color at the geometric point, taking into account ambient light, emission,
-     * local lighting effects (diffuse and specular reflections), and recursive effects of transparency or reflection.
+     * @param rays   The rays to trace.
+     * @param count  The number of rays in the batch.
+     * @param colors The buffer that receives the colors of the rays.
      */
-    private Color calcColor(GeoPoint gp, Ray ray) {
-        // Calculate the color at the intersection point using recursive ray tracing
-        return calcColor(gp, ray, MAX_CALC_COLOR_LEVEL, INITIAL_K).add(scene.ambientLight.getIntensity());
+    @Override
+    public void traceRays(Ray[] rays, int count, Color[] colors) {
+        HitRecords records = hitRecords.get();
+        for (int first = 0; first < count; first += RayPacket.MAX_SIZE) {
+            int size = min(RayPacket.MAX_SIZE, count - first);
+            RayPacket packet = records.packet(rays, first, size);
+            scene.geometries.intersect(packet);
+            for (int lane = 0; lane < size; ++lane) {
+                HitRecord hit = packet.getHit(lane);
+                colors[first + lane] = hit.isFound() ? calcPrimaryColor(hit, hit.ray) : scene.background;
+            }
+        }
+    }
+
+    /**
+     * Calculates the color of the closest intersection of a primary ray, with its global effects and the ambient
+     * light of the scene
+     *
+     * @param hit The hit record of the intersection.
+     * @param ray The primary ray.
+     * @return The color of the intersection.
+     */
+    private Color calcPrimaryColor(HitRecord hit, Ray ray) {
+        WorkStack stack = hitRecords.get().stack;
+        double[] color = stack.primary;
+        Arrays.fill(color, 0);
+        calcColor(hit, ray, maxLevel, INITIAL_K, 1, 1, 1, color, 0, stack);
+        traceStack(stack);
+        return new Color(color[0], color[1], color[2]).add(scene.ambientLight.getIntensity());
+    }
+
+    /**
+     * Traces the rays of the work stack until it is empty, and accumulates their weighted colors. The rays of the
+     * global effects of every intersection are pushed to the stack in turn, and the joins of the adaptive cones go
+     * on with their cones.
+     *
+     * @param stack The work stack of the thread.
+     */
+    private void traceStack(WorkStack stack) {
+        Color background = scene.background;
+        while (stack.size > 0) {
+            // Pop an entry, reading it before the rays of its global effects overwrite it
+            int i = --stack.size;
+            Join join = stack.joins[i];
+            if (join != null) {
+                stack.joins[i] = null;
+                join.resume(stack);
+                continue;
+            }
+            Ray ray = stack.rays[i];
+            Double3 k = stack.ks[i];
+            int level = stack.levels[i];
+            double[] target = stack.targets[i];
+            int offset = stack.offsets[i];
+            double[] weights = stack.weights;
+            int w = 6 * i;
+            stack.rays[i] = null;
+            stack.ks[i] = null;
+            stack.targets[i] = null;
+
+            HitRecord hit = findClosestIntersection(ray, level);
+            if (hit == null) {
+                target[offset] += background.getRed() * weights[w];
+                target[offset + 1] += background.getGreen() * weights[w + 1];
+                target[offset + 2] += background.getBlue() * weights[w + 2];
+            } else calcColor(hit, ray, level, k, weights[w + 3], weights[w + 4], weights[w + 5], target, offset,
+                    stack);
+        }
     }
 
     /**
      * Calculates the color at a given geometric intersection point considering local lighting effects and potentially
-     * global effects such as transparency or reflection.
+     * global effects such as transparency or reflection, and accumulates it into the color of its ray. The rays of
+     * the global effects are pushed to the work stack. If the intersection has adaptive cones, its color is pushed
+     * below them and accumulated when they are done.
      *
-     * @param gp     The geometric point at which to calculate the color.
+     * @param hit    The hit record of the intersection at which to calculate the color.
      * @param ray    The ray that intersected with the geometry at the intersection point.
      * @param level  The current recursion level for handling transparency or reflection effects.
      * @param k      The accumulated coefficient (e.g., transparency or reflection coefficient) up to the current
      *              recursion level.
-     * @return The calculated color at the intersection point, considering local lighting effects and global effects up
-     * to the specified recursion level.
+     * @param wR     The weight of the red component of the intersection's color.
+     * @param wG     The weight of the green component of the intersection's color.
+     * @param wB     The weight of the blue component of the intersection's color.
+     * @param target The array of the color the intersection's color is accumulated into.
+     * @param offset The position of that color's red component in the array.
+     * @param stack  The work stack of the thread.
      */
-    private Color calcColor(GeoPoint gp, Ray ray, int level, Double3 k) {
-        Color color = calcLocalEffects(gp, ray, k);
-        // If the recursion level is 1 , return the calculated color
-        return level == 1 ? color : color.add(calcGlobalEffects(gp, ray, level, k));
+    private void calcColor(HitRecord hit, Ray ray, int level, Double3 k, double wR, double wG, double wB,
+                           double[] target, int offset, WorkStack stack) {
+        Color color = calcLocalEffects(hit, ray, k);
+        // If the recursion level is 1 , there are no global effects
+        if (level == 1 || !calcGlobalEffects(hit, ray, level, k, color, wR, wG, wB, target, offset, stack)) {
+            target[offset] += color.getRed() * wR;
+            target[offset + 1] += color.getGreen() * wG;
+            target[offset + 2] += color.getBlue() * wB;
+        }
     }
 
     /**
      * Constructs a reflected ray based on the intersection point and incoming ray.
      * The reflection ray moves in the direction opposite to the normal vector at the intersection point.
      *
-     * @param gp  The geometric point of intersection.
+     * @param hit The hit record of the intersection.
      * @param v   The direction vector of the incoming ray.
      * @param n   The normal vector at the intersection point.
      * @return The reflected ray originating from the intersection point.
      */
-    private Ray constructReflectedRay(GeoPoint gp, Vector v, Vector n) {
+    private Ray constructReflectedRay(HitRecord hit, Vector v, Vector n) {
         // Calculate the reflection vector
         double nv = n.dotProduct(v);
         // If the normal and the view direction are orthogonal, there is no reflection
         if (nv == 0) return null;
 
-        // Calculate the reflection vector
-        Vector vec = v.subtract(n.scale(2 * nv));
-        return new Ray(gp.point, vec, n);
+        // Calculate the reflection vector v - 2 * nv * n, in doubles
+        double nv2 = 2 * nv;
+        // The reflection of a unit vector is a unit vector
+        Vector vec = Vector.ofNonZero(v.getX() - n.getX() * nv2, v.getY() - n.getY() * nv2,
+                v.getZ() - n.getZ() * nv2);
+        return new Ray(hit.getPoint(), vec, n);
     }
 
     /**
      * Constructs a refracted ray based on the intersection point and incoming ray.
      * The refraction ray is determined by Snell's law, considering the refractive indices of the materials involved.
      *
-     * @param gp  The geometric point of intersection.
+     * @param hit The hit record of the intersection.
      * @param v   The direction vector of the incoming ray.
      * @param n   The normal vector at the intersection point.
      * @return The refracted ray originating from the intersection point.
      */
-    private Ray constructRefractedRay(GeoPoint gp, Vector v, Vector n) {
+    private Ray constructRefractedRay(HitRecord hit, Vector v, Vector n) {
         // Calculate the refractive index ratio
-        return new Ray(gp.point, v, n);
+        return new Ray(hit.getPoint(), v, n);
     }
 
 //    /**
@@ -146,233 +674,620 @@ public class SimpleRayTracer extends RayTracerBase {
 //    }
 
     /**
-     * Calculates the combined global effects (such as reflection and refraction) at a given geometric point using recursive ray tracing.
+     * Calculates the combined global effects (such as reflection and refraction) at a given geometric point. The
+     * rays of single reflections and refractions and of a cone sampler are pushed to the work stack. The adaptive
+     * cones are started above the pending color of the intersection, which receives their average colors.
      *
-     * @param gp     The geometric point at which to calculate global effects.
+     * @param hit    The hit record of the intersection at which to calculate global effects.
      * @param ray    The view direction vector.
      * @param level  The current recursion level for handling transparency or reflection effects.
      * @param k      The accumulated coefficient (e.g., reflection coefficient kR or transparency coefficient kT).
-     * @return The calculated color representing combined global effects at the geometric point.
+     * @param color  The color of the local effects at the intersection.
+     * @param wR     The weight of the red component of the intersection's color.
+     * @param wG     The weight of the green component of the intersection's color.
+     * @param wB     The weight of the blue component of the intersection's color.
+     * @param target The array of the color the intersection's color is accumulated into.
+     * @param offset The position of that color's red component in the array.
+     * @param stack  The work stack of the thread.
+     * @return true if the intersection's color is pending in the work stack, false if it is to be accumulated now
      */
-
-    private Color calcGlobalEffects(GeoPoint gp, Ray ray, int level, Double3 k) {
+    private boolean calcGlobalEffects(HitRecord hit, Ray ray, int level, Double3 k, Color color,
+                                      double wR, double wG, double wB, double[] target, int offset,
+                                      WorkStack stack) {
         // Get the material of the geometry at the intersection point
-        Material material = gp.geometry.getMaterial();
+        Material material = hit.geometry.getMaterial(hit);
         // Get the direction vector of the incoming ray
         Vector v = ray.getDirection();
         // Get the normal vector at the intersection point
-        Vector n = gp.geometry.getNormal(gp.point);
+        Vector n = hit.getNormal();
 
-        // Construct refracted and reflected rays based on the intersection point, view direction, and normal vector
-        List<Ray> refractedRays = constructRefractedRays(gp, v, n, material.kB);
-        List<Ray> reflectedRays = constructReflectedRays(gp, v, n, material.kG);
+        // Sample the cones of the refracted and reflected rays, blurred and glossed according to the material
+        ConeSampler refracted = calcGlobalEffect(constructRefractedRay(hit, v, n), n, material.kB, level, k,
+                material.kT, wR, wG, wB, target, offset, stack);
+        ConeSampler reflected = calcGlobalEffect(constructReflectedRay(hit, v, n), n, material.kG, level, k,
+                material.kR, wR, wG, wB, target, offset, stack);
+        if (refracted == null && reflected == null) return false;
 
-        // Calculate the average color for the refracted and reflected rays
-        Color refractedColor = calcAverageColor(refractedRays, level, k, material.kT);
-        Color reflectedColor = calcAverageColor(reflectedRays, level, k, material.kR);
-
-        // Return the sum of the refracted and reflected colors
-        return refractedColor.add(reflectedColor);
-    }
-
-
-    /**
-     * Calculates the global effect (reflection or refraction) for a given ray and coefficient.
-     *
-     * @param ray    The ray to trace for the global effect.
-     * @param kx     The coefficient for the specific effect being calculated (kR for reflection, kT for refraction).
-     * @param level  The current recursion level for handling transparency or reflection effects.
-     * @param k      The accumulated coefficient (e.g., reflection coefficient kR or transparency coefficient kT).
-     * @return The calculated color representing the global effect for the given ray and coefficient.
-     */
-    private Color calcGlobalEffect(Ray ray, Double3 kx, int level, Double3 k) {
-        Double3 kkx = k.product(kx);
-        if (kkx.lowerThan(MIN_CALC_COLOR_K))
-            return Color.BLACK; // Return no contribution if the combined coefficient is too small
-
-        GeoPoint gp = findClosestIntersection(ray);
-        return gp == null ? scene.background // If no intersection found, return background color
-                // Recursively calculate color with scaled coefficient
-                : calcColor(gp, ray, level - 1, kkx).scale(kx);
+        // The color of the intersection waits below the adaptive cones, above the rays of its other effects
+        PendingColor pending = new PendingColor(color, wR, wG, wB, target, offset);
+        stack.push(pending);
+        if (refracted != null) refracted.start(pending, false, stack);
+        if (reflected != null) reflected.start(pending, true, stack);
+        return true;
     }
 
     /**
      * Finds the closest intersection point of a ray with the geometries in the scene.
      *
-     * @param ray The ray for which to find the closest intersection.
-     * @return The closest intersection point (GeoPoint) of the ray with the geometries, or null if no intersections are found.
+     * The intersection is recorded in the current thread's hit record of the recursion level.
+     *
+     * @param ray   The ray for which to find the closest intersection.
+     * @param level The recursion level the intersection is found for.
+     * @return The hit record of the closest intersection of the ray with the geometries, or null if no intersections
+     * are found.
      */
-    private GeoPoint findClosestIntersection(Ray ray) {
-        return ray.findClosestGeoPoint(scene.geometries.findGeoIntersections(ray));
+    private HitRecord findClosestIntersection(Ray ray, int level) {
+        HitRecord hit = hitRecords.get().levels[level].reset(ray, Double.POSITIVE_INFINITY);
+        scene.geometries.intersect(hit);
+        return hit.isFound() ? hit : null;
     }
 
     /**
      * Calculates the local effects (diffuse and specular reflections) of light on a given geometry point.
      * This method considers the contribution of each light source in the scene.
      *
-     * @param gp  The geometric point on which to calculate the local effects.
+     * @param hit The hit record of the intersection on which to calculate the local effects.
      * @param ray The ray used to intersect with the geometry.
      * @param k   The accumulated coefficient up to the current recursion level.
      * @return The color resulting from local lighting effects, or the emission color if there is no interaction.
      */
-    private Color calcLocalEffects(GeoPoint gp, Ray ray, Double3 k) {
-        Vector n = gp.geometry.getNormal(gp.point);
+    private Color calcLocalEffects(HitRecord hit, Ray ray, Double3 k) {
+        Vector n = hit.getNormal();
         Vector v = ray.getDirection();
         double nv = alignZero(n.dotProduct(v));
-        Color color = gp.geometry.getEmission();
+        Color color = hit.geometry.getEmission(hit);
         if (nv == 0)
             return color;
 
-        Material material = gp.geometry.getMaterial();
+        Material material = hit.geometry.getMaterial(hit);
+        Point point = hit.getPoint();
+        HitRecords records = hitRecords.get();
+        // The contributions of the lights are accumulated in doubles, with no intermediate colors
+        double r = color.getRed(), g = color.getGreen(), b = color.getBlue();
+        int light = 0;
         for (LightSource lightSource : scene.lights) {
-            Vector l = lightSource.getL(gp.point);
+            Occluder occluder = records.occluder(light++);
+            Vector l = lightSource.getL(point);
             double nl = alignZero(n.dotProduct(l));
             if (nl * nv > 0) {
-                Double3 ktr = transparency(gp, lightSource, l, n);
-                if (ktr.product(k).greaterThan(MIN_CALC_COLOR_K)) {
-                    Color iL = lightSource.getIntensity(gp.point).scale(ktr);
-                    color = color.add(iL.scale(calcDiffusive(material, nl).add(calcSpecular(material, n, l, nl, v))));
+                Double3 ktr = lightSource instanceof AreaLight area && area.getDensity() > 1
+                        ? transparency(point, area, n, nl, occluder)
+                        : transparency(hit, lightSource, l, n, occluder);
+                double ktrR = ktr.getD1(), ktrG = ktr.getD2(), ktrB = ktr.getD3();
+                if (ktrR * k.getD1() > minK && ktrG * k.getD2() > minK && ktrB * k.getD3() > minK) {
+                    Color iL = lightSource.getIntensity(point);
+                    double diffusive = abs(nl);
+                    double specular = calcSpecular(material, n, l, nl, v);
+                    r += iL.getRed() * ktrR * (material.kD.getD1() * diffusive + material.kS.getD1() * specular);
+                    g += iL.getGreen() * ktrG * (material.kD.getD2() * diffusive + material.kS.getD2() * specular);
+                    b += iL.getBlue() * ktrB * (material.kD.getD3() * diffusive + material.kS.getD3() * specular);
                 }
             }
         }
-        return color;
+        return new Color(r, g, b);
     }
 
     /**
      * Calculates the transparency coefficient for a given geometry point, light source, light direction vector, and normal vector.
      *
-     * @param gp  The geometric point at which to calculate transparency.
+     * @param hit The hit record of the intersection at which to calculate transparency.
      * @param ls  The light source affecting the geometric point.
      * @param l   The direction vector from the light source to the geometric point.
      * @param n   The normal vector at the geometric point.
+     * @param occluder The last occluder of the light source in the current thread.
      * @return The transparency coefficient for the given geometry point and light source.
      */
-    private Double3 transparency(GeoPoint gp, LightSource ls, Vector l, Vector n) {
-        // Create a ray from the geometric point to the light source
-        Vector lDir = l.scale(-1);
-        // Create a ray from the geometric point to the light source
-        Ray lR = new Ray(gp.point, lDir, n);
+    private Double3 transparency(HitRecord hit, LightSource ls, Vector l, Vector n, Occluder occluder) {
+        Point point = hit.getPoint();
+        // Only the geometries between the point and the light source can block the light
+        return transparency(point, l.scale(-1), n, ls.getDistance(point), occluder);
+    }
+
+    /**
+     * Calculates the transparency coefficient of an area light at a geometry point, by shadow rays to points spread
+     * over the light. The center and the boundary of the light are probed first: if all of them are fully lit or
+     * fully occluded, all of the light is taken to be so too - which is the case in most of the image, out of the
+     * penumbra - and no more rays are cast. Otherwise, the transparency is the average of the samples of the
+     * light's sampler.
+     * <p>
+     * The probes are a heuristic: an occluder whose shadow on the light falls between them, missing both the center
+     * and the boundary (e.g. a thin rod or a small ball off the axis of the light), is not seen at all, and the point
+     * is taken as fully lit. Scenes with such occluders need lights of a small extent relative to the occluders.
+     *
+     * @param point The geometric point.
+     * @param light The area light.
+     * @param n     The normal vector at the geometric point.
+     * @param nl    The dot product of the normal vector and the direction from the light's center to the point.
+     * @param occluder The last occluder of the light in the current thread.
+     * @return The transparency coefficient for the given geometry point and light source.
+     */
+    private Double3 transparency(Point point, AreaLight light, Vector n, double nl, Occluder occluder) {
+        Double3 probed = null;
+        for (int p = 0; p < LIGHT_PROBES.length; p += 2) {
+            Double3 ktr = transparency(point, n, nl, light.getSample(LIGHT_PROBES[p], LIGHT_PROBES[p + 1]), occluder);
+            if (probed == null) probed = ktr;
+            else if (!ktr.equals(probed)) {
+                probed = null;
+                break;
+            }
+        }
+        if (probed != null && (probed.equals(Double3.ONE) || probed.equals(Double3.ZERO))) return probed;
 
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(lR);
-        if (intersections == null)
-            // If no intersections found, return full transparency
-            return Double3.ONE;
+        // The point is in the penumbra - sample all of the light
+        int density = light.getDensity();
+        double[] points = hitRecords.get().lightSamples(density);
+        light.getSampler().sample(density, points);
+        double r = 0, g = 0, b = 0;
+        for (int p = 0; p < 2 * density * density; p += 2) {
+            Double3 ktr = transparency(point, n, nl, light.getSample(points[p], points[p + 1]), occluder);
+            r += ktr.getD1();
+            g += ktr.getD2();
+            b += ktr.getD3();
+        }
+        int count = density * density;
+        return new Double3(r / count, g / count, b / count);
+    }
 
-        Double3 ktr = Double3.ONE;
-        double distanceToLight = ls.getDistance(gp.point);
+    /**
+     * Calculates the transparency coefficient between a geometry point and a point of an area light.
+     *
+     * @param point  The geometric point.
+     * @param n      The normal vector at the geometric point.
+     * @param nl     The dot product of the normal vector and the direction from the light's center to the point.
+     * @param sample The point of the light.
+     * @param occluder The last occluder of the light in the current thread.
+     * @return The transparency coefficient, zero if the point of the light is behind the surface.
+     */
+    private Double3 transparency(Point point, Vector n, double nl, Point sample, Occluder occluder) {
+        if (sample.equals(point)) return Double3.ONE;
+        Vector toLight = sample.subtract(point);
+        // The surface itself hides the points of the light that are behind it
+        if (alignZero(n.dotProduct(toLight)) * nl >= 0) return Double3.ZERO;
+        return transparency(point, toLight, n, toLight.length(), occluder);
+    }
 
-        // Check if the intersection point is behind the light source
-        for (GeoPoint intersectionPoint : intersections) {
-            if (alignZero(intersectionPoint.point.distance(gp.point) - distanceToLight) <= 0) {
-                ktr = ktr.product(intersectionPoint.geometry.getMaterial().kT);
+    /**
+     * Calculates the transparency coefficient along a shadow ray from a geometry point towards a light. The last
+     * occluder of the light is tested first: if it blocks the ray, the light is fully occluded and the scene is not
+     * searched at all. Otherwise, the last opaque geometry that blocks the ray in the scene becomes the occluder.
+     *
+     * @param point    The geometric point.
+     * @param lDir     The direction from the geometric point to the light.
+     * @param n        The normal vector at the geometric point.
+     * @param distance The distance from the geometric point to the light.
+     * @param occluder The last occluder of the light in the current thread.
+     * @return The transparency coefficient of the geometries between the point and the light.
+     */
+    private Double3 transparency(Point point, Vector lDir, Vector n, double distance, Occluder occluder) {
+        // Create a ray from the geometric point to the light source
+        Ray lR = new Ray(point, lDir, n);
+        shadowRays.increment();
 
-                // If the accumulated coefficient falls below the threshold, terminate the calculation
-                if (ktr.equals(Double3.ZERO))
-                    break;
-            }
+        HitRecords records = hitRecords.get();
+        // The cached occluder stops the search at its first intersection within the distance
+        if (occluder.geometry != null
+                && !occluder.geometry.intersect(records.shadow.reset(lR, distance, OCCLUDED), occluder.primitive)) {
+            occluderHits.increment();
+            return Double3.ZERO;
+        }
+
+        // The shadow visitor of the thread accumulates the transparency coefficient of the crossed geometries
+        records.ktr = Double3.ONE;
+        scene.geometries.intersect(records.shadow.reset(lR, distance, records.shadowVisitor));
+        // An opaque geometry that stopped the search is the occluder of the next shadow rays
+        if (records.shadow.isFound() && records.shadow.geometry.getMaterial(records.shadow).kT.equals(Double3.ZERO)
+                && records.ktr.equals(Double3.ZERO)) {
+            occluder.geometry = records.shadow.geometry;
+            occluder.primitive = records.shadow.primitive;
         }
         // Return the accumulated transparency coefficient
-        return ktr;
+        return records.ktr;
     }
 
     /**
-     * Calculates the diffuse reflection component based on the material properties and the cosine of the angle between the normal vector and the light direction vector.
+     * Returns the number of shadow rays cast by this tracer.
      *
-     * @param material The material of the geometry.
-     * @param nl       The dot product of the normal vector and the light direction vector.
-     * @return The diffuse reflection color component.
+     * @return The number of shadow rays.
+     */
+    public long getShadowRays() {
+        return shadowRays.sum();
+    }
+
+    /**
+     * Returns the number of shadow rays that were blocked by the last occluder of their light, without searching
+     * the scene.
+     *
+     * @return The number of hits of the occluder cache.
      */
-    private Double3 calcDiffusive(Material material, double nl) {
-        return material.kD.scale(abs(nl));
+    public long getOccluderHits() {
+        return occluderHits.sum();
     }
 
     /**
-     * Calculates the specular reflection component based on the material properties, the normal vector, light direction vector, view direction vector, and the cosine of the angle between the view direction and the reflection direction.
+     * Returns the ratio of the shadow rays that were blocked by the last occluder of their light.
+     *
+     * @return The hit rate of the occluder cache, 0 if no shadow rays were cast.
+     */
+    public double getOccluderHitRate() {
+        long rays = shadowRays.sum();
+        return rays == 0 ? 0 : (double) occluderHits.sum() / rays;
+    }
+
+    /**
+     * Calculates the specular reflection factor based on the material's shininess, the normal vector, light direction vector, view direction vector, and the cosine of the angle between the view direction and the reflection direction.
+     * The reflection vector is calculated in doubles, with no intermediate vectors.
      *
      * @param material The material of the geometry.
      * @param n        The normal vector at the geometric point.
      * @param l        The direction vector from the point to the light source.
      * @param nl       The dot product of the normal vector and the light direction vector.
      * @param v        The view direction vector.
-     * @return The specular reflection color component.
+     * @return The specular reflection factor, to be scaled by the material's kS.
      */
-    private Double3 calcSpecular(Material material, Vector n, Vector l, double nl, Vector v) {
-        // Calculate the reflection vector
-        Vector reflectVector = l.subtract(n.scale(nl * 2));
+    private double calcSpecular(Material material, Vector n, Vector l, double nl, Vector v) {
+        // Calculate the reflection vector l - 2 * nl * n
+        double nl2 = nl * 2;
+        double rx = l.getX() - n.getX() * nl2;
+        double ry = l.getY() - n.getY() * nl2;
+        double rz = l.getZ() - n.getZ() * nl2;
         // Calculate the dot product of the reflection vector and the view direction vector
-        double minusVR = -alignZero(v.dotProduct(reflectVector));
+        double minusVR = -alignZero(v.getX() * rx + v.getY() * ry + v.getZ() * rz);
         // If the dot product is negative, return no contribution , otherwise calculate the specular reflection
-        return minusVR <= 0 ? Double3.ZERO : material.kS.scale(pow(minusVR, material.shininess));
+        return minusVR <= 0 ? 0 : pow(minusVR, material.shininess);
     }
 
     /**
-     * Calculates the average color for a list of rays by accumulating the color for each ray and dividing by the number of rays.
+     * Calculates the global effect (reflection or refraction) of a cone of rays around a reflected or refracted
+     * ray. The cone is sampled adaptively: its corners and center are traced first, and a part of the cone is
+     * subdivided into quarters only as long as the colors of its samples differ. The smaller the accumulated
+     * coefficient is, the less the cone is subdivided - its color hardly changes the image. If a cone sampler is
+     * set, the rays are spread over the cone by it instead, and like a single ray (of a cone of size 0) they are
+     * pushed to the work stack with their weights. Rays of the cone that cross the surface are ignored.
+     * <p>
+     * The subdivision of an adaptive cone depends on the colors of its samples, so the cone is returned to be
+     * started by the caller, and its samples are traced by the work stack too (see {@link ConeSampler#start}).
      *
-     * @param rays  The list of rays for which to calculate the average color.
+     * @param ray   The reflected or refracted ray, the axis of the cone
+     * @param n     The normal vector at the intersection point
+     * @param size  The size of the cone (kG for reflection, kB for refraction), 0 for the single ray
      * @param level The current recursion level for handling transparency or reflection effects.
-     * @param k     The accumulated coefficient (e.g., reflection coefficient kR or transparency coefficient kT).
+     * @param k     The accumulated coefficient up to the current recursion level.
      * @param kx    The coefficient for the specific effect being calculated (kR for reflection, kT for refraction).
-     * @return The average color for the list of rays.
+     * @param wR     The weight of the red component of the intersection's color.
+     * @param wG     The weight of the green component of the intersection's color.
+     * @param wB     The weight of the blue component of the intersection's color.
+     * @param target The array of the color the intersection's color is accumulated into.
+     * @param offset The position of that color's red component in the array.
+     * @param stack  The work stack of the thread.
+     * @return The adaptive cone to start, or null if the rays were pushed to the work stack or there are none
      */
-    private Color calcAverageColor(List<Ray> rays, int level, Double3 k, Double3 kx) {
-        Color color = Color.BLACK;
-        // If the list of rays is empty, return the background color
-        if (rays.isEmpty()) return color;
+    private ConeSampler calcGlobalEffect(Ray ray, Vector n, double size, int level, Double3 k, Double3 kx,
+                                         double wR, double wG, double wB, double[] target, int offset,
+                                         WorkStack stack) {
+        // There is no reflected ray if the ray is parallel to the surface
+        if (ray == null) return null;
 
-        // Calculate the color for each ray, and accumulate the results for averaging
-        for (Ray rT : rays)
-            color = color.add(calcGlobalEffect(rT, kx, level, k));
+        Double3 kkx = k.product(kx);
+        double probability = traceProbability(kkx);
+        // Return no contribution if the combined coefficient is too small
+        if (probability == 0) return null;
+        // A traced ray of Russian roulette stands for the rays that were not traced
+        if (probability < 1) {
+            k = k.scale(1 / probability);
+            kkx = k.product(kx);
+        }
+
+        if (size != 0 && coneSampler == null) {
+            // One subdivision less for every quarter of the coefficient
+            int depth = MAX_CONE_DEPTH + (int) Math.ceil(Math.log(kkx.max()) / Math.log(4));
+            return new ConeSampler(ray, n, size, level, k, kx)
+                    .adaptive(Math.min(MAX_CONE_DEPTH, Math.max(1, depth)), probability);
+        }
 
-        // Return the average color by dividing the accumulated color by the number of rays
-        return color.reduce(rays.size());
+        int from = stack.size;
+        if (size == 0) stack.push(ray, kkx, level - 1);
+        // The number of rays is proportional to the coefficient
+        else new ConeSampler(ray, n, size, level, k, kx)
+                .push(Math.max(1, (int) Math.ceil(coneDensity * Math.sqrt(Math.min(1, kkx.max())))), kkx, stack);
+        int count = stack.size - from;
+        if (count == 0) return null;
+
+        // The weight of the intersection is divided among the rays, and by the probability they are traced with
+        double scale = 1 / probability / count;
+        stack.setWeights(from, target, offset, wR * scale, wG * scale, wB * scale,
+                wR * kx.getD1() * scale, wG * kx.getD2() * scale, wB * kx.getD3() * scale);
+        return null;
     }
 
     /**
-     * Constructs a list of refracted rays based on the intersection point, incoming ray, normal vector, and refraction coefficient.
+     * Decides whether the rays of a reflection or refraction are traced, by the accumulated coefficient: they are
+     * not traced if the coefficient is below the minimum, or - with Russian roulette - they are traced with a
+     * probability proportional to the coefficient if it is below the roulette threshold.
      *
-     * @param gp The geometric point of intersection.
-     * @param v  The direction vector of the incoming ray.
-     * @param n  The normal vector at the intersection point.
-     * @param kB The refraction coefficient for the material.
-     * @return A list of refracted rays based on the intersection point, incoming ray, normal vector, and refraction coefficient.
+     * @param kkx The accumulated coefficient including the effect
+     * @return The probability the rays are traced with, or 0 if they are not traced
      */
-    private List<Ray> constructRefractedRays(GeoPoint gp, Vector v, Vector n, double kB) {
-        // Construct the refracted ray
-        Ray rfRay = constructRefractedRay(gp, v, n);
-        // Calculate the dot product of the refracted ray direction and the normal vector
-        double res = rfRay.getDirection().dotProduct(n);
-
-        // If the refraction coefficient is zero, return the refracted ray only , otherwise construct a grid of rays
-        return kB == 0 ? List.of(rfRay)
-                // Construct a grid of rays based on the refracted ray and refraction coefficient
-                : TargetArea.getBuilder(rfRay, kB).build().constructRayGrid().stream()
-                // Filter the rays based on the dot product of the direction and normal vector
-                .filter(r -> r.getDirection().dotProduct(n) * res > 0).toList();
+    private double traceProbability(Double3 kkx) {
+        if (rouletteK == 0) return kkx.lowerThan(minK) ? 0 : 1;
+        double max = kkx.max();
+        if (max >= rouletteK) return 1;
+        double probability = max / rouletteK;
+        return probability > 0 && ThreadLocalRandom.current().nextDouble() < probability ? probability : 0;
     }
 
     /**
-     * Constructs a list of reflected rays based on the intersection point, incoming ray, normal vector,
-     * and reflection coefficient.
-     *
-     * @param gp The geometric point of intersection.
-     * @param v  The direction vector of the incoming ray.
-     * @param n  The normal vector at the intersection point.
-     * @param kG The reflection coefficient for the material.
-     * @return A list of reflected rays based on the intersection point, incoming ray, normal vector,
-     * and reflection coefficient.
-     */
-    private List<Ray> constructReflectedRays(GeoPoint gp, Vector v, Vector n, double kG) {
-        // Construct the reflected ray
-        Ray rfRay = constructReflectedRay(gp, v, n);
-        // Calculate the dot product of the reflected ray direction and the normal vector in order to filter the rays
-        double res = rfRay.getDirection().dotProduct(n);
-
-        // If the reflection coefficient is zero, return the reflected ray only , otherwise construct a grid of rays
-        return kG == 0 ? List.of(rfRay)
-                // Construct a grid of rays based on the reflected ray and reflection coefficient
-                : TargetArea.getBuilder(rfRay, kG).build().constructRayGrid().stream()
-                // Filter the rays based on the dot product of the direction and normal vector
-                .filter(r -> r.getDirection().dotProduct(n) * res > 0).toList();
+     * Samples a cone of rays around a reflected or refracted ray. The samples of the cone are the points of
+     * {@link #CONE_PATTERN}, given by their indices along the two axes of the cone, transformed into the frame of the
+     * cone's axis.
+     * <p>
+     * An adaptive cone is subdivided in rounds. Every round runs the subdivision from the whole cone, with the
+     * colors of the samples traced so far, and pushes the rays of the samples it still needs to the work stack,
+     * above the cone itself as a join. Once they are traced the join runs the next round, until the cone's color
+     * is known and is handed to the pending color of its intersection.
+     */
+    private final class ConeSampler implements Join {
+        // The color of a sample whose ray is being traced
+        private static final Color WAITING = new Color(0, 0, 0);
+
+        private final Point head; // The head of the rays of the cone
+        private final double toX, toY, toZ; // The direction of the axis, at the distance of the target area
+        private final double upX, upY, upZ; // The up direction of the cone, in units of its size
+        private final double rightX, rightY, rightZ; // The right direction of the cone, in units of its size
+        private final double nX, nY, nZ; // The normal vector at the intersection point
+        private final double side; // The side of the surface the axis of the cone is on
+        private final int level; // The current recursion level
+        private final Double3 k; // The accumulated coefficient up to the current recursion level
+        private final Double3 kx; // The coefficient of the effect
+        private final double threshold; // The largest difference of the colors of samples that are not subdivided
+        private int depth; // The number of subdivisions of an adaptive cone
+        private double probability; // The probability the rays of the cone are traced with
+        private ConeGrid grid; // The samples of an adaptive cone, WAITING while they are traced
+        private PendingColor pending; // The pending color of the intersection, which receives the cone's color
+        private boolean reflection; // Whether the cone is the reflection of the intersection or its refraction
+
+        /**
+         * Constructs a sampler of a cone
+         *
+         * @param ray   The axis of the cone
+         * @param n     The normal vector at the intersection point
+         * @param size  The size of the cone
+         * @param level The current recursion level
+         * @param k     The accumulated coefficient up to the current recursion level
+         * @param kx    The coefficient of the effect
+         */
+        ConeSampler(Ray ray, Vector n, double size, int level, Double3 k, Double3 kx) {
+            Vector vTo = ray.getDirection();
+            Vector vUp = vTo.makePerpendicularVector();
+            Vector vRight = vTo.crossProduct(vUp).normalize();
+            this.head = ray.getHead();
+            this.toX = vTo.getX() * CONE_DISTANCE;
+            this.toY = vTo.getY() * CONE_DISTANCE;
+            this.toZ = vTo.getZ() * CONE_DISTANCE;
+            this.upX = vUp.getX() * size;
+            this.upY = vUp.getY() * size;
+            this.upZ = vUp.getZ() * size;
+            this.rightX = vRight.getX() * size;
+            this.rightY = vRight.getY() * size;
+            this.rightZ = vRight.getZ() * size;
+            this.nX = n.getX();
+            this.nY = n.getY();
+            this.nZ = n.getZ();
+            this.side = vTo.dotProduct(n);
+            this.level = level;
+            this.k = k;
+            this.kx = kx;
+            this.threshold = CONE_COLOR_THRESHOLD / k.max();
+        }
+
+        /**
+         * Prepares the cone for adaptive subdivision
+         *
+         * @param depth       The number of subdivisions, at least 1
+         * @param probability The probability the rays of the cone are traced with
+         * @return The cone itself
+         */
+        ConeSampler adaptive(int depth, double probability) {
+            this.depth = depth;
+            this.probability = probability;
+            return this;
+        }
+
+        /**
+         * Starts the adaptive subdivision of the cone, by its first round
+         *
+         * @param pending    The pending color of the intersection, which receives the cone's color
+         * @param reflection Whether the cone is the reflection of the intersection or its refraction
+         * @param stack      The work stack of the thread
+         */
+        void start(PendingColor pending, boolean reflection, WorkStack stack) {
+            this.pending = pending;
+            this.reflection = reflection;
+            grid = stack.takeGrid();
+            round(stack);
+        }
+
+        @Override
+        public void resume(WorkStack stack) {
+            double[] sums = grid.sums;
+            for (int w = 0; w < grid.waitingCount; ++w) {
+                int sample = grid.waiting[w];
+                grid.colors[sample] = new Color(sums[3 * sample], sums[3 * sample + 1], sums[3 * sample + 2]);
+                grid.traced[sample] = true;
+            }
+            round(stack);
+        }
+
+        /**
+         * Runs a round of the subdivision. If samples are missing, their rays are pushed above the cone's join,
+         * otherwise the join is removed and the cone's color is handed to the pending color.
+         *
+         * @param stack The work stack of the thread
+         */
+        private void round(WorkStack stack) {
+            stack.push(this);
+            grid.waitingCount = 0;
+            Color color = sample(0, 0, CONE_PATTERN.getLast(), depth, stack);
+            if (grid.waitingCount > 0) return;
+
+            stack.joins[--stack.size] = null;
+            stack.releaseGrid();
+            grid = null;
+            if (color == null) color = Color.BLACK;
+            else if (probability < 1) color = color.scale(1 / probability);
+            if (reflection) pending.reflected = color;
+            else pending.refracted = color;
+        }
+
+        /**
+         * Returns the color of a sample of the cone, pushing its ray to the work stack the first time it is asked
+         * for
+         *
+         * @param i     The index of the sample along the right direction
+         * @param j     The index of the sample along the down direction
+         * @param stack The work stack of the thread
+         * @return The color of the sample, null if its ray crosses the surface, or WAITING if it is being traced
+         */
+        private Color trace(int i, int j, WorkStack stack) {
+            int sample = i * ConeGrid.GRID + j;
+            if (grid.traced[sample] || grid.colors[sample] == WAITING) return grid.colors[sample];
+            Ray ray = constructRay(CONE_PATTERN.getOffset(i), -CONE_PATTERN.getOffset(j));
+            if (ray == null) {
+                grid.traced[sample] = true;
+                return null;
+            }
+
+            grid.colors[sample] = WAITING;
+            grid.waiting[grid.waitingCount++] = sample;
+            int offset = 3 * sample;
+            double[] sums = grid.sums;
+            sums[offset] = sums[offset + 1] = sums[offset + 2] = 0;
+            int from = stack.size;
+            stack.push(ray, k.product(kx), level - 1);
+            stack.setWeights(from, sums, offset, 1, 1, 1, kx.getD1(), kx.getD2(), kx.getD3());
+            return WAITING;
+        }
+
+        /**
+         * Constructs a ray of the cone
+         *
+         * @param x The offset of the ray from the axis along the right direction, in units of the cone's size
+         * @param y The offset of the ray from the axis along the up direction, in units of the cone's size
+         * @return The ray, or null if the ray crosses the surface
+         */
+        Ray constructRay(double x, double y) {
+            double dx = toX + rightX * x + upX * y;
+            double dy = toY + rightY * x + upY * y;
+            double dz = toZ + rightZ * x + upZ * y;
+            if ((dx * nX + dy * nY + dz * nZ) * side <= 0) return null;
+            // A ray on the side of the surface is not zero
+            return new Ray(head, Vector.ofNonZero(dx, dy, dz));
+        }
+
+        /**
+         * Pushes rays spread over the cone by the cone sampler to the work stack, except for the rays that cross the
+         * surface
+         *
+         * @param density The number of rays along each axis of the cone
+         * @param kkx     The accumulated coefficient of the rays, including the coefficient of the effect
+         * @param stack   The work stack of the thread
+         */
+        void push(int density, Double3 kkx, WorkStack stack) {
+            double[] points = hitRecords.get().samples(level, density);
+            coneSampler.sample(density, points);
+            for (int p = 0; p < 2 * density * density; p += 2) {
+                Ray ray = constructRay(points[p] - 0.5, 0.5 - points[p + 1]);
+                if (ray != null) stack.push(ray, kkx, level - 1);
+            }
+        }
+
+        /**
+         * Calculates the average color of a square part of the cone
+         *
+         * @param i     The index of the part's first corner along the right direction
+         * @param j     The index of the part's first corner along the down direction
+         * @param size  The width and height of the part, in samples
+         * @param depth The number of subdivisions left, at least 1
+         * @param stack The work stack of the thread
+         * @return The average color of the part, null if all its rays cross the surface, or WAITING if samples are
+         * missing
+         */
+        private Color sample(int i, int j, int size, int depth, WorkStack stack) {
+            return sample(i, j, size, trace(i, j, stack), trace(i + size, j, stack), trace(i, j + size, stack),
+                    trace(i + size, j + size, stack), depth, stack);
+        }
+
+        /**
+         * Calculates the average color of a square part of the cone from the colors of its corners, subdividing
+         * it as long as its samples differ and the maximum depth isn't reached
+         *
+         * @param i     The index of the part's first corner along the right direction
+         * @param j     The index of the part's first corner along the down direction
+         * @param size  The width and height of the part, in samples
+         * @param c00   The color of the corner (i, j)
+         * @param c10   The color of the corner (i + size, j)
+         * @param c01   The color of the corner (i, j + size)
+         * @param c11   The color of the corner (i + size, j + size)
+         * @param depth The number of subdivisions left
+         * @param stack The work stack of the thread
+         * @return The average color of the part, null if all its rays cross the surface, or WAITING if samples are
+         * missing
+         */
+        private Color sample(int i, int j, int size, Color c00, Color c10, Color c01, Color c11, int depth,
+                             WorkStack stack) {
+            if (depth == 0) return average(c00, c10, c01, c11);
+
+            int half = size / 2;
+            Color center = trace(i + half, j + half, stack);
+            // The subdivision depends on the colors, so it waits for all of them
+            if (c00 == WAITING || c10 == WAITING || c01 == WAITING || c11 == WAITING || center == WAITING)
+                return WAITING;
+            if (isUniform(c00, c10, c01, c11, center)) return average(c00, c10, c01, c11, center);
+
+            // Sample the middles of the sides, and calculate every quarter by its corners
+            Color c05 = trace(i + half, j, stack);
+            Color c50 = trace(i, j + half, stack);
+            Color c15 = trace(i + size, j + half, stack);
+            Color c51 = trace(i + half, j + size, stack);
+            return average(sample(i, j, half, c00, c05, c50, center, depth - 1, stack),
+                    sample(i + half, j, half, c05, c10, center, c15, depth - 1, stack),
+                    sample(i, j + half, half, c50, center, c01, c51, depth - 1, stack),
+                    sample(i + half, j + half, half, center, c15, c51, c11, depth - 1, stack));
+        }
+
+        // Checks whether the colors of the samples are all similar to each other
+        private boolean isUniform(Color... colors) {
+            for (int i = 0; i < colors.length; ++i)
+                for (int j = i + 1; j < colors.length; ++j) {
+                    if (colors[i] == null || colors[j] == null) {
+                        if (colors[i] != colors[j]) return false;
+                    } else if (!colors[i].isSimilar(colors[j], threshold)) return false;
+                }
+            return true;
+        }
+
+        // Calculates the average of the colors, ignoring the missing ones (null if they are all missing), WAITING
+        // if any of them is being traced
+        private Color average(Color... colors) {
+            Color sum = Color.BLACK;
+            int count = 0;
+            for (Color color : colors)
+                if (color == WAITING) return WAITING;
+                else if (color != null) {
+                    sum = sum.add(color);
+                    ++count;
+                }
+            return count == 0 ? null : sum.reduce(count);
+        }
     }
 
 }
\ No newline at end of file
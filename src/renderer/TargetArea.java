@@ -1,6 +1,5 @@
 package renderer;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.MissingResourceException;
 import primitives.Point;
@@ -330,28 +329,34 @@ public class TargetArea {
      * @return The constructed ray
      */
     public Ray constructRay(int nx, int ny, int j, int i) {
-        // Calculate the center point of the view plane
-        Point Pc = p0.add(vTo.scale(distance));
-
+        return constructSubPixelRay(nx, ny, j, i);
+    }
 
+    /**
+     * Constructs a ray through any point of the view plane, given in pixel units: the center of pixel (j, i) is at
+     * (j, i), and its corners are at (j &plusmn; 0.5, i &plusmn; 0.5).
+     *
+     * @param nx The number of pixels in the x direction
+     * @param ny The number of pixels in the y direction
+     * @param x  The x coordinate of the point, in pixels
+     * @param y  The y coordinate of the point, in pixels
+     * @return The constructed ray
+     */
+    public Ray constructSubPixelRay(int nx, int ny, double x, double y) {
         double Ry = height / ny;
         double Rx = width / nx;
 
-        // Calculate the coordinates of the pixel
-        double Yi = -(i - (ny - 1) / 2.0) * Ry;
-        double Xj = (j - (nx - 1) / 2.0) * Rx;
-
-        Point Pij = Pc;
-
-        if (Xj != 0)
-
-            Pij = Pij.add(vRight.scale(Xj));
+        // Calculate the coordinates of the point
+        double Yi = -(y - (ny - 1) / 2.0) * Ry;
+        double Xj = (x - (nx - 1) / 2.0) * Rx;
 
-        if (Yi != 0)
-            Pij = Pij.add(vUp.scale(Yi));
+        // Calculate the point Pc + Xj * vRight + Yi * vUp, where Pc is the center point of the view plane, in doubles
+        double px = p0.getX() + vTo.getX() * distance + vRight.getX() * Xj + vUp.getX() * Yi;
+        double py = p0.getY() + vTo.getY() * distance + vRight.getY() * Xj + vUp.getY() * Yi;
+        double pz = p0.getZ() + vTo.getZ() * distance + vRight.getZ() * Xj + vUp.getZ() * Yi;
 
-        // Calculate the direction vector of the ray
-        Vector Vij = Pij.subtract(p0).normalize();
+        // Calculate the direction vector of the ray - the view plane is in front of p0, so it is never zero
+        Vector Vij = Vector.normalized(px - p0.getX(), py - p0.getY(), pz - p0.getZ());
         return new Ray(p0, Vij);
     }
 
@@ -361,15 +366,24 @@ public class TargetArea {
      * @return list of rays
      */
     public List<Ray> constructRayGrid() {
-        // Create a list to store the rays
-        List<Ray> rays = new LinkedList<>();
+        // The offsets of the rays are shared by all the target areas of the same density
+        SamplePattern pattern = SamplePattern.of(density, density - 1);
+        // Calculate the center point of the target area once for all the rays
+        Point Pc = p0.add(vTo.scale(distance));
+        List<Ray> rays = new ArrayList<>(density * density);
 
         // Loop through the pixels in the target area
-        for (int i = 0; i < density; ++i)
-            for (int j = 0; j < density; j++)
-
+        for (int i = 0; i < density; ++i) {
+            double Yi = -pattern.getOffset(i) * height;
+            for (int j = 0; j < density; j++) {
+                double Xj = pattern.getOffset(j) * width;
+                Point Pij = Pc;
+                if (Xj != 0) Pij = Pij.add(vRight.scale(Xj));
+                if (Yi != 0) Pij = Pij.add(vUp.scale(Yi));
                 // Construct a ray for the current pixel and add it to the list
-                rays.add(constructRay(density, density, j, i));
+                rays.add(new Ray(p0, Pij.subtract(p0)));
+            }
+        }
         return rays;
     }
 
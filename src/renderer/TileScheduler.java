@@ -0,0 +1,102 @@
+package renderer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TileScheduler class hands out the image to the rendering threads in square tiles of pixels.
+ * The tiles are numbered row by row, and the next tile is taken by an atomic counter - no locking at all.
+ * Rendering a whole tile by the same thread keeps the rays (and the geometries they hit) close to each other.
+ */
+class TileScheduler {
+    /**
+     * A rectangular tile of the image: the pixels of rows [fromRow, toRow) and columns [fromCol, toCol)
+     *
+     * @param fromRow first row of the tile
+     * @param fromCol first column of the tile
+     * @param toRow   the row after the last row of the tile
+     * @param toCol   the column after the last column of the tile
+     */
+    record Tile(int fromRow, int fromCol, int toRow, int toCol) {
+        /**
+         * Returns the number of pixels in the tile
+         *
+         * @return the number of pixels
+         */
+        int size() {
+            return (toRow - fromRow) * (toCol - fromCol);
+        }
+    }
+
+    private final int maxRows; // number of rows (height) of the image
+    private final int maxCols; // number of columns (width) of the image
+    private final int tileSize; // the width and height of a tile in pixels
+    private final int tilesInRow; // the number of tiles in a row of tiles
+    private final int tilesCount; // the total number of tiles
+    private final AtomicInteger next = new AtomicInteger(); // the number of the next tile to hand out
+
+    /**
+     * Constructs a scheduler for an image
+     *
+     * @param maxRows  number of rows (height) of the image
+     * @param maxCols  number of columns (width) of the image
+     * @param tileSize the width and height of a tile in pixels
+     */
+    TileScheduler(int maxRows, int maxCols, int tileSize) {
+        if (tileSize <= 0) throw new IllegalArgumentException("Tile size must be positive");
+        this.maxRows = maxRows;
+        this.maxCols = maxCols;
+        this.tileSize = tileSize;
+        tilesInRow = (maxCols + tileSize - 1) / tileSize;
+        tilesCount = tilesInRow * ((maxRows + tileSize - 1) / tileSize);
+    }
+
+    /**
+     * Returns the total number of tiles in the image
+     *
+     * @return the number of tiles
+     */
+    int getTilesCount() {
+        return tilesCount;
+    }
+
+    /**
+     * Returns the width and height of a tile in pixels
+     *
+     * @return the tile size
+     */
+    int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * Returns the whole image as a single (large) tile
+     *
+     * @return the image tile
+     */
+    Tile getImage() {
+        return new Tile(0, 0, maxRows, maxCols);
+    }
+
+    /**
+     * Gets the tile of a given number (tiles are numbered row by row). The tiles at the right and bottom borders of
+     * the image may be smaller than the tile size.
+     *
+     * @param number the tile number
+     * @return the tile
+     */
+    Tile getTile(int number) {
+        int fromRow = number / tilesInRow * tileSize;
+        int fromCol = number % tilesInRow * tileSize;
+        return new Tile(fromRow, fromCol, Math.min(fromRow + tileSize, maxRows), Math.min(fromCol + tileSize, maxCols));
+    }
+
+    /**
+     * Gets the next tile to be rendered. Safe to call by many threads at once.
+     *
+     * @return the next tile to be rendered, or null if all the tiles have been handed out
+     */
+    Tile nextTile() {
+        int number = next.getAndIncrement();
+        return number < tilesCount ? getTile(number) : null;
+    }
+}
@@ -5,6 +5,8 @@ import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -57,4 +59,136 @@ class GeometriesTest {
                 new Vector(2, -4, 1))), "Empty collection of objects - wrong intersection points");
 
     }
-}
\ No newline at end of file
+
+    /**
+     * Finds the closest of all the intersections of a ray with geometries, closer than a distance
+     *
+     * @param geometries  the geometries
+     * @param ray         the ray
+     * @param maxDistance the distance the intersection must be closer than
+     * @return the closest intersection point, or null if there is none
+     */
+    static Point closestOfAll(Intersectable geometries, Ray ray, double maxDistance) {
+        List<Intersectable.GeoPoint> intersections = geometries.findGeoIntersections(ray);
+        if (intersections == null) return null;
+        Point closest = null;
+        for (Intersectable.GeoPoint geoPoint : intersections) {
+            double distance = ray.getHead().distance(geoPoint.point);
+            if (distance < maxDistance) {
+                maxDistance = distance;
+                closest = geoPoint.point;
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Builds a large sphere whose bounding box holds the box of a small sphere, and two spheres far from them
+     *
+     * @return the spheres
+     */
+    static List<Intersectable> nestedSpheres() {
+        return List.of(new Sphere(Point.ZERO, 10), new Sphere(new Point(6, 6, -7), 1),
+                new Sphere(new Point(30, 0, 0), 1), new Sphere(new Point(0, 30, 0), 1));
+    }
+
+    /**
+     * Checks the closest intersections of rays with the nested spheres against the closest of all their
+     * intersections
+     *
+     * @param geometries the nested spheres
+     */
+    static void assertClosest(Intersectable geometries) {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The ray enters the box of the large sphere first, and hits the small sphere (at 12) before the
+        // large one (at about 14.7)
+        Ray ray = new Ray(new Point(6, 6, -20), new Vector(0, 0, 1));
+        Point near = new Point(6, 6, -8);
+        assertEquals(near, closestOfAll(geometries, ray, Double.POSITIVE_INFINITY), "Wrong closest of all");
+        assertEquals(near, geometries.findClosestGeoIntersection(ray).point, "Wrong closest intersection");
+
+        // TC02: The ray misses all the spheres
+        Ray miss = new Ray(new Point(20, 20, 20), new Vector(1, 1, 0));
+        assertNull(geometries.findClosestGeoIntersection(miss), "There should be no intersection");
+
+        // =============== Boundary Values Tests ==================
+        // TC03: The hit on the small sphere is exactly at the maximum distance, and the large sphere beyond it
+        assertNull(closestOfAll(geometries, ray, 12), "Wrong closest of all within the distance");
+        assertNull(geometries.findClosestGeoIntersection(ray, 12), "A hit at the maximum distance was found");
+        assertEquals(near, geometries.findClosestGeoIntersection(ray, 12.5).point,
+                "Wrong closest intersection within the distance");
+
+        // TC04: The ray starts inside both boxes (and the small sphere), and leaves the small sphere first
+        Ray inside = new Ray(new Point(6, 6, -7.5), new Vector(0, 0, 1));
+        Point exit = new Point(6, 6, -6);
+        assertEquals(exit, closestOfAll(geometries, inside, Double.POSITIVE_INFINITY), "Wrong closest of all");
+        assertEquals(exit, geometries.findClosestGeoIntersection(inside).point,
+                "Wrong closest intersection from inside a box");
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#findClosestGeoIntersection(primitives.Ray, double)}.
+     */
+    @Test
+    void findClosestGeoIntersection() {
+        // The flat list of the geometries
+        assertClosest(new Geometries(nestedSpheres()));
+        // The hierarchies of bounding boxes
+        for (BvhBuildStrategy strategy : List.of(BvhBuildStrategy.SAH, BvhBuildStrategy.MEDIAN)) {
+            Geometries geometries = new Geometries(nestedSpheres());
+            geometries.makeBVH(strategy);
+            assertClosest(geometries);
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#makeBVH(BvhBuildStrategy)}.
+     */
+    @Test
+    void makeBVH() {
+        Ray ray = new Ray(new Point(0, 4, 0), new Vector(4, -12, 1));
+        for (BvhBuildStrategy strategy : List.of(BvhBuildStrategy.SAH, BvhBuildStrategy.MEDIAN)) {
+            Geometries geometries = new Geometries(new Sphere(new Point(1, 0, 0), 1),
+                    new Triangle(new Point(4, 0, 0), new Point(0, -4, 0), new Point(0, 0, 4)),
+                    new Plane(new Point(0, 0, 1), new Point(1, 0, 0), new Point(4, 0, 2)),
+                    new Sphere(new Point(0, 10, 0), 1), new Sphere(new Point(0, 0, 10), 1),
+                    new Sphere(new Point(10, 10, 10), 1));
+            geometries.makeBVH(strategy);
+
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: The hierarchy finds the same intersections as the flat list (sphere twice, triangle, plane)
+            assertEquals(4, geometries.findIntersections(ray).size(), "Wrong number of intersection points");
+
+            // TC02: A ray missing all the bounding boxes and the plane
+            assertNull(geometries.findIntersections(new Ray(new Point(20, 20, 20), new Vector(1, 1, 0))),
+                    "There should be no intersections");
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#findGeoIntersections(primitives.Ray, double)} and
+     * {@link geometries.Intersectable#hasGeoIntersections(primitives.Ray, double)}.
+     */
+    @Test
+    void findGeoIntersectionsWithDistance() {
+        Geometries geometries = new Geometries(new Sphere(new Point(0, 0, 5), 1),
+                new Plane(new Point(0, 0, 10), new Vector(0, 0, 1)));
+        Ray ray = new Ray(Point.ZERO, new Vector(0, 0, 1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The distance includes only the sphere
+        assertEquals(2, geometries.findGeoIntersections(ray, 8).size(), "Wrong number of intersection points");
+        assertTrue(geometries.hasGeoIntersections(ray, 8), "There should be an intersection");
+
+        // TC02: The distance includes only the first point on the sphere
+        assertEquals(1, geometries.findGeoIntersections(ray, 5).size(), "Wrong number of intersection points");
+
+        // TC03: The distance is before all the geometries
+        assertNull(geometries.findGeoIntersections(ray, 3), "There should be no intersections");
+        assertFalse(geometries.hasGeoIntersections(ray, 3), "There should be no intersections");
+
+        // =============== Boundary Values Tests ==================
+        // TC04: The distance ends exactly on the plane
+        assertEquals(3, geometries.findGeoIntersections(ray, 10).size(), "Wrong number of intersection points");
+    }
+}
@@ -0,0 +1,71 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing HitRecord
+ */
+class HitRecordTest {
+
+    /**
+     * Test method for {@link geometries.Intersectable#intersect(geometries.HitRecord)}.
+     */
+    @Test
+    void intersect() {
+        Sphere sphere = new Sphere(new Point(0, 0, 5), 1);
+        Triangle triangle = new Triangle(new Point(-1, -1, 8), new Point(1, -1, 8), new Point(0, 2, 8));
+        Geometries geometries = new Geometries(triangle, sphere,
+                new Polygon(new Point(-1, -1, 2), new Point(1, -1, 2), new Point(1, 1, 2), new Point(-1, 1, 2)));
+        Ray ray = new Ray(Point.ZERO, new Vector(0, 0, 1));
+        HitRecord hit = new HitRecord();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The closest of all the intersections is recorded
+        assertTrue(geometries.intersect(hit.reset(ray, Double.POSITIVE_INFINITY)), "The search should not stop");
+        assertTrue(hit.isFound(), "An intersection should be found");
+        assertEquals(2, hit.t, 0.00001, "Wrong distance");
+        assertEquals(new Point(0, 0, 2), hit.getPoint(), "Wrong intersection point");
+        assertEquals(new Vector(0, 0, 1), hit.getNormal(), "Wrong normal");
+
+        // TC02: The intersections beyond the search distance are ignored
+        geometries.intersect(hit.reset(new Ray(new Point(0, 0, 3), new Vector(0, 0, 1)), 4.5));
+        assertSame(sphere, hit.geometry, "Wrong geometry");
+        assertEquals(1, hit.t, 0.00001, "Wrong distance");
+
+        // TC03: Any hit - all the intersections within the distance are visited
+        int[] count = { 0 };
+        assertTrue(geometries.intersect(hit.reset(ray, 7, h -> ++count[0] > 0)), "The search should not stop");
+        assertEquals(3, count[0], "Wrong number of visited intersections");
+
+        // TC04: Any hit - the search stops when the visitor asks to
+        count[0] = 0;
+        assertFalse(geometries.intersect(hit.reset(ray, 10, h -> ++count[0] < 2)), "The search should stop");
+        assertEquals(2, count[0], "Wrong number of visited intersections");
+
+        // =============== Boundary Values Tests ==================
+        // TC05: No intersections
+        assertTrue(geometries.intersect(hit.reset(new Ray(Point.ZERO, new Vector(1, 0, 0)),
+                Double.POSITIVE_INFINITY)), "The search should not stop");
+        assertFalse(hit.isFound(), "There should be no intersection");
+        assertNull(hit.toGeoPoint(), "There should be no intersection");
+
+        // TC06: A mesh nested in a hierarchy is traversed on the stack of the record, which is reused by the next
+        // rays
+        TriangleMesh mesh = new TriangleMesh(new double[] { -1, -1, 4, 1, -1, 4, 0, 2, 4, 0, 0, 3 },
+                new int[] { 0, 1, 2, 0, 1, 3, 1, 2, 3 });
+        LinearBVH bvh = new LinearBVH(List.of(mesh, sphere, triangle));
+        bvh.intersect(hit.reset(ray, Double.POSITIVE_INFINITY));
+        assertSame(mesh, hit.geometry, "Wrong geometry in the nested mesh");
+        int[] stack = hit.nodeStack;
+        bvh.intersect(hit.reset(new Ray(new Point(0.1, 0, 0), new Vector(0, 0, 1)), Double.POSITIVE_INFINITY));
+        assertSame(mesh, hit.geometry, "Wrong geometry in the nested mesh");
+        assertSame(stack, hit.nodeStack, "The traversal stack was allocated again");
+    }
+}
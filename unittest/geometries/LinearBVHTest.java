@@ -0,0 +1,58 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing LinearBVH
+ */
+class LinearBVHTest {
+
+    /**
+     * Test method for {@link geometries.LinearBVH#findIntersections(primitives.Ray)}.
+     */
+    @Test
+    void findIntersections() {
+        LinearBVH bvh = new LinearBVH(List.of(new Sphere(new Point(1, 0, 0), 1),
+                new Triangle(new Point(4, 0, 0), new Point(0, -4, 0), new Point(0, 0, 4)),
+                new Plane(new Point(0, 0, 1), new Point(1, 0, 0), new Point(4, 0, 2)),
+                new Sphere(new Point(0, 10, 0), 1), new Sphere(new Point(0, 0, 10), 1),
+                new Sphere(new Point(10, 10, 10), 1)));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The ray crosses the first sphere twice, the triangle and the (infinite) plane
+        assertEquals(4, bvh.findIntersections(new Ray(new Point(0, 4, 0), new Vector(4, -12, 1))).size(),
+                "Wrong number of intersection points");
+
+        // TC02: The ray crosses only a sphere far in a different leaf
+        assertEquals(List.of(new Point(10, 10, 11), new Point(10, 10, 9)),
+                bvh.findIntersections(new Ray(new Point(10, 10, 20), new Vector(0, 0, -1))),
+                "Wrong intersection points");
+
+        // TC03: The ray misses all the geometries
+        assertNull(bvh.findIntersections(new Ray(new Point(20, 20, 20), new Vector(1, 1, 0))),
+                "There should be no intersections");
+
+        // =============== Boundary Values Tests ==================
+        // TC04: Empty hierarchy
+        assertNull(new LinearBVH(List.of()).findIntersections(new Ray(Point.ZERO, new Vector(1, 0, 0))),
+                "Empty hierarchy - there should be no intersections");
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#findClosestGeoIntersection(primitives.Ray, double)}.
+     */
+    @Test
+    void findClosestGeoIntersection() {
+        // The closest intersections against the closest of all the intersections, by both strategies (see
+        // GeometriesTest#assertClosest)
+        for (BvhBuildStrategy strategy : List.of(BvhBuildStrategy.SAH, BvhBuildStrategy.MEDIAN))
+            GeometriesTest.assertClosest(new LinearBVH(GeometriesTest.nestedSpheres(), strategy));
+    }
+}
@@ -0,0 +1,157 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing PacketKernel - the kernel in use finds the same intersections as the scalar kernel
+ */
+class PacketKernelTest {
+    /** The scalar kernel, which the kernel in use is compared with */
+    private final PacketKernel scalar = new ScalarPacketKernel();
+    /** The geometry the intersections are offered for */
+    private final Geometry geometry = new Sphere(Point.ZERO, 1);
+    /** A fixed seed, for the same rays and shapes in every run */
+    private final Random random = new Random(42);
+
+    /**
+     * Returns the kernel tested against the scalar kernel
+     *
+     * @return the kernel in use
+     */
+    PacketKernel kernel() {
+        return PacketKernel.INSTANCE;
+    }
+
+    /**
+     * Builds random rays from around a common head towards the origin, some of them along the axes
+     *
+     * @param count the number of rays
+     * @return the rays
+     */
+    private Ray[] rays(int count) {
+        Ray[] rays = new Ray[count];
+        for (int i = 0; i < count; ++i) {
+            Point head = new Point(random.nextDouble() - 0.5, random.nextDouble() - 0.5, 10);
+            rays[i] = i % 5 == 0 ? new Ray(head, new Vector(0, 0, -1))
+                    : new Ray(head, new Vector(random.nextDouble() * 6 - 3, random.nextDouble() * 6 - 3, -10));
+        }
+        return rays;
+    }
+
+    /**
+     * Returns a random coordinate
+     *
+     * @return a coordinate between -3 and 3
+     */
+    private double coordinate() {
+        return random.nextDouble() * 6 - 3;
+    }
+
+    /**
+     * Test method for
+     * {@link geometries.PacketKernel#intersectBox(RayPacket, int, double, double, double, double, double, double, double[], int)}.
+     */
+    @Test
+    void testIntersectBox() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Full and partial packets, all the lanes and some of them, against random boxes
+        for (int size : new int[] { RayPacket.MAX_SIZE, 13 }) {
+            RayPacket packet = new RayPacket(RayPacket.MAX_SIZE).reset(rays(size), 0, size);
+            for (int lanes : new int[] { packet.lanes(), packet.lanes() & 0x5A5A5A5A }) {
+                for (int box = 0; box < 200; ++box) {
+                    double x = coordinate(), y = coordinate(), z = coordinate();
+                    double[] expected = new double[RayPacket.MAX_SIZE];
+                    double[] actual = new double[RayPacket.MAX_SIZE];
+                    int mask = scalar.intersectBox(packet, lanes, x, y, z, x + 1, y + 2, z + 1, expected, 0);
+                    assertEquals(mask, kernel().intersectBox(packet, lanes, x, y, z, x + 1, y + 2, z + 1, actual,
+                            0), "Wrong lanes entering a box");
+                    assertArrayEquals(expected, actual, "Wrong entry distances");
+                }
+            }
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC02: Rays along the z axis starting on the borders of the slabs of x and y (NaN distances)
+        RayPacket packet = new RayPacket(RayPacket.MAX_SIZE);
+        Ray[] border = new Ray[RayPacket.MAX_SIZE];
+        for (int i = 0; i < border.length; ++i)
+            border[i] = new Ray(new Point(i % 2, i % 3 - 1, 5), new Vector(0, 0, -1));
+        packet.reset(border, 0, border.length);
+        assertEquals(scalar.intersectBox(packet, packet.lanes(), 0, -1, -1, 1, 1, 1, null, 0),
+                kernel().intersectBox(packet, packet.lanes(), 0, -1, -1, 1, 1, 1, null, 0),
+                "Wrong lanes starting on the borders of the slabs");
+    }
+
+    /**
+     * Test method for
+     * {@link geometries.PacketKernel#intersectTriangle(RayPacket, int, Geometry, int, double, double, double, double, double, double, double, double, double)}.
+     */
+    @Test
+    void testIntersectTriangle() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Full and partial packets, all the lanes and some of them, against random triangles
+        int found = 0;
+        for (int size : new int[] { RayPacket.MAX_SIZE, 13 }) {
+            Ray[] rays = rays(size);
+            RayPacket expected = new RayPacket(RayPacket.MAX_SIZE);
+            RayPacket actual = new RayPacket(RayPacket.MAX_SIZE);
+            int all = expected.reset(rays, 0, size).lanes();
+            for (int lanes : new int[] { all, all & 0x5A5A5A5A }) {
+                for (int triangle = 0; triangle < 200; ++triangle) {
+                    double x = coordinate(), y = coordinate(), z = coordinate();
+                    double e1x = coordinate(), e1y = coordinate(), e1z = coordinate() / 3;
+                    double e2x = coordinate(), e2y = coordinate(), e2z = coordinate() / 3;
+                    expected.reset(rays, 0, size);
+                    actual.reset(rays, 0, size);
+                    scalar.intersectTriangle(expected, lanes, geometry, triangle, x, y, z, e1x, e1y, e1z,
+                            e2x, e2y, e2z);
+                    kernel().intersectTriangle(actual, lanes, geometry, triangle, x, y, z, e1x, e1y, e1z, e2x,
+                            e2y, e2z);
+                    for (int lane = 0; lane < size; ++lane) {
+                        HitRecord hit = actual.getHit(lane);
+                        assertEquals(expected.getHit(lane).isFound(), hit.isFound(), "Wrong hit of lane " + lane);
+                        if (!hit.isFound()) continue;
+                        ++found;
+                        assertEquals(expected.getHit(lane).t, hit.t, "Wrong distance of lane " + lane);
+                        assertEquals(expected.getHit(lane).u, hit.u, "Wrong u of lane " + lane);
+                        assertEquals(expected.getHit(lane).v, hit.v, "Wrong v of lane " + lane);
+                    }
+                }
+            }
+        }
+        assertTrue(found > 0, "No ray hit any of the triangles");
+
+        // =============== Boundary Values Tests ==================
+        // TC02: A triangle parallel to the rays along the z axis, and a triangle of a vertex at a ray's head
+        Ray[] rays = rays(RayPacket.MAX_SIZE);
+        RayPacket packet = new RayPacket(RayPacket.MAX_SIZE).reset(rays, 0, rays.length);
+        kernel().intersectTriangle(packet, packet.lanes(), geometry, 0, -1, -1, 0, 2, 0, 0, 0, 0, 5);
+        Point head = rays[0].getHead();
+        kernel().intersectTriangle(packet, 1, geometry, 1, head.getX(), head.getY(), head.getZ(),
+                1, 0, 0, 0, 1, 0);
+        for (int lane = 0; lane < rays.length; lane += 5)
+            assertFalse(packet.getHit(lane).isFound(), "Found an intersection of lane " + lane);
+    }
+
+    /**
+     * Test method for {@link geometries.PacketKernel#INSTANCE}.
+     */
+    @Test
+    void testInstance() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The vector kernel is used if and only if the Vector API is present and the vector module is on the
+        // class path (on a platform of vectors)
+        boolean vector = ModuleLayer.boot().findModule(PacketKernel.VECTOR_MODULE).isPresent()
+                && getClass().getClassLoader().getResource(PacketKernel.VECTOR_KERNEL.replace('.', '/') + ".class")
+                != null;
+        assertEquals(vector, PacketKernel.INSTANCE.getClass().getName().equals(PacketKernel.VECTOR_KERNEL),
+                "Wrong kernel for the Vector API");
+    }
+}
@@ -142,4 +142,21 @@ public class PolygonTest {
         assertNull(result6, "ERROR: The point of intersection with the contained plane is on a continuation" +
                 " of one of the sides");
     }
+
+    /** Test method for {@link geometries.Intersectable#findClosestGeoIntersection(primitives.Ray)}. */
+    @Test
+    void findClosestGeoIntersection() {
+        Polygon quad = new Polygon(new Point(0, 0, 1), new Point(4, 0, 1), new Point(3, 3, 1), new Point(0, 4, 1));
+
+        // ============================== Boundary Values Tests =======================================================
+
+        // TC01 : The ray starts on one of the sides of the polygon, in its plane
+        assertNull(quad.findClosestGeoIntersection(new Ray(new Point(2, 0, 1), new Vector(0, 1, 1))),
+                "ERROR: The ray starts on one of the sides, and not intersects the polygon");
+
+        // TC02 : The ray starts on a continuation of one of the sides, in the plane and in the bounding box of the
+        // polygon
+        assertNull(quad.findClosestGeoIntersection(new Ray(new Point(2.8, 3.6, 1), new Vector(0, 0, -1))),
+                "ERROR: The ray starts on a continuation of one of the sides, and not intersects the polygon");
+    }
 }
@@ -0,0 +1,97 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing RayPacket
+ */
+class RayPacketTest {
+    private final double DELTA = 0.000001;
+
+    /**
+     * Builds a fan of rays from a common head, spread over a square of the plane z = -10
+     *
+     * @param columns the number of rays along the x axis
+     * @param rows    the number of rays along the y axis
+     * @return the rays
+     */
+    private Ray[] fan(int columns, int rows) {
+        Ray[] rays = new Ray[columns * rows];
+        for (int i = 0; i < rows; ++i)
+            for (int j = 0; j < columns; ++j)
+                rays[i * columns + j] = new Ray(new Point(0, 0, 10),
+                        new Vector(-6 + 12.0 * j / (columns - 1), -6 + 12.0 * i / (rows - 1), -20));
+        return rays;
+    }
+
+    /**
+     * Checks that the closest intersections of a packet are the closest intersections of its rays one by one
+     *
+     * @param geometry the geometry to intersect
+     * @param rays     the rays of the packet
+     * @return the number of rays that hit the geometry
+     */
+    private int assertSameHits(Intersectable geometry, Ray[] rays) {
+        RayPacket packet = new RayPacket(rays.length).reset(rays, 0, rays.length);
+        geometry.intersect(packet);
+        int found = 0;
+        for (int lane = 0; lane < rays.length; ++lane) {
+            HitRecord expected = new HitRecord().reset(rays[lane], Double.POSITIVE_INFINITY);
+            geometry.intersect(expected);
+            HitRecord hit = packet.getHit(lane);
+            assertEquals(expected.isFound(), hit.isFound(), "Wrong hit of lane " + lane);
+            if (!hit.isFound()) continue;
+            ++found;
+            assertSame(expected.geometry, hit.geometry, "Wrong geometry of lane " + lane);
+            assertEquals(expected.primitive, hit.primitive, "Wrong primitive of lane " + lane);
+            assertEquals(expected.t, hit.t, DELTA, "Wrong distance of lane " + lane);
+        }
+        return found;
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#intersect(geometries.RayPacket)}.
+     */
+    @Test
+    void intersect() {
+        double[] vertices = { -4, -4, -6, 4, -4, -6, 4, 4, -6, -4, 4, -6, 0.5, 0.3, -2 };
+        int[] faces = { 0, 1, 4, 1, 2, 4, 2, 3, 4, 3, 0, 4 };
+        List<Intersectable> shapes = List.of(new Sphere(new Point(-3, -3, -5), 2.5),
+                new Sphere(new Point(3, 3, -4), 2),
+                new Triangle(new Point(-5, 2, -7), new Point(0, 6, -7), new Point(-1, 1, -3)),
+                new TriangleMesh(vertices, faces), new Plane(new Point(0, 0, -9), new Vector(0, 0, 1)));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A packet of every kind of geometry hits the same as its rays, some of the rays miss
+        Ray[] rays = fan(4, 4);
+        for (Intersectable shape : shapes.subList(0, 4)) {
+            int found = assertSameHits(shape, rays);
+            assertTrue(found > 0 && found < rays.length, "The packet should partly hit " + shape);
+        }
+
+        // TC02: A full packet of a group and of a hierarchy of the geometries, the closest of them is found
+        Ray[] full = fan(8, RayPacket.MAX_SIZE / 8);
+        assertEquals(full.length, assertSameHits(new Geometries(shapes.toArray(new Intersectable[0])), full),
+                "Every ray should hit the plane");
+        assertEquals(full.length, assertSameHits(new LinearBVH(shapes), full), "Every ray should hit the plane");
+
+        // =============== Boundary Values Tests ==================
+        // TC03: A single ray
+        assertEquals(1, assertSameHits(new LinearBVH(shapes), new Ray[] { new Ray(new Point(3, 3, 10),
+                new Vector(0, 0, -1)) }), "The single ray should hit the sphere");
+
+        // TC04: Illegal capacities
+        assertThrows(IllegalArgumentException.class, () -> new RayPacket(0), "Accepted an empty packet");
+        assertThrows(IllegalArgumentException.class, () -> new RayPacket(RayPacket.MAX_SIZE + 1),
+                "Accepted more lanes than a mask has");
+        assertThrows(IllegalArgumentException.class, () -> new RayPacket(2).reset(full, 0, 3),
+                "Loaded more rays than the capacity");
+    }
+}
@@ -0,0 +1,168 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing SphereSet
+ */
+class SphereSetTest {
+    private final double DELTA = 0.000001;
+
+    /** Two unit spheres on the x axis and a larger sphere above them */
+    private final double[] centers = { -2, 0, 0, 2, 0, 0, 0, 0, 5 };
+    private final double[] radii = { 1, 1, 2 };
+
+    /**
+     * Test method for {@link geometries.SphereSet#SphereSet(double[], double[])}.
+     */
+    @Test
+    void testConstructor() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Correct set
+        assertEquals(3, new SphereSet(centers, radii).getSphereCount(), "Wrong number of spheres");
+
+        // TC02: A sphere of a negative radius
+        assertThrows(IllegalArgumentException.class, () -> new SphereSet(centers, new double[] { 1, -1, 2 }),
+                "Constructed a set with a negative radius");
+
+        // =============== Boundary Values Tests ==================
+        // TC03: A sphere of a zero radius
+        assertThrows(IllegalArgumentException.class, () -> new SphereSet(centers, new double[] { 1, 0, 2 }),
+                "Constructed a set with a zero radius");
+
+        // TC04: The centers buffer doesn't match the radii
+        assertThrows(IllegalArgumentException.class, () -> new SphereSet(centers, new double[] { 1, 1 }),
+                "Constructed a set with a center without a radius");
+
+        // TC05: No spheres
+        assertThrows(IllegalArgumentException.class, () -> new SphereSet(new double[0], new double[0]),
+                "Constructed a set without spheres");
+    }
+
+    /**
+     * Test method for {@link geometries.SphereSet#getNormal(primitives.Point)}.
+     */
+    @Test
+    void testGetNormal() {
+        SphereSet set = new SphereSet(centers, radii);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A point on one of the spheres
+        assertEquals(new Vector(0, 0, 1), set.getNormal(new Point(2, 0, 1)), "Wrong normal");
+
+        // TC02: The normal of an intersection is the normal of its sphere
+        HitRecord hit = new HitRecord().reset(new Ray(new Point(0, 0, 10), new Vector(0, 0, -1)),
+                Double.POSITIVE_INFINITY);
+        set.intersect(hit);
+        assertEquals(new Vector(0, 0, 1), hit.getNormal(), "Wrong normal of an intersection");
+
+        // TC03: A point not on the set
+        assertThrows(IllegalArgumentException.class, () -> set.getNormal(new Point(0, 0, 0)),
+                "Found a normal for a point not on the set");
+    }
+
+    /**
+     * Test method for {@link geometries.SphereSet#findIntersections(primitives.Ray)}.
+     */
+    @Test
+    void testFindIntersections() {
+        SphereSet set = new SphereSet(centers, radii);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The ray crosses both of the unit spheres
+        List<Point> points = set.findIntersections(new Ray(new Point(-5, 0, 0), new Vector(1, 0, 0)));
+        assertNotNull(points, "The ray should cross the spheres");
+        assertEquals(4, points.size(), "Wrong number of intersection points");
+
+        // TC02: The ray starts inside a sphere
+        assertEquals(List.of(new Point(0, 0, 7)),
+                set.findIntersections(new Ray(new Point(0, 0, 5), new Vector(0, 0, 1))),
+                "Wrong intersection point from inside a sphere");
+
+        // TC03: The ray misses all the spheres
+        assertNull(set.findIntersections(new Ray(new Point(0, 5, 0), new Vector(1, 0, 0))),
+                "There should be no intersections");
+
+        // TC04: The closest intersection is with the nearest sphere, like with the same spheres one by one
+        Geometries spheres = new Geometries(new Sphere(new Point(-2, 0, 0), 1), new Sphere(new Point(2, 0, 0), 1),
+                new Sphere(new Point(0, 0, 5), 2));
+        for (Ray ray : List.of(new Ray(new Point(5, 0.5, 0), new Vector(-1, 0, 0.1)),
+                new Ray(new Point(0, 0, -10), new Vector(0.1, 0, 1)),
+                new Ray(new Point(-3, 0.2, 10), new Vector(0.2, 0, -1)))) {
+            assertEquals(spheres.findClosestGeoIntersection(ray).point, set.findClosestGeoIntersection(ray).point,
+                    "Wrong closest intersection of " + ray);
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC05: The ray is tangent to a sphere
+        assertNull(set.findIntersections(new Ray(new Point(-5, 1, 0), new Vector(1, 0, 0))),
+                "A tangent ray should not intersect");
+
+        // TC06: The ray starts at the center of a sphere
+        assertEquals(List.of(new Point(2, 1, 0)),
+                set.findIntersections(new Ray(new Point(2, 0, 0), new Vector(0, 1, 0))),
+                "Wrong intersection point from the center");
+
+        // TC07: The search stops at the cached sphere - a single sphere of the set is intersected
+        HitRecord hit = new HitRecord().reset(new Ray(new Point(-5, 0, 0), new Vector(1, 0, 0)),
+                Double.POSITIVE_INFINITY);
+        set.intersect(hit, 1);
+        assertEquals(1, hit.primitive, "Wrong sphere");
+        assertEquals(6, hit.t, DELTA, "The other spheres were intersected");
+
+        // TC08: A record whose scratch buffers were grown by a larger set, with values of its spheres left in them
+        SphereSet larger = new SphereSet(new double[] { 0, 0, -3, 0, 0, -6, 0, 0, -9, 0, 0, -12 },
+                new double[] { 1, 1, 1, 1 });
+        Ray down = new Ray(new Point(0, 0, 10), new Vector(0, 0, -1));
+        larger.intersect(hit.reset(down, Double.POSITIVE_INFINITY));
+        assertTrue(hit.scratch1.length >= 4, "The scratch buffers were not grown");
+        set.intersect(hit.reset(down, Double.POSITIVE_INFINITY));
+        assertEquals(2, hit.primitive, "Wrong sphere after a larger set");
+        assertEquals(3, hit.t, DELTA, "Wrong distance after a larger set");
+    }
+
+    /**
+     * Test method for {@link geometries.SphereSet#setMaterials(int[], primitives.Color[], primitives.Material[])}.
+     */
+    @Test
+    void testSetMaterials() {
+        Material shiny = new Material().setKs(0.5);
+        Material clear = new Material().setKT(1);
+        Color red = new Color(255, 0, 0);
+        Color blue = new Color(0, 0, 255);
+        SphereSet set = new SphereSet(centers, radii);
+        HitRecord hit = new HitRecord().reset(new Ray(new Point(2, 0, 10), new Vector(0, 0, -1)),
+                Double.POSITIVE_INFINITY);
+        set.intersect(hit);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Without material indices the spheres share the set's emission and material
+        assertSame(set.getMaterial(), set.getMaterial(hit), "Wrong shared material");
+        assertSame(set.getEmission(), set.getEmission(hit), "Wrong shared emission");
+
+        // TC02: Every sphere has the material of its index
+        set.setMaterials(new int[] { 0, 1, 0 }, new Color[] { red, blue }, new Material[] { shiny, clear });
+        assertSame(clear, set.getMaterial(hit), "Wrong material of a sphere");
+        assertSame(blue, set.getEmission(hit), "Wrong emission of a sphere");
+
+        // TC03: Illegal material indices
+        assertThrows(IllegalArgumentException.class, () -> set.setMaterials(new int[] { 0, 2, 0 },
+                new Color[] { red, blue }, new Material[] { shiny, clear }), "Accepted a missing material");
+        assertThrows(IllegalArgumentException.class, () -> set.setMaterials(new int[] { 0, 1, 0 },
+                new Color[] { red }, new Material[] { shiny, clear }), "Accepted a material without emission");
+
+        // =============== Boundary Values Tests ==================
+        // TC04: A sphere without an index
+        assertThrows(IllegalArgumentException.class, () -> set.setMaterials(new int[] { 0, 1 },
+                new Color[] { red, blue }, new Material[] { shiny, clear }), "Accepted a sphere without an index");
+    }
+}
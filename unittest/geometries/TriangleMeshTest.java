@@ -0,0 +1,131 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing TriangleMesh
+ */
+class TriangleMeshTest {
+    private final double DELTA = 0.000001;
+
+    /** A unit square at z = 0 made of two faces, and a pyramid tip above it connected by two more faces */
+    private final double[] vertices = { 0, 0, 0, 1, 0, 0, 1, 1, 0, 0, 1, 0, 0.5, 0.5, 2 };
+    private final int[] faces = { 0, 1, 2, 0, 2, 3, 0, 1, 4, 1, 2, 4 };
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#TriangleMesh(double[], int[])}.
+     */
+    @Test
+    void testConstructor() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Correct mesh
+        assertDoesNotThrow(() -> new TriangleMesh(vertices, faces), "Failed constructing a correct mesh");
+        assertEquals(4, new TriangleMesh(vertices, faces).getFaceCount(), "Wrong number of faces");
+
+        // TC02: A face refers to a vertex that doesn't exist
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(vertices, new int[] { 0, 1, 5 }),
+                "Constructed a mesh with a missing vertex");
+
+        // =============== Boundary Values Tests ==================
+        // TC03: The vertex buffer doesn't hold whole vertices
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(new double[] { 0, 0, 0, 1 }, faces),
+                "Constructed a mesh with a partial vertex");
+
+        // TC04: No faces
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(vertices, new int[0]),
+                "Constructed a mesh without faces");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#getNormal(primitives.Point)}.
+     */
+    @Test
+    void testGetNormal() {
+        TriangleMesh mesh = new TriangleMesh(vertices, faces);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A point on the square
+        assertEquals(new Vector(0, 0, 1), mesh.getNormal(new Point(0.2, 0.7, 0)), "Wrong normal");
+
+        // TC02: The normal of a face is the normal of the same triangle
+        Point p = new Point(0.5, 0.1, 0.4);
+        assertEquals(new Triangle(new Point(0, 0, 0), new Point(1, 0, 0), new Point(0.5, 0.5, 2)).getNormal(p),
+                mesh.getNormal(p), "Wrong normal");
+
+        // TC03: A point not on the mesh
+        assertThrows(IllegalArgumentException.class, () -> mesh.getNormal(new Point(5, 5, 5)),
+                "Found a normal for a point not on the mesh");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#findIntersections(primitives.Ray)}.
+     */
+    @Test
+    void testFindIntersections() {
+        TriangleMesh mesh = new TriangleMesh(vertices, faces);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The ray crosses the square only
+        assertEquals(List.of(new Point(0.2, 0.7, 0)),
+                mesh.findIntersections(new Ray(new Point(0.2, 0.7, 1), new Vector(0, 0, -1))),
+                "Wrong intersection points");
+
+        // TC02: The ray crosses a side of the pyramid and then the square
+        List<Point> result = mesh.findIntersections(new Ray(new Point(0.5, 0.1, 1), new Vector(0, 0, -1)));
+        assertNotNull(result, "The ray crosses the mesh");
+        assertEquals(2, result.size(), "Wrong number of intersection points");
+
+        // TC03: The ray misses the mesh
+        assertNull(mesh.findIntersections(new Ray(new Point(2, 2, 1), new Vector(0, 0, -1))),
+                "There should be no intersections");
+
+        // =============== Boundary Values Tests ==================
+        // TC04: The ray crosses the edge shared by two faces of the square
+        assertNull(mesh.findIntersections(new Ray(new Point(0.5, 0.5, -1), new Vector(0, 0, 1))),
+                "An edge is not counted as an intersection");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#intersect(geometries.HitRecord)}.
+     */
+    @Test
+    void testIntersect() {
+        TriangleMesh mesh = new TriangleMesh(vertices, faces);
+        HitRecord hit = new HitRecord();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The closest face is recorded along with its index
+        mesh.intersect(hit.reset(new Ray(new Point(0.5, 0.1, 1), new Vector(0, 0, -1)), Double.POSITIVE_INFINITY));
+        assertSame(mesh, hit.geometry, "The ray crosses the mesh");
+        assertEquals(2, hit.primitive, "Wrong face");
+        assertEquals(0.6, hit.t, DELTA, "Wrong distance");
+        assertEquals(mesh.getNormal(hit.getPoint()), hit.getNormal(), "Wrong normal");
+
+        // TC02: The mesh gives the same intersections as separate triangles of its faces
+        Geometries triangles = new Geometries();
+        for (int f = 0; f < faces.length; f += 3)
+            triangles.add(new Triangle(vertex(faces[f]), vertex(faces[f + 1]), vertex(faces[f + 2])));
+        HitRecord expected = new HitRecord();
+        Point head = new Point(-0.3, -0.2, 3);
+        for (int i = 0; i <= 20; ++i)
+            for (int j = 0; j <= 20; ++j) {
+                Ray ray = new Ray(head, new Point(i * 0.09 - 0.4, j * 0.08 - 0.3, -1).subtract(head));
+                mesh.intersect(hit.reset(ray, Double.POSITIVE_INFINITY));
+                triangles.intersect(expected.reset(ray, Double.POSITIVE_INFINITY));
+                assertEquals(expected.isFound(), hit.isFound(), "Wrong intersection of ray " + ray);
+                if (expected.isFound()) assertEquals(expected.t, hit.t, DELTA, "Wrong distance of ray " + ray);
+            }
+    }
+
+    // The vertex of the test mesh at an index
+    private Point vertex(int index) {
+        return new Point(vertices[index * 3], vertices[index * 3 + 1], vertices[index * 3 + 2]);
+    }
+}
@@ -100,4 +100,38 @@ class TriangleTest {
                 , new Vector(0, 0, -1)));
         assertNull(result6, "ERROR: The ray intersects the triangle");
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link geometries.Triangle#intersect(HitRecord)}.
+     */
+    @Test
+    void intersect() {
+        Triangle triangle = new Triangle(new Point(0, 0, 1), new Point(4, 0, 1), new Point(0, 4, 1));
+        HitRecord hit = new HitRecord();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The intersection is recorded with its distance and barycentric coordinates
+        triangle.intersect(hit.reset(new Ray(new Point(1, 2, 3), new Vector(0, 0, -1)), Double.POSITIVE_INFINITY));
+        assertSame(triangle, hit.geometry, "ERROR: The ray intersects the triangle");
+        assertEquals(2, hit.t, DELTA, "ERROR: Wrong distance");
+        assertEquals(0.25, hit.u, DELTA, "ERROR: Wrong barycentric coordinate u");
+        assertEquals(0.5, hit.v, DELTA, "ERROR: Wrong barycentric coordinate v");
+        assertEquals(new Point(1, 2, 1), hit.getPoint(), "ERROR: Wrong intersection point");
+
+        // TC02: The intersection is beyond the search distance
+        triangle.intersect(hit.reset(new Ray(new Point(1, 2, 3), new Vector(0, 0, -1)), 1));
+        assertFalse(hit.isFound(), "ERROR: The intersection is beyond the search distance");
+
+        // TC03: The triangle is behind the ray
+        triangle.intersect(hit.reset(new Ray(new Point(1, 2, 3), new Vector(0, 0, 1)), Double.POSITIVE_INFINITY));
+        assertFalse(hit.isFound(), "ERROR: The triangle is behind the ray");
+
+        // =============== Boundary Values Tests ==================
+        // TC04: A tiny triangle of a fine mesh, crossed at an angle, is not mistaken for a parallel one
+        TriangleMesh tiny = new TriangleMesh(new double[] { 0, 0, 1, 1e-6, 0, 1, 0, 1e-6, 1 }, new int[] { 0, 1, 2 });
+        tiny.intersect(hit.reset(new Ray(new Point(-0.75 + 2.5e-7, 2.5e-7, 0), new Vector(3, 0, 4)),
+                Double.POSITIVE_INFINITY));
+        assertSame(tiny, hit.geometry, "ERROR: The ray intersects the tiny triangle");
+        assertEquals(1.25, hit.t, DELTA, "ERROR: Wrong distance");
+    }
+}
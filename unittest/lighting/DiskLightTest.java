@@ -0,0 +1,46 @@
+package lighting;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing DiskLight
+ */
+class DiskLightTest {
+    private final double DELTA = 0.000001;
+
+    /** A disk of radius 2 around (1, 2, 3), parallel to the XY plane */
+    private final DiskLight light = new DiskLight(new Color(100, 100, 100), new Point(1, 2, 3),
+            new Vector(0, 0, 1), 2);
+
+    /**
+     * Test method for {@link lighting.DiskLight#getSample(double, double)}.
+     */
+    @Test
+    void getSample() {
+        Point center = new Point(1, 2, 3);
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A point inside the square is mapped into the disk, on its plane
+        Point sample = light.getSample(0.3, 0.8);
+        assertEquals(3, sample.getZ(), DELTA, "The sample is out of the plane of the disk");
+        assertTrue(sample.distance(center) < 2, "The sample is out of the disk");
+
+        // =============== Boundary Values Tests ==================
+        // TC02: The center of the square is the center of the disk
+        assertEquals(center, light.getSample(0.5, 0.5), "Wrong sample of the center");
+
+        // TC03: The corners and the middles of the edges of the square are on the boundary of the disk
+        for (double[] edge : new double[][] { { 0, 0 }, { 0.5, 0 }, { 1, 1 }, { 0, 0.5 } })
+            assertEquals(2, light.getSample(edge[0], edge[1]).distance(center), DELTA,
+                    "The edge of the square is not on the boundary");
+
+        // TC04: Illegal radius and number of samples
+        assertThrows(IllegalArgumentException.class,
+                () -> new DiskLight(new Color(100, 100, 100), center, new Vector(0, 0, 1), 0),
+                "Accepted a zero radius");
+        assertThrows(IllegalArgumentException.class, () -> light.setSampler(Sampler.stratified(), 0),
+                "Accepted no samples");
+    }
+}
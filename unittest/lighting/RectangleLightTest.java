@@ -0,0 +1,32 @@
+package lighting;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing RectangleLight
+ */
+class RectangleLightTest {
+
+    /**
+     * Test method for {@link lighting.RectangleLight#getSample(double, double)}.
+     */
+    @Test
+    void getSample() {
+        RectangleLight light = new RectangleLight(new Color(100, 100, 100), new Point(0, 0, 5),
+                new Vector(4, 0, 0), new Vector(0, 2, 0));
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A point inside the square
+        assertEquals(new Point(-1, 0.5, 5), light.getSample(0.25, 0.75), "Wrong sample inside the rectangle");
+
+        // =============== Boundary Values Tests ==================
+        // TC02: The center of the square is the center of the rectangle
+        assertEquals(new Point(0, 0, 5), light.getSample(0.5, 0.5), "Wrong sample of the center");
+
+        // TC03: The corners of the square are the corners of the rectangle
+        assertEquals(new Point(-2, -1, 5), light.getSample(0, 0), "Wrong sample of a corner");
+        assertEquals(new Point(2, 1, 5), light.getSample(1, 1), "Wrong sample of a corner");
+    }
+}
@@ -52,4 +52,18 @@ class Double3Test {
     @Test
     void testLowerThan() {
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link primitives.Double3#max()}.
+     */
+    @Test
+    void max() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The largest number is in the middle
+        assertEquals(3, new Double3(1, 3, -5).max(), 0.000001, "Wrong maximum");
+
+        // =============== Boundary Values Tests ==================
+        // TC02: All the numbers are equal
+        assertEquals(0.5, new Double3(0.5).max(), 0.000001, "Wrong maximum of equal numbers");
+    }
+}
@@ -1,5 +1,7 @@
 package primitives;
 
+import geometries.Intersectable.GeoPoint;
+import geometries.Sphere;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
@@ -79,4 +81,28 @@ class RayTest {
         assertEquals(p500,new Ray(new Point(5.5,0,0),new Vector(1,0,0)).findClosestPoint(lst),"closest point is in the laster of the list" );
 
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link primitives.Ray#findClosestGeoPoint(List)}.
+     */
+    @Test
+    void findClosestGeoPoint() {
+        Ray ray = new Ray(new Point(-3, 0, 0), new Vector(1, 0, 0));
+        List<GeoPoint> intersections = new Sphere(Point.ZERO, 1).findGeoIntersections(ray);
+
+        // ========================= Equivalence Partitions Tests ===================================
+        //TC01: The intersections carry their distance along the ray
+        assertEquals(2, intersections.size(), "Wrong number of intersections");
+        for (GeoPoint gp : intersections)
+            assertEquals(ray.getHead().distance(gp.point), gp.t, 0.00001, "Wrong ray parameter");
+
+        //TC02: The intersection closest to the ray's head is found by its ray parameter
+        assertEquals(new Point(-1, 0, 0), ray.findClosestGeoPoint(intersections).point, "Wrong closest point");
+
+        // =========================Boundary Values Tests======================================================
+        //TC03: Points without a ray parameter are compared by their distance
+        assertEquals(new Point(-1, 0, 0), ray.findClosestGeoPoint(
+                        List.of(new GeoPoint(null, new Point(2, 0, 0)), new GeoPoint(null, new Point(-1, 0, 0)))).point,
+                "Wrong closest point");
+    }
+}
@@ -0,0 +1,82 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing Sampler
+ */
+class SamplerTest {
+    private final double DELTA = 0.000001;
+
+    /** The samplers to test, by their names */
+    private final Map<String, Sampler> samplers = Map.of("stratified", Sampler.stratified(),
+            "jittered", Sampler.jittered(7), "halton", Sampler.halton(7), "sobol", Sampler.sobol(7),
+            "blue noise", Sampler.blueNoise(7));
+
+    /**
+     * Test method for {@link primitives.Sampler#sample(int, double[])}.
+     */
+    @Test
+    void sample() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: All the points of every sampler are in the unit square, and spread over all of it
+        for (Map.Entry<String, Sampler> entry : samplers.entrySet()) {
+            double[] points = new double[2 * 8 * 8];
+            entry.getValue().sample(8, points);
+            int[] quarters = new int[4];
+            for (int p = 0; p < points.length; p += 2) {
+                assertTrue(points[p] >= 0 && points[p] < 1, "A point out of the square by " + entry.getKey());
+                assertTrue(points[p + 1] >= 0 && points[p + 1] < 1,
+                        "A point out of the square by " + entry.getKey());
+                ++quarters[(points[p] < 0.5 ? 0 : 1) + (points[p + 1] < 0.5 ? 0 : 2)];
+            }
+            for (int quarter : quarters)
+                assertTrue(quarter >= 12 && quarter <= 20, "The points are not spread by " + entry.getKey());
+        }
+
+        // TC02: The stratified, jittered and Sobol samplers have exactly one point in every cell of the grid
+        for (String name : new String[] { "stratified", "jittered", "sobol" }) {
+            double[] points = new double[2 * 4 * 4];
+            samplers.get(name).sample(4, points);
+            boolean[][] cells = new boolean[4][4];
+            for (int p = 0; p < points.length; p += 2) {
+                int column = (int) (points[p] * 4), row = (int) (points[p + 1] * 4);
+                assertFalse(cells[row][column], "Two points in the same cell by " + name);
+                cells[row][column] = true;
+            }
+        }
+
+        // TC03: The points of blue noise are not too close to each other
+        double[] points = new double[2 * 6 * 6];
+        samplers.get("blue noise").sample(6, points);
+        for (int p = 0; p < points.length; p += 2)
+            for (int q = p + 2; q < points.length; q += 2) {
+                double dx = Math.abs(points[p] - points[q]), dy = Math.abs(points[p + 1] - points[q + 1]);
+                dx = Math.min(dx, 1 - dx);
+                dy = Math.min(dy, 1 - dy);
+                assertTrue(Math.sqrt(dx * dx + dy * dy) > 0.25 / 6, "Blue noise points are too close");
+            }
+
+        // TC04: Samplers of the same seed give the same points in the same thread, and the random samplers change
+        // their points every time
+        double[] first = new double[2 * 3 * 3], second = new double[2 * 3 * 3];
+        Sampler.halton(3).sample(3, first);
+        Sampler.halton(3).sample(3, second);
+        assertArrayEquals(first, second, DELTA, "The same seed gave different points");
+        Sampler sobol = Sampler.sobol(3);
+        sobol.sample(3, first);
+        sobol.sample(3, second);
+        assertFalse(Arrays.equals(first, second), "The points were not randomized");
+
+        // =============== Boundary Values Tests ==================
+        // TC05: A single point
+        double[] center = new double[2];
+        Sampler.stratified().sample(1, center);
+        assertArrayEquals(new double[] { 0.5, 0.5 }, center, DELTA, "Wrong single point");
+    }
+}
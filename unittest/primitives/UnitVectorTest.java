@@ -0,0 +1,35 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing UnitVector
+ */
+class UnitVectorTest {
+    private final double DELTA = 0.000001;
+
+    /** Test method for {@link primitives.UnitVector#normalize()}. */
+    @Test
+    void normalize() {
+        UnitVector v = new Vector(1, 2, 2).normalize();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A normalized vector is a unit vector of the same direction
+        assertEquals(new Vector(1 / 3d, 2 / 3d, 2 / 3d), v, "Wrong unit vector");
+        assertEquals(1, v.length(), DELTA, "The unit vector is not normalized");
+
+        // TC02: Normalizing a unit vector again does nothing
+        assertSame(v, v.normalize(), "The unit vector was normalized again");
+
+        // TC03: A ray takes a unit vector as its direction as is
+        assertSame(v, new Ray(Point.ZERO, v).getDirection(), "The ray normalized a unit vector");
+
+        // =============== Boundary Values Tests ==================
+        // TC04: Scaling a unit vector makes a plain vector, which is normalized again
+        Vector scaled = v.scale(3);
+        assertFalse(scaled instanceof UnitVector, "A scaled vector was taken as a unit vector");
+        assertEquals(v, scaled.normalize(), "Wrong normalization of a scaled unit vector");
+    }
+}
@@ -21,5 +21,11 @@ class UtilTest {
 
     @Test
     void random() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The numbers are in the range
+        for (int i = 0; i < 1000; ++i) {
+            double number = Util.random(-2, 3);
+            assertTrue(number >= -2 && number < 3, "A random number out of the range");
+        }
     }
 }
\ No newline at end of file
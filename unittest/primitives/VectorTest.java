@@ -172,6 +172,27 @@ class VectorTest{
         assertEquals(1, resultLength, DELTA, "Vector normalization failed");
     }
 
+    /** Test method for {@link primitives.Vector#normalized(double, double, double)}. */
+    @Test
+    void normalized() {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: The trusted factory normalizes like normalize()
+        assertEquals(new Vector(1, 2, 3).normalize(), Vector.normalized(1, 2, 3), "Vector normalized failed");
+
+        //TC02: The trusted factory keeps the values
+        assertEquals(new Vector(1, 2, 3), Vector.ofNonZero(1, 2, 3), "Vector ofNonZero failed");
+
+        // ================= Boundary Values Tests ==================
+        //TC03: A zero vector is not checked by the trusted factories, unless the assertions are enabled
+        if (Vector.class.desiredAssertionStatus())
+            assertThrows(AssertionError.class, () -> Vector.ofNonZero(0, 0, 0), "Trusted a zero vector");
+        else
+            assertDoesNotThrow(() -> Vector.ofNonZero(0, 0, 0), "Checked a trusted vector");
+
+        //TC04: A zero vector can't be normalized, with the assertions enabled or not
+        assertThrows(IllegalArgumentException.class, () -> Vector.normalized(0, 0, 0), "Normalized a zero vector");
+    }
+
     /** Test method for {@link primitives.Vector#equals(Object)}. */
     @Test
     void testEquals() {
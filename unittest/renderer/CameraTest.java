@@ -1,9 +1,24 @@
 package renderer;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
 
+import geometries.Plane;
+import geometries.RayPacket;
+import geometries.Sphere;
+import lighting.PointLight;
 import primitives.*;
 import renderer.*;
 import scene.Scene;
@@ -63,4 +78,341 @@ class CameraTest {
 
     }
 
+    /**
+     * Test method for {@link renderer.Camera#renderImage()}.
+     */
+    @Test
+    void testRenderImage() {
+        // A ray tracer that records the rays it traces
+        Queue<Ray> rays = new ConcurrentLinkedQueue<>();
+        RayTracerBase recorder = new RayTracerBase(new Scene("Test")) {
+            @Override
+            public Color traceRay(Ray ray) {
+                rays.add(ray);
+                return Color.BLACK;
+            }
+        };
+        Camera.Builder builder = cameraBuilder.setVpSize(23, 17).setRayTracer(recorder)
+                .setImageWriter(new ImageWriter("Test", 23, 17)).setTileSize(4);
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: Every pixel's ray is traced exactly once - without threads, with threads, and by fork/join
+        for (int threads : List.of(0, 3, -1)) {
+            rays.clear();
+            builder.setMultithreading(threads).build().renderImage();
+            assertEquals(23 * 17, rays.size(), "Wrong number of rays with multithreading " + threads);
+            assertEquals(23 * 17, rays.stream().map(Ray::toString).distinct().count(),
+                    "A pixel was rendered twice with multithreading " + threads);
+        }
+
+        // EP02: Every pixel's ray is traced exactly once by every render executor
+        ExecutorService shared = Executors.newFixedThreadPool(2);
+        for (RenderExecutor executor : List.of(RenderExecutor.callerRuns(), RenderExecutor.platformThreads(2),
+                RenderExecutor.virtualThreads(), RenderExecutor.forkJoin(), RenderExecutor.of(shared))) {
+            rays.clear();
+            builder.setRenderExecutor(executor).build().renderImage();
+            assertEquals(23 * 17, rays.size(), "Wrong number of rays");
+            assertEquals(23 * 17, rays.stream().map(Ray::toString).distinct().count(), "A pixel was rendered twice");
+        }
+        assertFalse(shared.isShutdown(), "A shared executor service must not be shut down");
+        shared.shutdown();
+
+        // EP03: Two cameras render at once without interfering with each other
+        Camera camera = builder.setMultithreading(2).build();
+        Queue<Ray> otherRays = new ConcurrentLinkedQueue<>();
+        Camera other = cameraBuilder.setVpSize(11, 9).setImageWriter(new ImageWriter("Test", 11, 9))
+                .setRayTracer(new RayTracerBase(new Scene("Test")) {
+                    @Override
+                    public Color traceRay(Ray ray) {
+                        otherRays.add(ray);
+                        return Color.BLACK;
+                    }
+                }).setMultithreading(2).build();
+        rays.clear();
+        Thread otherRendering = Thread.ofPlatform().start(other::renderImage);
+        camera.renderImage();
+        try {
+            otherRendering.join();
+        } catch (InterruptedException e) {
+            fail("Interrupted");
+        }
+        assertEquals(23 * 17, rays.size(), "Wrong number of rays of the first camera");
+        assertEquals(11 * 9, otherRays.size(), "Wrong number of rays of the second camera");
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#renderImage()} with a failing or slow ray tracer.
+     */
+    @Test
+    void testRenderImageStopped() {
+        Camera.Builder builder = cameraBuilder.setVpSize(20, 20).setImageWriter(new ImageWriter("Test", 20, 20))
+                .setTileSize(5);
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: The failure of a tile is thrown by the rendering, and the rest of the tiles are not rendered - a
+        // tile fails at its first ray, the tiles that already started may fail as well, and no other tile starts
+        AtomicInteger traced = new AtomicInteger();
+        builder.setRayTracer(new RayTracerBase(new Scene("Test")) {
+            @Override
+            public Color traceRay(Ray ray) {
+                traced.incrementAndGet();
+                throw new IllegalStateException("Tracing failed");
+            }
+        });
+        // An executor service running every task right away by the submitting thread, so the tiles are rendered
+        // one after the other, in order
+        ExecutorService direct = new AbstractExecutorService() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+
+            @Override
+            public void shutdown() {
+            }
+
+            @Override
+            public List<Runnable> shutdownNow() {
+                return List.of();
+            }
+
+            @Override
+            public boolean isShutdown() {
+                return false;
+            }
+
+            @Override
+            public boolean isTerminated() {
+                return false;
+            }
+
+            @Override
+            public boolean awaitTermination(long timeout, TimeUnit unit) {
+                return false;
+            }
+        };
+        for (RenderExecutor executor : List.of(RenderExecutor.callerRuns(), RenderExecutor.of(direct))) {
+            traced.set(0);
+            Camera camera = builder.setRenderExecutor(executor).build();
+            assertThrows(IllegalStateException.class, camera::renderImage, "The failure was not thrown");
+            assertEquals(1, traced.get(), "The rendering was not stopped by the failure");
+        }
+        for (RenderExecutor executor : List.of(RenderExecutor.platformThreads(2), RenderExecutor.virtualThreads(),
+                RenderExecutor.forkJoin())) {
+            traced.set(0);
+            Camera camera = builder.setRenderExecutor(executor).build();
+            assertThrows(IllegalStateException.class, camera::renderImage, "The failure was not thrown");
+            assertTrue(traced.get() <= 16, "A tile started after the failure");
+        }
+
+        // EP02: The rendering is stopped by the timeout - a row of a tile takes longer than the timeout, so every
+        // tile that started renders at most a row
+        builder.setRayTracer(new RayTracerBase(new Scene("Test")) {
+            @Override
+            public Color traceRay(Ray ray) {
+                traced.incrementAndGet();
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException ignore) {
+                }
+                return Color.BLACK;
+            }
+        }).setRenderTimeout(Duration.ofMillis(50));
+        for (RenderExecutor executor : List.of(RenderExecutor.callerRuns(), RenderExecutor.platformThreads(2),
+                RenderExecutor.virtualThreads(), RenderExecutor.forkJoin())) {
+            traced.set(0);
+            Camera camera = builder.setRenderExecutor(executor).build();
+            assertThrows(CancellationException.class, camera::renderImage, "The rendering did not time out");
+            assertTrue(traced.get() <= 16 * 5, "The rendering was not stopped");
+        }
+
+        // EP03: The rendering is stopped when the calling thread is interrupted, and the interrupt status is kept
+        builder.setRenderTimeout(null);
+        for (RenderExecutor executor : List.of(RenderExecutor.callerRuns(), RenderExecutor.platformThreads(2),
+                RenderExecutor.virtualThreads(), RenderExecutor.forkJoin())) {
+            traced.set(0);
+            Camera camera = builder.setRenderExecutor(executor).build();
+            Thread.currentThread().interrupt();
+            assertThrows(CancellationException.class, camera::renderImage, "The rendering was not interrupted");
+            assertTrue(Thread.interrupted(), "The interrupt status was lost");
+            assertTrue(traced.get() <= 16 * 5, "The rendering was not stopped");
+        }
+
+        // =============== Boundary Values Tests ==================
+        // BV01: Illegal timeout
+        assertThrows(IllegalArgumentException.class, () -> builder.setRenderTimeout(Duration.ZERO),
+                "A zero timeout was accepted");
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#renderImage()} with adaptive anti-aliasing.
+     */
+    @Test
+    void testRenderImageAntiAliasing() {
+        // A ray tracer of a white half plane, whose edge crosses the view plane 0.3 pixel into a pixel
+        RayTracerBase edge = new RayTracerBase(new Scene("Test")) {
+            @Override
+            public Color traceRay(Ray ray) {
+                Vector direction = ray.getDirection();
+                return direction.getX() > -0.03 * direction.getZ() ? new Color(255, 255, 255) : Color.BLACK;
+            }
+        };
+        // An image writer that keeps the red component of every pixel
+        int[][] red = new int[8][8];
+        ImageWriter writer = new ImageWriter("Test", 8, 8) {
+            @Override
+            public void writePixel(int xIndex, int yIndex, Color color) {
+                red[yIndex][xIndex] = color.getColor().getRed();
+            }
+        };
+        Camera.Builder builder = cameraBuilder.setVpSize(8, 8).setImageWriter(writer).setTileSize(4)
+                .setMultithreading(0);
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: A uniform image - only the corners of the pixels are traced, once per tile
+        Camera camera = builder.setRayTracer(new SimpleRayTracer(new Scene("Test"))).setAntiAliasing(2, 1).build();
+        camera.renderImage();
+        assertEquals(4 * 5 * 5, camera.getRaysCount(), "Wrong number of rays of a uniform image");
+
+        // EP02: Only the pixels on the edge are subdivided, twice - 5 rays for the pixel and 5 for each of its two
+        // quarters on the edge
+        camera = builder.setRayTracer(edge).setAntiAliasing(2, 1).build();
+        camera.renderImage();
+        assertEquals(4 * 5 * 5 + 8 * 15, camera.getRaysCount(), "Wrong number of rays of an edge");
+        int blended = 0;
+        for (int[] row : red)
+            for (int value : row)
+                if (value != 0 && value != 255) {
+                    ++blended;
+                    assertEquals(159, value, "Wrong color of an edge pixel");
+                }
+        assertEquals(8, blended, "Wrong number of edge pixels");
+
+        // =============== Boundary Values Tests ==================
+        // BV01: No subdivision - the corners are averaged
+        camera = builder.setAntiAliasing(0, 1).build();
+        camera.renderImage();
+        assertEquals(4 * 5 * 5, camera.getRaysCount(), "Wrong number of rays without subdivision");
+
+        // BV02: No anti-aliasing - a ray per pixel
+        camera = builder.setAntiAliasing(-1, 0).build();
+        camera.renderImage();
+        assertEquals(64, camera.getRaysCount(), "Wrong number of rays without anti-aliasing");
+
+        // BV03: Illegal parameters
+        assertThrows(IllegalArgumentException.class, () -> builder.setAntiAliasing(-2, 1), "Accepted a bad depth");
+        assertThrows(IllegalArgumentException.class, () -> builder.setAntiAliasing(1, -1),
+                "Accepted a negative threshold");
+        assertThrows(IllegalArgumentException.class, () -> builder.setAntiAliasing(Sampler.sobol(1), 0),
+                "Accepted an empty sampling");
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#renderImage()} with anti-aliasing by a sampler.
+     */
+    @Test
+    void testRenderImageSampler() {
+        // A ray tracer of a white half plane, whose edge crosses the view plane in the middle of a pixel
+        RayTracerBase edge = new RayTracerBase(new Scene("Test")) {
+            @Override
+            public Color traceRay(Ray ray) {
+                Vector direction = ray.getDirection();
+                return direction.getX() > -0.05 * direction.getZ() ? new Color(255, 255, 255) : Color.BLACK;
+            }
+        };
+        // An image writer that keeps the red component of every pixel
+        int[][] red = new int[8][8];
+        ImageWriter writer = new ImageWriter("Test", 8, 8) {
+            @Override
+            public void writePixel(int xIndex, int yIndex, Color color) {
+                red[yIndex][xIndex] = color.getColor().getRed();
+            }
+        };
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: Every pixel gets the same number of rays, and the edge pixels are half covered
+        Camera camera = cameraBuilder.setVpSize(8, 8).setImageWriter(writer).setRayTracer(edge)
+                .setMultithreading(0).setAntiAliasing(Sampler.sobol(1), 4).build();
+        camera.renderImage();
+        assertEquals(64 * 16, camera.getRaysCount(), "Wrong number of rays");
+        int blended = 0;
+        for (int[] row : red)
+            for (int value : row)
+                if (value != 0 && value != 255) {
+                    ++blended;
+                    assertEquals(127, value, "Wrong color of an edge pixel");
+                }
+        assertEquals(8, blended, "Wrong number of edge pixels");
+
+        // =============== Boundary Values Tests ==================
+        // BV01: A single ray in the center of every pixel
+        camera = cameraBuilder.setAntiAliasing(Sampler.stratified(), 1).build();
+        camera.renderImage();
+        assertEquals(64, camera.getRaysCount(), "Wrong number of rays of a single sample");
+    }
+
+    /**
+     * Renders a scene of a few balls over a floor, keeping the colors of the pixels
+     *
+     * @param builder the builder of the camera, set for the image
+     * @return the colors of the pixels, and the number of rays cast as the last element
+     */
+    private int[] renderBalls(Camera.Builder builder) {
+        Scene scene = new Scene("Balls");
+        scene.geometries.add(new Plane(new Point(0, 0, -100), new Vector(0, 0, 1))
+                        .setMaterial(new Material().setKd(0.5)),
+                new Sphere(new Point(-20, 0, -60), 15).setEmission(new Color(200, 0, 0))
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setKR(0.3).setShininess(30)),
+                new Sphere(new Point(20, 10, -70), 20).setEmission(new Color(0, 0, 200))
+                        .setMaterial(new Material().setKd(0.5).setKT(0.4)));
+        scene.lights.add(new PointLight(new Color(300, 300, 300), new Point(50, -50, 50)));
+        int[] pixels = new int[12 * 12 + 1];
+        ImageWriter writer = new ImageWriter("Test", 12, 12) {
+            @Override
+            public void writePixel(int xIndex, int yIndex, Color color) {
+                pixels[yIndex * 12 + xIndex] = color.getColor().getRGB();
+            }
+        };
+        Camera camera = builder.setVpSize(60, 60).setImageWriter(writer).setRayTracer(new SimpleRayTracer(scene))
+                .build();
+        camera.renderImage();
+        pixels[12 * 12] = (int) camera.getRaysCount();
+        return pixels;
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#renderImage()} with ray packets.
+     */
+    @Test
+    void testRenderImagePackets() {
+        Camera.Builder builder = cameraBuilder.setMultithreading(2).setTileSize(5);
+        int[] single = renderBalls(builder);
+
+        // ============ Equivalence Partitions Tests ==============
+        // EP01: Packets of the rays of neighbouring pixels render the same image as single rays
+        assertArrayEquals(single, renderBalls(builder.setRayPackets(4)), "Packets changed the image");
+
+        // EP02: Packets of the rays of sampled pixels render the same image as single rays
+        builder.setAntiAliasing(Sampler.stratified(), 3);
+        single = renderBalls(builder.setRayPackets(0));
+        assertArrayEquals(single, renderBalls(builder.setRayPackets(4)), "Packets changed the sampled image");
+
+        // =============== Boundary Values Tests ==================
+        // BV01: Packets of a single ray, and packets larger than a tile's row and than a pixel's samples
+        assertArrayEquals(single, renderBalls(builder.setRayPackets(1)), "Single ray packets changed the image");
+        assertArrayEquals(single, renderBalls(builder.setRayPackets(RayPacket.MAX_SIZE)),
+                "Full packets changed the image");
+        builder.setAntiAliasing(-1, 0);
+        assertArrayEquals(renderBalls(builder.setRayPackets(0)), renderBalls(builder.setRayPackets(RayPacket.MAX_SIZE)),
+                "Full packets changed the image");
+
+        // BV02: Illegal packet sizes
+        assertThrows(IllegalArgumentException.class, () -> builder.setRayPackets(-1), "Accepted a negative size");
+        assertThrows(IllegalArgumentException.class, () -> builder.setRayPackets(RayPacket.MAX_SIZE + 1),
+                "Accepted a packet larger than a lane mask");
+
+        // BV03: Packets along with adaptive anti-aliasing
+        assertThrows(IllegalStateException.class, () -> builder.setAntiAliasing(2, 10).setRayPackets(4).build(),
+                "Built a camera of packets and adaptive anti-aliasing");
+    }
 }
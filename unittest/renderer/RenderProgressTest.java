@@ -0,0 +1,43 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing RenderProgress
+ */
+class RenderProgressTest {
+
+    /**
+     * Test method for {@link renderer.RenderProgress#pixelsDone(int)}.
+     */
+    @Test
+    void pixelsDone() throws InterruptedException {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The pixels reported by many threads at once are all counted
+        RenderProgress progress = new RenderProgress(100, 80, 0);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; ++t)
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 500; ++i) progress.pixelsDone(4);
+            }));
+        for (Thread thread : threads) thread.join();
+        assertEquals(8000, progress.getPixelsDone(), "Wrong number of rendered pixels");
+
+        // TC02: The progress of two renderings is tracked separately
+        RenderProgress other = new RenderProgress(10, 10, 0);
+        other.pixelsDone(25);
+        assertEquals(25, other.getPixelsDone(), "Wrong number of rendered pixels");
+        assertEquals(8000, progress.getPixelsDone(), "The progress of another rendering was changed");
+
+        // TC03: The rays are counted apart from the pixels
+        other.raysCast(100);
+        other.raysCast(7);
+        assertEquals(107, other.getRaysCast(), "Wrong number of cast rays");
+        assertEquals(25, other.getPixelsDone(), "The rays were counted as pixels");
+    }
+}
@@ -0,0 +1,44 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing SamplePattern
+ */
+class SamplePatternTest {
+    private final double DELTA = 0.000001;
+
+    /**
+     * Test method for {@link renderer.SamplePattern#of(int, int)}.
+     */
+    @Test
+    void of() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The samples are the centers of the cells of the grid
+        SamplePattern pattern = SamplePattern.of(9, 8);
+        assertEquals(8, pattern.getLast(), "Wrong number of samples");
+        for (int i = 0; i <= 8; ++i)
+            assertEquals((i - 4) / 9d, pattern.getOffset(i), DELTA, "Wrong offset of sample " + i);
+
+        // TC02: The samples are between the centers of the cells
+        pattern = SamplePattern.of(9, 16);
+        assertEquals(16, pattern.getLast(), "Wrong number of samples");
+        assertEquals(-3.5 / 9, pattern.getOffset(1), DELTA, "Wrong offset of a sample between cells");
+
+        // TC03: A pattern is calculated only once
+        assertSame(SamplePattern.of(9, 16), pattern, "The pattern was calculated again");
+
+        // =============== Boundary Values Tests ==================
+        // TC04: A single cell
+        pattern = SamplePattern.of(1, 0);
+        assertEquals(0, pattern.getLast(), "Wrong number of samples");
+        assertEquals(0, pattern.getOffset(0), DELTA, "Wrong offset of the center");
+
+        // TC05: Illegal grids
+        assertThrows(IllegalArgumentException.class, () -> SamplePattern.of(0, 1), "Accepted an empty grid");
+        assertThrows(IllegalArgumentException.class, () -> SamplePattern.of(3, -1),
+                "Accepted a negative number of intervals");
+    }
+}
@@ -0,0 +1,274 @@
+package renderer;
+
+import geometries.Plane;
+import geometries.Sphere;
+import lighting.DiskLight;
+import lighting.LightSource;
+import lighting.PointLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing SimpleRayTracer
+ */
+class SimpleRayTracerTest {
+    /** A ray between the two mirrors of the mirror room */
+    private final Ray ray = new Ray(Point.ZERO, new Vector(0, 0, -1));
+
+    /**
+     * Builds a mirror room - two parallel glowing planes reflecting half of the light. The color seen between them
+     * is the emission of a plane times 1 + 0.5 + 0.25 + ... for every reflection that is traced.
+     *
+     * @return the scene of the mirror room
+     */
+    private Scene mirrorRoom() {
+        Scene scene = new Scene("Mirror room");
+        Material mirror = new Material().setKR(0.5);
+        scene.geometries.add(
+                new Plane(new Point(0, 0, -10), new Vector(0, 0, 1)).setEmission(new Color(100, 100, 100))
+                        .setMaterial(mirror),
+                new Plane(new Point(0, 0, 10), new Vector(0, 0, -1)).setEmission(new Color(100, 100, 100))
+                        .setMaterial(mirror));
+        return scene;
+    }
+
+    /**
+     * Test method for {@link renderer.SimpleRayTracer#traceRay(primitives.Ray)} with the termination of the
+     * recursion.
+     */
+    @Test
+    void testTermination() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The default termination - 10 levels, down to a coefficient of 0.001
+        assertEquals(199, new SimpleRayTracer(mirrorRoom()).traceRay(ray).getColor().getRed(),
+                "Wrong color by the default termination");
+
+        // TC02: The recursion is terminated by the maximum level
+        assertEquals(175, new SimpleRayTracer(mirrorRoom()).setMaxLevel(3).traceRay(ray).getColor().getRed(),
+                "Wrong color by the maximum level");
+
+        // TC03: The recursion is terminated by the minimum coefficient
+        assertEquals(175, new SimpleRayTracer(mirrorRoom()).setMinK(0.2).traceRay(ray).getColor().getRed(),
+                "Wrong color by the minimum coefficient");
+
+        // TC04: Russian roulette keeps the expected color of all the reflections (200), tracing only some of them
+        SimpleRayTracer tracer = new SimpleRayTracer(mirrorRoom()).setMaxLevel(40).setRussianRoulette(0.3);
+        Color sum = Color.BLACK;
+        for (int i = 0; i < 20000; ++i) sum = sum.add(tracer.traceRay(ray));
+        assertEquals(200, sum.reduce(20000).getColor().getRed(), 3, "Russian roulette changed the color");
+
+        // =============== Boundary Values Tests ==================
+        // TC05: No reflections at all
+        assertEquals(100, new SimpleRayTracer(mirrorRoom()).setMaxLevel(1).traceRay(ray).getColor().getRed(),
+                "Wrong color of a single level");
+
+        // TC06: Illegal termination parameters
+        SimpleRayTracer illegal = new SimpleRayTracer(mirrorRoom());
+        assertThrows(IllegalArgumentException.class, () -> illegal.setMaxLevel(0), "Accepted no levels");
+        assertThrows(IllegalArgumentException.class, () -> illegal.setMinK(-0.1), "Accepted a negative minimum");
+        assertThrows(IllegalArgumentException.class, () -> illegal.setRussianRoulette(1.5),
+                "Accepted a roulette threshold above 1");
+    }
+
+    /**
+     * Runs a task on a thread of a small Java stack
+     *
+     * @param task the task
+     * @return the error the task threw, null if it ran to its end
+     * @throws InterruptedException if the test is interrupted while it waits for the thread
+     */
+    private Throwable runOnSmallStack(Runnable task) throws InterruptedException {
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread thread = new Thread(null, () -> {
+            try {
+                task.run();
+            } catch (Throwable e) {
+                error.set(e);
+            }
+        }, "small stack", 256 * 1024);
+        thread.start();
+        thread.join();
+        return error.get();
+    }
+
+    /**
+     * Test method for {@link renderer.SimpleRayTracer#traceRay(primitives.Ray)} with a deep recursion - the
+     * reflections and the samples of adaptive cones are traced by the work stack, not by nested Java calls.
+     *
+     * @throws InterruptedException if the test is interrupted while it waits for the thread of the small stack
+     */
+    @Test
+    void testDeepRecursion() throws InterruptedException {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: 20000 levels of reflections are traced on a small Java stack, to the color of all the reflections
+        SimpleRayTracer deep = new SimpleRayTracer(mirrorRoom()).setMaxLevel(20000).setMinK(0);
+        AtomicInteger red = new AtomicInteger();
+        assertNull(runOnSmallStack(() -> red.set(deep.traceRay(ray).getColor().getRed())),
+                "The deep reflections overflowed the Java stack");
+        assertEquals(200, red.get(), "Wrong color of the deep reflections");
+
+        // TC02: The depth of the Java calls at an intersection of glossy mirrors doesn't grow with the level of the
+        // adaptive cones, and the uniform cones have the color of the sharp mirrors
+        AtomicInteger depth = new AtomicInteger();
+        int[] depths = new int[2];
+        int[] levels = { 2, 6 };
+        for (int i = 0; i < levels.length; ++i) {
+            Scene scene = new Scene("Glossy mirror room");
+            Material glossy = new Material().setKR(0.5).setkG(1);
+            scene.geometries.add(
+                    new Plane(new Point(0, 0, -10), new Vector(0, 0, 1)).setEmission(new Color(100, 100, 100))
+                            .setMaterial(glossy),
+                    new Plane(new Point(0, 0, 10), new Vector(0, 0, -1)).setEmission(new Color(100, 100, 100))
+                            .setMaterial(glossy));
+            // A light of no intensity, that measures the depth of the calls at every intersection it lights
+            scene.lights.add(new PointLight(Color.BLACK, Point.ZERO) {
+                @Override
+                public Vector getL(Point p) {
+                    depth.accumulateAndGet(StackWalker.getInstance().walk(frames -> (int) frames.count()),
+                            Math::max);
+                    return super.getL(p);
+                }
+            });
+            depth.set(0);
+            assertEquals(new SimpleRayTracer(mirrorRoom()).setMaxLevel(levels[i]).traceRay(ray).getColor(),
+                    new SimpleRayTracer(scene).setMaxLevel(levels[i]).traceRay(ray).getColor(),
+                    "Wrong color of the glossy mirrors");
+            depths[i] = depth.get();
+        }
+        assertEquals(depths[0], depths[1], "The depth of the calls grew with the level of the adaptive cones");
+    }
+
+    /**
+     * Builds a floor lit from above, with a ball between the floor and the light
+     *
+     * @param light the light above the floor
+     * @return the scene of the floor
+     */
+    private Scene shadowedFloor(LightSource light) {
+        Scene scene = new Scene("Shadowed floor");
+        scene.geometries.add(new Plane(Point.ZERO, new Vector(0, 0, 1)).setMaterial(new Material().setKd(1)),
+                new Sphere(new Point(0, 0, 50), 10));
+        scene.lights.add(light);
+        return scene;
+    }
+
+    /**
+     * Traces a ray looking down at a point of the floor
+     *
+     * @param scene the scene of the floor
+     * @param x     the x coordinate of the point
+     * @return the red component of the color seen
+     */
+    private int floorRed(Scene scene, double x) {
+        return new SimpleRayTracer(scene).traceRay(new Ray(new Point(x, 0, 10), new Vector(0, 0, -1)))
+                .getColor().getRed();
+    }
+
+    /**
+     * Test method for {@link renderer.SimpleRayTracer#traceRay(primitives.Ray)} with the soft shadows of an area
+     * light.
+     */
+    @Test
+    void testSoftShadows() {
+        Color intensity = new Color(100, 100, 100);
+        Point center = new Point(0, 0, 100);
+        Scene soft = shadowedFloor(new DiskLight(intensity, center, new Vector(0, 0, 1), 20)
+                .setSampler(Sampler.stratified(), 8));
+        Scene hard = shadowedFloor(new PointLight(intensity, center));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A point that sees all of the light is lit like by a point light at its center
+        assertEquals(floorRed(hard, 200), floorRed(soft, 200), "Wrong color of a fully lit point");
+
+        // TC02: A point that sees none of the light is in the shadow
+        assertEquals(0, floorRed(soft, 0), "Wrong color of a fully occluded point");
+
+        // TC03: A point that sees a part of the light is in the penumbra, which a point light doesn't have
+        int penumbra = floorRed(soft, 15);
+        // (without the ball the point would be 98)
+        assertTrue(penumbra > 0 && penumbra < 98, "Wrong color of the penumbra");
+        assertEquals(0, floorRed(hard, 15), "A point light cast a penumbra");
+
+        // =============== Boundary Values Tests ==================
+        // TC04: A single sample casts the hard shadow of the center of the light
+        Scene single = shadowedFloor(new DiskLight(intensity, center, new Vector(0, 0, 1), 20)
+                .setSampler(Sampler.stratified(), 1));
+        assertEquals(floorRed(hard, 15), floorRed(single, 15), "A single sample cast a soft shadow");
+
+        // TC05: A small ball hides only the middle of the light, none of its boundary, and still casts a shadow
+        Scene small = new Scene("Small occluder");
+        small.geometries.add(new Plane(Point.ZERO, new Vector(0, 0, 1)).setMaterial(new Material().setKd(1)),
+                new Sphere(new Point(0, 0, 50), 2));
+        small.lights.add(new DiskLight(intensity, center, new Vector(0, 0, 1), 20)
+                .setSampler(Sampler.stratified(), 16));
+        int shadow = floorRed(small, 0);
+        // (without the ball the point would be 100)
+        assertTrue(shadow > 0 && shadow < 100, "The small ball cast no shadow");
+    }
+
+    /**
+     * Test method for {@link renderer.SimpleRayTracer#getOccluderHitRate()}.
+     */
+    @Test
+    void testOccluderCache() {
+        SimpleRayTracer tracer = new SimpleRayTracer(
+                shadowedFloor(new PointLight(new Color(100, 100, 100), new Point(0, 0, 100))));
+        Ray down = new Ray(new Point(0, 0, 10), new Vector(0, 0, -1));
+
+        // =============== Boundary Values Tests ==================
+        // TC01: No shadow rays yet
+        assertEquals(0, tracer.getOccluderHitRate(), "Wrong hit rate before any shadow ray");
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC02: The first shadow ray finds the occluder in the scene, the next one finds it in the cache
+        assertEquals(0, tracer.traceRay(down).getColor().getRed(), "Wrong color of the shadow");
+        assertEquals(0, tracer.getOccluderHits(), "The first shadow ray hit the empty cache");
+        assertEquals(0, tracer.traceRay(new Ray(new Point(1, 0, 10), new Vector(0, 0, -1))).getColor().getRed(),
+                "Wrong color of the shadow by the cached occluder");
+        assertEquals(1, tracer.getOccluderHits(), "The cached occluder was not used");
+
+        // TC03: A lit point misses the cached occluder, and is lit
+        assertTrue(tracer.traceRay(new Ray(new Point(200, 0, 10), new Vector(0, 0, -1))).getColor().getRed() > 0,
+                "The cached occluder shadowed a lit point");
+        assertEquals(3, tracer.getShadowRays(), "Wrong number of shadow rays");
+        assertEquals(1d / 3, tracer.getOccluderHitRate(), 0.000001, "Wrong hit rate");
+    }
+
+    /**
+     * Test method for {@link renderer.SimpleRayTracer#traceRay(primitives.Ray)} with the local effects of point
+     * lights - the emission, and the diffuse and specular reflections of the Phong model.
+     */
+    @Test
+    void testLocalEffects() {
+        Scene scene = new Scene("Lit floor");
+        scene.geometries.add(new Plane(Point.ZERO, new Vector(0, 0, 1)).setEmission(new Color(10, 20, 30))
+                .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(2)));
+        // The ray hits the origin from (3, 0, 4): v = (-0.6, 0, -0.8)
+        Ray view = new Ray(new Point(3, 0, 4), new Vector(-3, 0, -4));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A light above the point: diffuse 1, and the reflection (0, 0, 1) makes a specular factor of
+        // 0.8^2 - the emission and 100 * (0.5 + 0.5 * 0.64)
+        scene.lights.add(new PointLight(new Color(100, 100, 100), new Point(0, 0, 10)));
+        assertEquals(new java.awt.Color(92, 102, 112), new SimpleRayTracer(scene).traceRay(view).getColor(),
+                "Wrong color of the diffuse and specular reflections");
+
+        // TC02: Another light at (4, 0, 3): diffuse 0.6, and its reflection is perpendicular to the view - no
+        // specular reflection, 100 * 0.5 * 0.6 more
+        scene.lights.add(new PointLight(new Color(100, 100, 100), new Point(4, 0, 3)));
+        assertEquals(new java.awt.Color(122, 132, 142), new SimpleRayTracer(scene).traceRay(view).getColor(),
+                "Wrong color of the accumulated lights");
+
+        // =============== Boundary Values Tests ==================
+        // TC03: A light below the floor, on the other side of the surface, adds nothing
+        scene.lights.add(new PointLight(new Color(100, 100, 100), new Point(0, 0, -10)));
+        assertEquals(new java.awt.Color(122, 132, 142), new SimpleRayTracer(scene).traceRay(view).getColor(),
+                "A light on the other side of the surface lit the point");
+    }
+}
@@ -0,0 +1,48 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing TileScheduler
+ */
+class TileSchedulerTest {
+
+    /**
+     * Test method for {@link renderer.TileScheduler#nextTile()}.
+     */
+    @Test
+    void nextTile() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Every pixel of the image is in exactly one tile, the border tiles are cut by the image
+        TileScheduler scheduler = new TileScheduler(10, 7, 4);
+        assertEquals(6, scheduler.getTilesCount(), "Wrong number of tiles");
+        int[][] covered = new int[10][7];
+        TileScheduler.Tile tile;
+        int tiles = 0;
+        while ((tile = scheduler.nextTile()) != null) {
+            ++tiles;
+            assertTrue(tile.size() > 0, "An empty tile");
+            for (int i = tile.fromRow(); i < tile.toRow(); ++i)
+                for (int j = tile.fromCol(); j < tile.toCol(); ++j)
+                    ++covered[i][j];
+        }
+        assertEquals(6, tiles, "Wrong number of tiles handed out");
+        for (int[] row : covered)
+            for (int count : row)
+                assertEquals(1, count, "A pixel is not covered exactly once");
+        assertEquals(new TileScheduler.Tile(8, 4, 10, 7), new TileScheduler(10, 7, 4).getTile(5),
+                "Wrong border tile");
+
+        // =============== Boundary Values Tests ==================
+        // TC02: A tile larger than the image
+        scheduler = new TileScheduler(3, 5, 16);
+        assertEquals(new TileScheduler.Tile(0, 0, 3, 5), scheduler.nextTile(), "Wrong single tile");
+        assertNull(scheduler.nextTile(), "There should be no more tiles");
+
+        // TC03: Illegal tile size
+        assertThrows(IllegalArgumentException.class, () -> new TileScheduler(3, 5, 0),
+                "Constructed a scheduler with an empty tile");
+    }
+}
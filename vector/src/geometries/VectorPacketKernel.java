@@ -0,0 +1,167 @@
+package geometries;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+import static jdk.incubator.vector.VectorOperators.GE;
+import static jdk.incubator.vector.VectorOperators.GT;
+import static jdk.incubator.vector.VectorOperators.LE;
+import static jdk.incubator.vector.VectorOperators.LT;
+import static jdk.incubator.vector.VectorOperators.NE;
+
+/**
+ * The packet kernel that tests several lanes of a packet at once, by the vectors of the Vector API - as many lanes
+ * as the platform's preferred vector of doubles holds (e.g. 4 with AVX2, 8 with AVX-512). The lanes are loaded
+ * from the packet's arrays of coordinates, the tests are calculated for all of them without branches, and their
+ * conditions are combined into masks. The lanes beyond the last whole vector are tested by the scalar kernel.
+ * <p>
+ * The class needs the incubator module {@code jdk.incubator.vector}, so it is compiled in a module of its own, with
+ * {@code --add-modules jdk.incubator.vector}, and is only loaded by name when the module is present at run time
+ * (see {@link PacketKernel#INSTANCE}). It repeats the arithmetic and the comparisons of the scalar
+ * kernel exactly - including {@link primitives.Util#alignZero(double)} and the NaN of a ray parallel to a slab -
+ * so both kernels find the same intersections.
+ */
+final class VectorPacketKernel implements PacketKernel {
+    /** The vectors of doubles of the platform */
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    /** The absolute values below which {@link primitives.Util#isZero(double)} takes a number as zero */
+    private static final double ZERO = 0x1p-40;
+
+    /** The kernel of the lanes that don't fill a whole vector */
+    private final ScalarPacketKernel scalar = new ScalarPacketKernel();
+
+    /**
+     * Constructs the kernel
+     *
+     * @throws UnsupportedOperationException if the vectors of the platform hold a single double - the scalar
+     *                                       kernel is as fast then
+     */
+    VectorPacketKernel() {
+        if (SPECIES.length() < 2)
+            throw new UnsupportedOperationException("The platform has no vectors of doubles");
+    }
+
+    @Override
+    public int intersectBox(RayPacket packet, int lanes, double minX, double minY, double minZ,
+                            double maxX, double maxY, double maxZ, double[] entries, int slot) {
+        int width = SPECIES.length();
+        int bound = SPECIES.loopBound(packet.size());
+        int entered = scalar.intersectBox(packet, tail(lanes, bound), minX, minY, minZ, maxX, maxY, maxZ,
+                entries, slot);
+        double[] maxDistances = packet.maxDistances;
+        for (int i = 0; i < bound; i += width) {
+            if (((lanes >>> i) & ((1L << width) - 1)) == 0) continue;
+            VectorMask<Double> active = VectorMask.fromLong(SPECIES, lanes >>> i);
+            for (int lane = i; lane < i + width; ++lane) maxDistances[lane] = packet.hits[lane].maxDistance;
+            DoubleVector tNear = DoubleVector.zero(SPECIES);
+            DoubleVector tFar = DoubleVector.fromArray(SPECIES, maxDistances, i);
+
+            // The slabs of the scalar kernel: the distances are swapped where the inverse is negative, and a NaN
+            // fails both comparisons and is ignored
+            DoubleVector o = DoubleVector.fromArray(SPECIES, packet.ox, i);
+            DoubleVector inv = DoubleVector.fromArray(SPECIES, packet.invDx, i);
+            DoubleVector t0 = DoubleVector.broadcast(SPECIES, minX).sub(o).mul(inv);
+            DoubleVector t1 = DoubleVector.broadcast(SPECIES, maxX).sub(o).mul(inv);
+            VectorMask<Double> swap = inv.compare(LT, 0.0);
+            DoubleVector enter = t0.blend(t1, swap), exit = t1.blend(t0, swap);
+            tNear = tNear.blend(enter, enter.compare(GT, tNear));
+            tFar = tFar.blend(exit, exit.compare(LT, tFar));
+
+            o = DoubleVector.fromArray(SPECIES, packet.oy, i);
+            inv = DoubleVector.fromArray(SPECIES, packet.invDy, i);
+            t0 = DoubleVector.broadcast(SPECIES, minY).sub(o).mul(inv);
+            t1 = DoubleVector.broadcast(SPECIES, maxY).sub(o).mul(inv);
+            swap = inv.compare(LT, 0.0);
+            enter = t0.blend(t1, swap);
+            exit = t1.blend(t0, swap);
+            tNear = tNear.blend(enter, enter.compare(GT, tNear));
+            tFar = tFar.blend(exit, exit.compare(LT, tFar));
+
+            o = DoubleVector.fromArray(SPECIES, packet.oz, i);
+            inv = DoubleVector.fromArray(SPECIES, packet.invDz, i);
+            t0 = DoubleVector.broadcast(SPECIES, minZ).sub(o).mul(inv);
+            t1 = DoubleVector.broadcast(SPECIES, maxZ).sub(o).mul(inv);
+            swap = inv.compare(LT, 0.0);
+            enter = t0.blend(t1, swap);
+            exit = t1.blend(t0, swap);
+            tNear = tNear.blend(enter, enter.compare(GT, tNear));
+            tFar = tFar.blend(exit, exit.compare(LT, tFar));
+
+            VectorMask<Double> inside = tNear.compare(LE, tFar).and(tNear.compare(NE, Double.POSITIVE_INFINITY))
+                    .and(active);
+            if (entries != null) tNear.intoArray(entries, slot + i, inside);
+            entered |= (int) (inside.toLong() << i);
+        }
+        return entered;
+    }
+
+    @Override
+    public void intersectTriangle(RayPacket packet, int lanes, Geometry geometry, int primitive,
+                                  double p0x, double p0y, double p0z,
+                                  double e1x, double e1y, double e1z,
+                                  double e2x, double e2y, double e2z) {
+        int width = SPECIES.length();
+        int bound = SPECIES.loopBound(packet.size());
+        scalar.intersectTriangle(packet, tail(lanes, bound), geometry, primitive,
+                p0x, p0y, p0z, e1x, e1y, e1z, e2x, e2y, e2z);
+        double edges = (e1x * e1x + e1y * e1y + e1z * e1z) * (e2x * e2x + e2y * e2y + e2z * e2z);
+        double[] maxDistances = packet.maxDistances, ts = packet.ts, us = packet.us, vs = packet.vs;
+        for (int i = 0; i < bound; i += width) {
+            if (((lanes >>> i) & ((1L << width) - 1)) == 0) continue;
+            VectorMask<Double> active = VectorMask.fromLong(SPECIES, lanes >>> i);
+            for (int lane = i; lane < i + width; ++lane) maxDistances[lane] = packet.hits[lane].maxDistance;
+            DoubleVector dx = DoubleVector.fromArray(SPECIES, packet.dx, i);
+            DoubleVector dy = DoubleVector.fromArray(SPECIES, packet.dy, i);
+            DoubleVector dz = DoubleVector.fromArray(SPECIES, packet.dz, i);
+
+            // p = dir x e2, det = e1 * p, relative to the edges like in the scalar kernel
+            DoubleVector px = dy.mul(e2z).sub(dz.mul(e2y));
+            DoubleVector py = dz.mul(e2x).sub(dx.mul(e2z));
+            DoubleVector pz = dx.mul(e2y).sub(dy.mul(e2x));
+            DoubleVector det = px.mul(e1x).add(py.mul(e1y)).add(pz.mul(e1z));
+            VectorMask<Double> missed = det.mul(det).compare(LE, Triangle.PARALLEL_EPSILON * edges);
+            DoubleVector invDet = DoubleVector.broadcast(SPECIES, 1.0).div(det);
+
+            // s = head - p0, u = (s * p) / det - alignZero(u) <= 0 is u < ZERO
+            DoubleVector sx = DoubleVector.fromArray(SPECIES, packet.ox, i).sub(p0x);
+            DoubleVector sy = DoubleVector.fromArray(SPECIES, packet.oy, i).sub(p0y);
+            DoubleVector sz = DoubleVector.fromArray(SPECIES, packet.oz, i).sub(p0z);
+            DoubleVector u = sx.mul(px).add(sy.mul(py)).add(sz.mul(pz)).mul(invDet);
+            missed = missed.or(u.compare(LT, ZERO)).or(u.compare(GE, 1.0));
+
+            // q = s x e1, v = (dir * q) / det - alignZero(u + v - 1) >= 0 is u + v - 1 > -ZERO
+            DoubleVector qx = sy.mul(e1z).sub(sz.mul(e1y));
+            DoubleVector qy = sz.mul(e1x).sub(sx.mul(e1z));
+            DoubleVector qz = sx.mul(e1y).sub(sy.mul(e1x));
+            DoubleVector v = dx.mul(qx).add(dy.mul(qy)).add(dz.mul(qz)).mul(invDet);
+            missed = missed.or(v.compare(LT, ZERO)).or(u.add(v).sub(1.0).compare(GT, -ZERO));
+
+            // t = (e2 * q) / det, in front of the head and within the search distance
+            DoubleVector t = qx.mul(e2x).add(qy.mul(e2y)).add(qz.mul(e2z)).mul(invDet);
+            missed = missed.or(t.compare(LT, ZERO))
+                    .or(t.sub(DoubleVector.fromArray(SPECIES, maxDistances, i)).compare(GE, ZERO));
+
+            long found = active.andNot(missed).toLong();
+            if (found == 0) continue;
+            t.intoArray(ts, i);
+            u.intoArray(us, i);
+            v.intoArray(vs, i);
+            for (; found != 0; found &= found - 1) {
+                int lane = i + Long.numberOfTrailingZeros(found);
+                packet.hits[lane].offer(geometry, primitive, ts[lane], us[lane], vs[lane]);
+            }
+        }
+    }
+
+    /**
+     * Returns the lanes beyond the last whole vector
+     *
+     * @param lanes the mask of the lanes
+     * @param bound the number of lanes in whole vectors
+     * @return the mask of the lanes that are not in whole vectors
+     */
+    private static int tail(int lanes, int bound) {
+        return bound >= Integer.SIZE ? 0 : lanes & (-1 << bound);
+    }
+}
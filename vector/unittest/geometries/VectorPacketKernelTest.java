@@ -0,0 +1,15 @@
+package geometries;
+
+/**
+ * Testing VectorPacketKernel - it finds the same intersections as the scalar kernel. The tests need the Vector API,
+ * i.e. running with {@code --add-modules jdk.incubator.vector}.
+ */
+class VectorPacketKernelTest extends PacketKernelTest {
+    /** The kernel tested, of the vectors of the platform */
+    private final PacketKernel vector = new VectorPacketKernel();
+
+    @Override
+    PacketKernel kernel() {
+        return vector;
+    }
+}